@@ -0,0 +1,188 @@
+package org.example.benchmarks;
+
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import org.example.model.exceptions.DAOException;
+import org.example.model.impls.BiciDAOImpl;
+import org.example.model.impls.PropietariDAOImpl;
+import org.example.model.impls.RevisioDAOImpl;
+import org.example.utils.DBUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Prepara la base de dades dels benchmarks: crea les taules i les omple amb dades generades.
+ *
+ * Les dades es generen amb una llavor fixa perquè cada execució treballi amb les mateixes files,
+ * i s'insereixen amb els saveAll dels DAOs, de manera que les entitats retornades ja porten l'ID assignat.
+ */
+
+public final class BaseDades {
+
+    private static final String ESQUEMA = "esquema-h2.sql";
+    private static final long LLAVOR = 42L;
+
+    private static final String[] NOMS = {"Anna", "Marc", "Laia", "Pau", "Júlia", "Jordi", "Marta", "Joan"};
+    private static final String[] COGNOMS = {"Puig", "Vidal", "Soler", "Ferrer", "Serra", "Roca", "Pons", "Mas"};
+    private static final String[] MARQUES = {"Orbea", "Trek", "Specialized", "Giant", "Canyon", "BH", "Scott", "Cube"};
+
+    private BaseDades() {
+    }
+
+    /**
+     * Esborra i torna a crear les taules a partir de l'script esquema-h2.sql.
+     *
+     * @throws SQLException si ocorre un error executant l'script.
+     * @throws IOException si no es pot llegir l'script.
+     */
+
+    public static void crear() throws SQLException, IOException {
+        String script;
+        try (InputStream input = BaseDades.class.getClassLoader().getResourceAsStream(ESQUEMA)) {
+            if (input == null) {
+                throw new IOException("Script no trobat: " + ESQUEMA);
+            }
+            script = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        try (Connection con = DBUtil.getConnection(); Statement st = con.createStatement()) {
+            for (String sentencia : sentencies(script)) {
+                st.execute(sentencia);
+            }
+        }
+    }
+
+    /**
+     * Insereix propietaris generats.
+     *
+     * @param quantitat Nombre de propietaris.
+     * @return Els propietaris inserits, amb l'ID assignat.
+     * @throws DAOException si ocorre un error inserint-los.
+     */
+
+    public static List<Propietari> propietaris(int quantitat) throws DAOException {
+        SplittableRandom aleatori = new SplittableRandom(LLAVOR);
+        List<Propietari> propietaris = new ArrayList<>(quantitat);
+        for (int i = 0; i < quantitat; i++) {
+            propietaris.add(propietari(aleatori, i));
+        }
+        new PropietariDAOImpl().saveAll(propietaris);
+        return propietaris;
+    }
+
+    /**
+     * Insereix bicicletes generades, repartides entre els propietaris indicats.
+     *
+     * @param quantitat Nombre de bicicletes.
+     * @param propietaris Propietaris ja inserits.
+     * @return Les bicicletes inserides, amb l'ID assignat.
+     * @throws DAOException si ocorre un error inserint-les.
+     */
+
+    public static List<Bici> bicis(int quantitat, List<Propietari> propietaris) throws DAOException {
+        SplittableRandom aleatori = new SplittableRandom(LLAVOR);
+        List<Bici> bicis = new ArrayList<>(quantitat);
+        for (int i = 0; i < quantitat; i++) {
+            bicis.add(bici(aleatori, propietaris.get(i % propietaris.size())));
+        }
+        new BiciDAOImpl().saveAll(bicis);
+        return bicis;
+    }
+
+    /**
+     * Insereix revisions generades, repartides entre les bicicletes indicades.
+     *
+     * @param quantitat Nombre de revisions.
+     * @param bicis Bicicletes ja inserides.
+     * @return Les revisions inserides, amb l'ID assignat.
+     * @throws DAOException si ocorre un error inserint-les.
+     */
+
+    public static List<Revisio> revisions(int quantitat, List<Bici> bicis) throws DAOException {
+        SplittableRandom aleatori = new SplittableRandom(LLAVOR);
+        List<Revisio> revisions = new ArrayList<>(quantitat);
+        for (int i = 0; i < quantitat; i++) {
+            revisions.add(revisio(aleatori, bicis.get(i % bicis.size())));
+        }
+        new RevisioDAOImpl().saveAll(revisions);
+        return revisions;
+    }
+
+    /**
+     * Genera un propietari sense guardar-lo.
+     *
+     * @param aleatori Generador de valors.
+     * @param i Número del propietari, per fer únic el correu.
+     * @return El propietari generat.
+     */
+
+    public static Propietari propietari(SplittableRandom aleatori, int i) {
+        String nom = NOMS[aleatori.nextInt(NOMS.length)];
+        String cognoms = COGNOMS[aleatori.nextInt(COGNOMS.length)] + " " + COGNOMS[aleatori.nextInt(COGNOMS.length)];
+        String telefon = String.valueOf(600000000 + aleatori.nextInt(100000000));
+        return new Propietari(nom, cognoms, telefon, nom.toLowerCase() + i + "@exemple.cat");
+    }
+
+    /**
+     * Genera una bicicleta sense guardar-la.
+     *
+     * @param aleatori Generador de valors.
+     * @param propietari Propietari de la bicicleta.
+     * @return La bicicleta generada.
+     */
+
+    public static Bici bici(SplittableRandom aleatori, Propietari propietari) {
+        Bici.TipoBici[] tipus = Bici.TipoBici.values();
+        return new Bici(
+                MARQUES[aleatori.nextInt(MARQUES.length)],
+                "Model " + aleatori.nextInt(1000),
+                2000 + aleatori.nextInt(25),
+                Math.round(aleatori.nextDouble(6, 25) * 100) / 100.0,
+                tipus[aleatori.nextInt(tipus.length)],
+                aleatori.nextBoolean() ? Bici.Carboni.SI : Bici.Carboni.NO,
+                propietari);
+    }
+
+    /**
+     * Genera una revisió sense guardar-la.
+     *
+     * @param aleatori Generador de valors.
+     * @param bici Bicicleta revisada.
+     * @return La revisió generada.
+     */
+
+    public static Revisio revisio(SplittableRandom aleatori, Bici bici) {
+        LocalDate data = LocalDate.of(2020, 1, 1).plusDays(aleatori.nextInt(5 * 365));
+        double preu = Math.round(aleatori.nextDouble(10, 500) * 100) / 100.0;
+        return new Revisio(data, "Revisió " + aleatori.nextInt(1000), preu, bici);
+    }
+
+    // Separa l'script en sentències pel punt i coma, descartant les línies de comentari.
+
+    private static List<String> sentencies(String script) {
+        StringBuilder net = new StringBuilder();
+        for (String linia : script.split("\\R")) {
+            if (!linia.strip().startsWith("--")) {
+                net.append(linia).append('\n');
+            }
+        }
+
+        List<String> sentencies = new ArrayList<>();
+        for (String sentencia : net.toString().split(";")) {
+            if (!sentencia.isBlank()) {
+                sentencies.add(sentencia.strip());
+            }
+        }
+        return sentencies;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.benchmarks;
+
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.exceptions.DAOException;
+import org.example.model.impls.BiciDAOImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link BiciDAOImpl} sobre una taula de bicicletes de mida variable.
+ *
+ * Les bicicletes que insereix save s'esborren en acabar cada iteració, i delete esborra
+ * bicicletes inserides just abans de cada invocació, de manera que la taula manté la mida del paràmetre.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.config=db-benchmark.properties")
+@State(Scope.Benchmark)
+public class BiciDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    private final BiciDAOImpl dao = new BiciDAOImpl();
+    private final SplittableRandom aleatori = new SplittableRandom(7L);
+    private final List<Long> inserides = new ArrayList<>();
+    private List<Propietari> propietaris;
+    private List<Bici> bicis;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException, DAOException {
+        BaseDades.crear();
+        propietaris = BaseDades.propietaris(Math.max(1, files / 10));
+        bicis = BaseDades.bicis(files, propietaris);
+    }
+
+    @TearDown(Level.Iteration)
+    public void netejar() throws DAOException {
+        dao.deleteAll(inserides);
+        inserides.clear();
+    }
+
+    @Benchmark
+    public Bici get() throws DAOException {
+        return dao.get(bicis.get(aleatori.nextInt(bicis.size())).getId());
+    }
+
+    @Benchmark
+    public List<Bici> getAll() throws DAOException {
+        return dao.getAll();
+    }
+
+    @Benchmark
+    public Long save() throws DAOException {
+        Bici bici = BaseDades.bici(aleatori, propietaris.get(aleatori.nextInt(propietaris.size())));
+        dao.save(bici);
+        inserides.add(bici.getId());
+        return bici.getId();
+    }
+
+    // Alterna el pes perquè cada invocació tingui un canvi real que escriure.
+
+    @Benchmark
+    public void update() throws DAOException {
+        Bici bici = bicis.get(aleatori.nextInt(bicis.size()));
+        bici.setPes(bici.getPes() < 20 ? bici.getPes() + 1 : bici.getPes() - 1);
+        dao.update(bici);
+    }
+
+    @Benchmark
+    public void delete(BiciNova nova) throws DAOException {
+        dao.delete(nova.id);
+    }
+
+    /**
+     * Bicicleta inserida abans de cada invocació de delete. La inserció no compta en el temps mesurat.
+     */
+
+    @State(Scope.Thread)
+    public static class BiciNova {
+
+        private Long id;
+
+        @Setup(Level.Invocation)
+        public void inserir(BiciDAOBenchmark benchmark) throws DAOException {
+            Bici bici = BaseDades.bici(benchmark.aleatori, benchmark.propietaris.get(0));
+            benchmark.dao.save(bici);
+            id = bici.getId();
+        }
+    }
+}
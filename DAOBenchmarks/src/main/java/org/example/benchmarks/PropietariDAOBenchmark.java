@@ -0,0 +1,113 @@
+package org.example.benchmarks;
+
+import org.example.model.entities.Propietari;
+import org.example.model.exceptions.DAOException;
+import org.example.model.impls.PropietariDAOImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link PropietariDAOImpl} sobre una taula de propietaris de mida variable.
+ *
+ * Els propietaris que insereix save s'esborren en acabar cada iteració, i delete esborra
+ * propietaris inserits just abans de cada invocació, de manera que la taula manté la mida del paràmetre.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.config=db-benchmark.properties")
+@State(Scope.Benchmark)
+public class PropietariDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    private final PropietariDAOImpl dao = new PropietariDAOImpl();
+    private final SplittableRandom aleatori = new SplittableRandom(7L);
+    private final List<Long> inserits = new ArrayList<>();
+    private List<Propietari> propietaris;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException, DAOException {
+        BaseDades.crear();
+        propietaris = BaseDades.propietaris(files);
+    }
+
+    @TearDown(Level.Iteration)
+    public void netejar() throws DAOException {
+        dao.deleteAll(inserits);
+        inserits.clear();
+    }
+
+    @Benchmark
+    public Propietari get() throws DAOException {
+        return dao.get(propietaris.get(aleatori.nextInt(propietaris.size())).getId());
+    }
+
+    @Benchmark
+    public List<Propietari> getAll() throws DAOException {
+        return dao.getAll();
+    }
+
+    @Benchmark
+    public Long save() throws DAOException {
+        Propietari propietari = BaseDades.propietari(aleatori, files + inserits.size());
+        dao.save(propietari);
+        inserits.add(propietari.getId());
+        return propietari.getId();
+    }
+
+    // Alterna el telèfon perquè cada invocació tingui un canvi real que escriure.
+
+    @Benchmark
+    public void update() throws DAOException {
+        Propietari propietari = propietaris.get(aleatori.nextInt(propietaris.size()));
+        String telefon = propietari.getTelefon();
+        propietari.setTelefon((telefon.charAt(0) == '6' ? '7' : '6') + telefon.substring(1));
+        dao.update(propietari);
+    }
+
+    @Benchmark
+    public void delete(PropietariNou nou) throws DAOException {
+        dao.delete(nou.id);
+    }
+
+    /**
+     * Propietari inserit abans de cada invocació de delete, sense bicicletes. La inserció no compta en el temps mesurat.
+     */
+
+    @State(Scope.Thread)
+    public static class PropietariNou {
+
+        private Long id;
+
+        @Setup(Level.Invocation)
+        public void inserir(PropietariDAOBenchmark benchmark) throws DAOException {
+            // Amb -1 el correu no coincideix amb cap propietari de la taula ni dels de save (l'email és únic).
+
+            Propietari propietari = BaseDades.propietari(benchmark.aleatori, -1);
+            benchmark.dao.save(propietari);
+            id = propietari.getId();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.benchmarks;
+
+import org.example.model.entities.Bici;
+import org.example.model.entities.Revisio;
+import org.example.model.exceptions.DAOException;
+import org.example.model.impls.RevisioDAOImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link RevisioDAOImpl} sobre una taula de revisions de mida variable.
+ *
+ * Les revisions que insereix save s'esborren en acabar cada iteració, i delete esborra
+ * revisions inserides just abans de cada invocació, de manera que la taula manté la mida del paràmetre.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.config=db-benchmark.properties")
+@State(Scope.Benchmark)
+public class RevisioDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    private final RevisioDAOImpl dao = new RevisioDAOImpl();
+    private final SplittableRandom aleatori = new SplittableRandom(7L);
+    private final List<Long> inserides = new ArrayList<>();
+    private List<Bici> bicis;
+    private List<Revisio> revisions;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException, DAOException {
+        BaseDades.crear();
+        bicis = BaseDades.bicis(Math.max(1, files / 10), BaseDades.propietaris(Math.max(1, files / 100)));
+        revisions = BaseDades.revisions(files, bicis);
+    }
+
+    @TearDown(Level.Iteration)
+    public void netejar() throws DAOException {
+        dao.deleteAll(inserides);
+        inserides.clear();
+    }
+
+    @Benchmark
+    public Revisio get() throws DAOException {
+        return dao.get(revisions.get(aleatori.nextInt(revisions.size())).getId());
+    }
+
+    @Benchmark
+    public List<Revisio> getAll() throws DAOException {
+        return dao.getAll();
+    }
+
+    @Benchmark
+    public Long save() throws DAOException {
+        Revisio revisio = BaseDades.revisio(aleatori, bicis.get(aleatori.nextInt(bicis.size())));
+        dao.save(revisio);
+        inserides.add(revisio.getId());
+        return revisio.getId();
+    }
+
+    // Alterna el preu perquè cada invocació tingui un canvi real que escriure.
+
+    @Benchmark
+    public void update() throws DAOException {
+        Revisio revisio = revisions.get(aleatori.nextInt(revisions.size()));
+        revisio.setPreu(revisio.getPreu() < 400 ? revisio.getPreu() + 1 : revisio.getPreu() - 1);
+        dao.update(revisio);
+    }
+
+    @Benchmark
+    public void delete(RevisioNova nova) throws DAOException {
+        dao.delete(nova.id);
+    }
+
+    /**
+     * Revisió inserida abans de cada invocació de delete. La inserció no compta en el temps mesurat.
+     */
+
+    @State(Scope.Thread)
+    public static class RevisioNova {
+
+        private Long id;
+
+        @Setup(Level.Invocation)
+        public void inserir(RevisioDAOBenchmark benchmark) throws DAOException {
+            Revisio revisio = BaseDades.revisio(benchmark.aleatori, benchmark.bicis.get(0));
+            benchmark.dao.save(revisio);
+            id = revisio.getId();
+        }
+    }
+}
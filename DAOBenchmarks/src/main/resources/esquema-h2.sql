@@ -0,0 +1,45 @@
+-- Còpia de les taules de PLSQL/pl.sql per a H2 en mode Oracle.
+-- Les claus són BIGINT perquè H2 no accepta NUMBER sense precisió com a identitat,
+-- i no hi ha els índexs UPPER(columna), que H2 no admet.
+
+DROP TABLE IF EXISTS Revisions CASCADE;
+DROP TABLE IF EXISTS Bicicletes CASCADE;
+DROP TABLE IF EXISTS Propietaris CASCADE;
+
+CREATE TABLE Propietaris (
+    propietari_id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nom VARCHAR2(50) NOT NULL,
+    cognoms VARCHAR2(50) NOT NULL,
+    telefon VARCHAR2(20),
+    email VARCHAR2(50),
+    PRIMARY KEY (propietari_id)
+);
+
+CREATE TABLE Bicicletes (
+    bici_id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    marca VARCHAR2(50) NOT NULL,
+    model VARCHAR2(50) NOT NULL,
+    any_fabricacio NUMBER(4) NOT NULL,
+    pes NUMBER(5, 2) NOT NULL,
+    tipus VARCHAR2(10) CHECK (tipus IN ('MTB', 'CARRETERA', 'GRAVEL', 'EBIKE')) NOT NULL,
+    carboni VARCHAR2(3) CHECK (carboni IN ('SI', 'NO')) NOT NULL,
+    propietari_id BIGINT,
+    PRIMARY KEY (bici_id),
+    FOREIGN KEY (propietari_id) REFERENCES Propietaris(propietari_id) ON DELETE SET NULL
+);
+
+CREATE TABLE Revisions (
+    revisio_id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    bici_id BIGINT NOT NULL,
+    data DATE NOT NULL,
+    descripcio VARCHAR2(255),
+    preu NUMBER(5, 2) NOT NULL,
+    PRIMARY KEY (revisio_id),
+    FOREIGN KEY (bici_id) REFERENCES Bicicletes(bici_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_bicicletes_propietari ON Bicicletes (propietari_id);
+CREATE INDEX idx_revisions_bici_data ON Revisions (bici_id, data);
+CREATE INDEX idx_revisions_data ON Revisions (data);
+CREATE UNIQUE INDEX uq_propietaris_email ON Propietaris (email);
+CREATE INDEX idx_bicicletes_clau ON Bicicletes (marca, model, propietari_id);
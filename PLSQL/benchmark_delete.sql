@@ -0,0 +1,132 @@
+----- BENCHMARK -----
+
+-- Mesura el temps d'esborrar propietaris (ON DELETE SET NULL sobre Bicicletes) i bicicletes
+-- (ON DELETE CASCADE sobre Revisions) sense i amb els índexs de les claus foranes.
+--
+-- S'ha d'executar en un esquema de proves amb pl.sql ja carregat: esborra i torna a crear
+-- idx_bicicletes_propietari i idx_revisions_bici_data. Les dades de prova porten la marca 'BenchFK'
+-- i s'eliminen en acabar.
+
+SET SERVEROUTPUT ON
+
+DECLARE
+    c_propietaris CONSTANT PLS_INTEGER := 20000;
+    c_bicis_per_propietari CONSTANT PLS_INTEGER := 5;
+    c_revisions_per_bici CONSTANT PLS_INTEGER := 4;
+    c_mostra CONSTANT PLS_INTEGER := 200;
+
+    v_propietaris_sense NUMBER;
+    v_bicis_sense NUMBER;
+    v_propietaris_amb NUMBER;
+    v_bicis_amb NUMBER;
+
+    index_inexistent EXCEPTION;
+    PRAGMA EXCEPTION_INIT(index_inexistent, -1418);
+
+    PROCEDURE esborrar_index(p_nom VARCHAR2) IS
+    BEGIN
+        EXECUTE IMMEDIATE 'DROP INDEX ' || p_nom;
+    EXCEPTION
+        WHEN index_inexistent THEN NULL;
+    END;
+
+    PROCEDURE crear_indexs IS
+    BEGIN
+        EXECUTE IMMEDIATE 'CREATE INDEX idx_bicicletes_propietari ON Bicicletes (propietari_id)';
+        EXECUTE IMMEDIATE 'CREATE INDEX idx_revisions_bici_data ON Revisions (bici_id, data)';
+    END;
+
+    PROCEDURE netejar IS
+    BEGIN
+        DELETE FROM Bicicletes WHERE marca = 'BenchFK';
+        DELETE FROM Propietaris WHERE nom = 'BenchFK';
+        COMMIT;
+    END;
+
+    -- Omple les tres taules; cada propietari té les seves bicicletes i cada bicicleta les seves revisions.
+
+    PROCEDURE carregar IS
+    BEGIN
+        INSERT INTO Propietaris (nom, cognoms, telefon, email)
+        SELECT 'BenchFK', 'Bench' || LEVEL, '600000000', 'bench' || LEVEL || '@example.com'
+        FROM dual CONNECT BY LEVEL <= c_propietaris;
+
+        INSERT INTO Bicicletes (marca, model, any_fabricacio, pes, tipus, carboni, propietari_id)
+        SELECT 'BenchFK', 'Model' || n.n, 2020, 9.5, 'MTB', 'NO', p.propietari_id
+        FROM Propietaris p
+        CROSS JOIN (SELECT LEVEL n FROM dual CONNECT BY LEVEL <= c_bicis_per_propietari) n
+        WHERE p.nom = 'BenchFK';
+
+        INSERT INTO Revisions (bici_id, data, descripcio, preu)
+        SELECT b.bici_id, DATE '2024-01-01' + n.n, 'Bench', 50
+        FROM Bicicletes b
+        CROSS JOIN (SELECT LEVEL n FROM dual CONNECT BY LEVEL <= c_revisions_per_bici) n
+        WHERE b.marca = 'BenchFK';
+        COMMIT;
+
+        DBMS_STATS.GATHER_TABLE_STATS(USER, 'PROPIETARIS');
+        DBMS_STATS.GATHER_TABLE_STATS(USER, 'BICICLETES');
+        DBMS_STATS.GATHER_TABLE_STATS(USER, 'REVISIONS');
+    END;
+
+    -- Esborra c_mostra files d'una en una, com fan PropietariDAOImpl.delete i BiciDAOImpl.delete,
+    -- i retorna els mil·lisegons mitjans per esborrat.
+
+    FUNCTION mesurar(p_taula VARCHAR2) RETURN NUMBER IS
+        v_ids SYS.ODCINUMBERLIST;
+        v_inici PLS_INTEGER;
+    BEGIN
+        IF p_taula = 'PROPIETARIS' THEN
+            SELECT propietari_id BULK COLLECT INTO v_ids
+            FROM Propietaris WHERE nom = 'BenchFK' ORDER BY propietari_id FETCH FIRST c_mostra ROWS ONLY;
+        ELSE
+            SELECT bici_id BULK COLLECT INTO v_ids
+            FROM Bicicletes WHERE marca = 'BenchFK' ORDER BY bici_id FETCH FIRST c_mostra ROWS ONLY;
+        END IF;
+
+        v_inici := DBMS_UTILITY.GET_TIME;
+        FOR i IN 1 .. v_ids.COUNT LOOP
+            IF p_taula = 'PROPIETARIS' THEN
+                DELETE FROM Propietaris WHERE propietari_id = v_ids(i);
+            ELSE
+                DELETE FROM Bicicletes WHERE bici_id = v_ids(i);
+            END IF;
+            COMMIT;
+        END LOOP;
+
+        -- DBMS_UTILITY.GET_TIME compta centèsimes de segon.
+        RETURN ROUND((DBMS_UTILITY.GET_TIME - v_inici) * 10 / GREATEST(v_ids.COUNT, 1), 2);
+    END;
+BEGIN
+    netejar;
+    esborrar_index('idx_bicicletes_propietari');
+    esborrar_index('idx_revisions_bici_data');
+
+    carregar;
+    v_propietaris_sense := mesurar('PROPIETARIS');
+    v_bicis_sense := mesurar('BICICLETES');
+
+    crear_indexs;
+    v_propietaris_amb := mesurar('PROPIETARIS');
+    v_bicis_amb := mesurar('BICICLETES');
+
+    netejar;
+
+    DBMS_OUTPUT.PUT_LINE('Files: ' || c_propietaris || ' propietaris, '
+        || c_propietaris * c_bicis_per_propietari || ' bicicletes, '
+        || c_propietaris * c_bicis_per_propietari * c_revisions_per_bici || ' revisions');
+    DBMS_OUTPUT.PUT_LINE('Esborrar propietari (ms): sense índex ' || v_propietaris_sense || ', amb índex ' || v_propietaris_amb);
+    DBMS_OUTPUT.PUT_LINE('Esborrar bicicleta (ms):  sense índex ' || v_bicis_sense || ', amb índex ' || v_bicis_amb);
+EXCEPTION
+    WHEN OTHERS THEN
+        -- Si falla a mitges, deixa l'esquema com estava: sense dades de prova i amb els índexs.
+        ROLLBACK;
+        netejar;
+        BEGIN
+            crear_indexs;
+        EXCEPTION
+            WHEN OTHERS THEN NULL;
+        END;
+        RAISE;
+END;
+/
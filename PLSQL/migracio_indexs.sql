@@ -0,0 +1,52 @@
+----- MIGRACIÓ -----
+
+-- Crea en una instal·lació existent els índexs que pl.sql crea amb les taules.
+-- Es pot executar més d'una vegada: els índexs que ja existeixen (amb aquest nom o sobre les
+-- mateixes columnes amb un altre nom) no es tornen a crear.
+-- Crear un índex bloqueja les escriptures a la taula mentre dura; convé fer-ho fora d'hores.
+
+SET SERVEROUTPUT ON
+
+DECLARE
+    columnes_ja_indexades EXCEPTION;
+    PRAGMA EXCEPTION_INIT(columnes_ja_indexades, -1408);
+    claus_duplicades EXCEPTION;
+    PRAGMA EXCEPTION_INIT(claus_duplicades, -1452);
+
+    PROCEDURE crear(p_nom VARCHAR2, p_ddl VARCHAR2) IS
+        v_existeix PLS_INTEGER;
+    BEGIN
+        SELECT COUNT(*) INTO v_existeix FROM user_indexes WHERE index_name = UPPER(p_nom);
+        IF v_existeix > 0 THEN
+            DBMS_OUTPUT.PUT_LINE(p_nom || ': ja existeix');
+            RETURN;
+        END IF;
+
+        EXECUTE IMMEDIATE p_ddl;
+        DBMS_OUTPUT.PUT_LINE(p_nom || ': creat');
+    EXCEPTION
+        WHEN columnes_ja_indexades THEN
+            DBMS_OUTPUT.PUT_LINE(p_nom || ': les columnes ja tenen un altre índex');
+        WHEN claus_duplicades THEN
+            DBMS_OUTPUT.PUT_LINE(p_nom || ': no s''ha creat, hi ha valors repetits que s''han de corregir abans');
+    END;
+BEGIN
+    -- Claus foranes
+    crear('idx_bicicletes_propietari', 'CREATE INDEX idx_bicicletes_propietari ON Bicicletes (propietari_id)');
+    crear('idx_revisions_bici_data', 'CREATE INDEX idx_revisions_bici_data ON Revisions (bici_id, data)');
+
+    -- Consultes de revisions per període
+    crear('idx_revisions_data', 'CREATE INDEX idx_revisions_data ON Revisions (data)');
+
+    -- Filtres de text de les taules
+    crear('idx_propietaris_nom', 'CREATE INDEX idx_propietaris_nom ON Propietaris (UPPER(nom))');
+    crear('idx_propietaris_cognoms', 'CREATE INDEX idx_propietaris_cognoms ON Propietaris (UPPER(cognoms))');
+    crear('idx_bicicletes_marca', 'CREATE INDEX idx_bicicletes_marca ON Bicicletes (UPPER(marca))');
+    crear('idx_bicicletes_model', 'CREATE INDEX idx_bicicletes_model ON Bicicletes (UPPER(model))');
+    crear('idx_revisions_descripcio', 'CREATE INDEX idx_revisions_descripcio ON Revisions (UPPER(descripcio))');
+
+    -- Claus naturals dels upsertAll
+    crear('uq_propietaris_email', 'CREATE UNIQUE INDEX uq_propietaris_email ON Propietaris (email)');
+    crear('idx_bicicletes_clau', 'CREATE INDEX idx_bicicletes_clau ON Bicicletes (marca, model, propietari_id)');
+END;
+/
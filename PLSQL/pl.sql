@@ -35,6 +35,29 @@ CREATE TABLE Revisions (
     FOREIGN KEY (bici_id) REFERENCES Bicicletes(bici_id) ON DELETE CASCADE
 );
 
+-- Índexs de les claus foranes: sense ells, esborrar un propietari (ON DELETE SET NULL) o una bicicleta
+-- (ON DELETE CASCADE) recorre i bloqueja tota la taula filla. Revisions.bici_id queda cobert per
+-- idx_revisions_bici_data, més avall, que comença per aquesta columna.
+CREATE INDEX idx_bicicletes_propietari ON Bicicletes (propietari_id);
+
+-- Índexs per als filtres de text de les taules (UPPER(columna) LIKE 'TEXT%')
+CREATE INDEX idx_propietaris_nom ON Propietaris (UPPER(nom));
+CREATE INDEX idx_propietaris_cognoms ON Propietaris (UPPER(cognoms));
+CREATE INDEX idx_bicicletes_marca ON Bicicletes (UPPER(marca));
+CREATE INDEX idx_bicicletes_model ON Bicicletes (UPPER(model));
+CREATE INDEX idx_revisions_descripcio ON Revisions (UPPER(descripcio));
+
+-- Índexs per a l'historial de revisions d'una bicicleta i per a les consultes per període.
+-- Revisions(bici_id, data) cobreix també la clau forana bici_id (ON DELETE CASCADE des de Bicicletes).
+CREATE INDEX idx_revisions_bici_data ON Revisions (bici_id, data);
+CREATE INDEX idx_revisions_data ON Revisions (data);
+
+-- Claus naturals dels upsertAll (MERGE per correu o per marca, model i propietari). El correu és únic;
+-- un propietari pot tenir dues bicicletes iguals, de manera que la clau de les bicicletes només s'indexa
+-- i upsertAll rebutja les bicicletes sense ID que coincideixen amb més d'una fila.
+CREATE UNIQUE INDEX uq_propietaris_email ON Propietaris (email);
+CREATE INDEX idx_bicicletes_clau ON Bicicletes (marca, model, propietari_id);
+
 -- Commit per assegurar que els canvis es guarden
 COMMIT;
 
@@ -28,7 +28,7 @@ public class Main {
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
-            Locale.setDefault(new Locale("ca","ES"));
+            Locale.setDefault(Locale.of("ca", "ES"));
             new MainController();
         });
     }
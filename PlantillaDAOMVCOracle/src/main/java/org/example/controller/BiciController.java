@@ -2,16 +2,16 @@ package org.example.controller;
 
 import org.example.model.entities.Bici;
 import org.example.model.entities.Propietari;
+import org.example.model.daos.AsyncDAO;
+import org.example.model.daos.DAO;
 import org.example.model.exceptions.DAOException;
-import org.example.model.impls.BiciDAOImpl;
+import org.example.model.validacio.Validadors;
 import org.example.view.Vista;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeSupport;
-import java.time.LocalDate;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador per a la gestió de bicicletes.
@@ -25,7 +25,7 @@ import java.util.List;
  */
 
 public class BiciController {
-    private final BiciDAOImpl bicicletaDAO;
+    private final AsyncDAO<Bici> bicicletaAsync;
     private final Vista view;
     private final PropertyChangeSupport propertyChangeSupport;
     private final ViewController viewController;
@@ -36,13 +36,13 @@ public class BiciController {
      * Inicialitza les dependències necessàries, configura els escoltadors d'esdeveniments
      * i inicialitza la vista.
      *
-     * @param bicicletaDAO Implementació del DAO per a bicicletes
+     * @param bicicletaDAO DAO per a bicicletes
      * @param view Vista associada a aquest controlador
      * @param viewController Controlador de la vista principal
      */
 
-    public BiciController(BiciDAOImpl bicicletaDAO, Vista view, ViewController viewController) {
-        this.bicicletaDAO = bicicletaDAO;
+    public BiciController(DAO<Bici> bicicletaDAO, Vista view, ViewController viewController) {
+        this.bicicletaAsync = new AsyncDAO<>(bicicletaDAO);
         this.view = view;
         this.viewController = viewController;
         propertyChangeSupport = new PropertyChangeSupport(this);
@@ -60,13 +60,23 @@ public class BiciController {
      */
 
     private void initView() {
-        try {
-            List<Bici> bicis = bicicletaDAO.getAll();
-            updateBiciTable(bicis);
-            updateBiciComboBox(bicis);
-        } catch (DAOException e) {
-            setExcepcio(new DAOException(e.getTipo()));
-        }
+        viewController.getModelTaulaBicis().setGestorErrors(e -> setExcepcio(new DAOException(EDT.causa(e).getTipo())));
+        viewController.getModelTaulaBicis().setFont(bicicletaAsync);
+        viewController.getCercaBicis().setGestorErrors(e -> setExcepcio(new DAOException(EDT.causa(e).getTipo())));
+        viewController.getCercaBicis().setFont(bicicletaAsync);
+        recarregar();
+    }
+
+    /**
+     * Torna a carregar totes les bicicletes des de la base de dades.
+     *
+     * Només es fa en iniciar la vista i quan l'usuari ho demana explícitament (tecla F5);
+     * les altes, modificacions i baixes actualitzen només la fila afectada.
+     */
+
+    private void recarregar() {
+        viewController.getModelTaulaBicis().recarregar();
+        viewController.getCercaBicis().invalidar();
     }
 
     /**
@@ -88,6 +98,8 @@ public class BiciController {
                 mostrarDadesBici();
             }
         });
+
+        viewController.addRefrescarListener(this::recarregar);
     }
 
     /**
@@ -104,7 +116,7 @@ public class BiciController {
             String anyText = view.getCampAnyFabricacio().getText().trim();
             Bici.TipoBici tipus = (Bici.TipoBici) view.getComboTipus().getSelectedItem();
             Bici.Carboni carboni = (Bici.Carboni) view.getComboCarboni().getSelectedItem();
-            Propietari propietari = (Propietari) view.getComboPropietari().getSelectedItem();
+            Propietari propietari = viewController.getCercaPropietaris().getSeleccionat();
 
             if (marca.isEmpty() || model.isEmpty() || pesText.isEmpty() || anyText.isEmpty() || tipus == null || carboni == null || propietari == null) {
                 JOptionPane.showMessageDialog(view, "Tots els camps són obligatoris", "Error", JOptionPane.ERROR_MESSAGE);
@@ -130,20 +142,7 @@ public class BiciController {
      */
 
     private boolean validarBici(Bici bici) throws DAOException {
-        String regex = "^[A-ZÀ-ÚÑÇ][a-zà-úñç]*(\\s+[A-ZÀ-ÚÑÇ][a-zà-úñç]*)*$";
-
-        if (bici.getMarca() == null || bici.getMarca().trim().isEmpty() || !bici.getMarca().matches(regex)) {
-            throw new DAOException(21);
-        }
-        if (bici.getModelBici() == null || bici.getModelBici().trim().isEmpty() || !bici.getModelBici().matches(regex)) {
-            throw new DAOException(22);
-        }
-        if (bici.getAnyFabricacio() < 1990 || bici.getAnyFabricacio() > LocalDate.now().getYear()) {
-            throw new DAOException(23);
-        }
-        if (bici.getPes() <= 0) {
-            throw new DAOException(24);
-        }
+        Validadors.BICI.validar(bici);
         return true;
     }
 
@@ -156,13 +155,14 @@ public class BiciController {
             Bici novaBici = getBiciDadesVista();
             if (novaBici == null || !validarBici(novaBici)) return;
 
-            bicicletaDAO.save(novaBici);
-            updateBiciTable(bicicletaDAO.getAll());
-            updateBiciComboBox(bicicletaDAO.getAll());
+            executar(bicicletaAsync.saveAsync(novaBici), () -> {
+                viewController.getModelTaulaBicis().afegir(novaBici);
+                viewController.getCercaBicis().invalidar();
 
-            JOptionPane.showMessageDialog(view, "Bici afegida correctament", "Afegir bici", JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(view, "Bici afegida correctament", "Afegir bici", JOptionPane.INFORMATION_MESSAGE);
 
-            llimpiarDadesBici();
+                llimpiarDadesBici();
+            });
 
         } catch (DAOException e) {
             setExcepcio(new DAOException(e.getTipo()));
@@ -179,26 +179,31 @@ public class BiciController {
         try {
             int fila = view.getTaulaBicis().getSelectedRow();
             if (fila != -1) {
-                DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaBicis().getModel();
-                Bici bici = (Bici) tableModel.getValueAt(fila, 7);
+                Bici bici = viewController.getModelTaulaBicis().getEntitat(fila);
+                if (bici == null) return;
 
                 Bici biciModificada = getBiciDadesVista();
                 if (biciModificada == null || !validarBici(biciModificada)) return;
 
-                bici.setMarca(biciModificada.getMarca());
-                bici.setModelBici(biciModificada.getModelBici());
-                bici.setPes(biciModificada.getPes());
-                bici.setAnyFabricacio(biciModificada.getAnyFabricacio());
-                bici.setTipo(biciModificada.getTipo());
-                bici.setCarboni(biciModificada.getCarboni());
-                bici.setPropietari(biciModificada.getPropietari());
-
-                bicicletaDAO.update(bici);
-                updateBiciTable(bicicletaDAO.getAll());
-                updateBiciComboBox(bicicletaDAO.getAll());
-
-                JOptionPane.showMessageDialog(view, "Bici modificada correctament", "Modificar bici", JOptionPane.INFORMATION_MESSAGE);
-                llimpiarDadesBici();
+                // Els canvis es fan sobre una còpia: la fila de la taula (que pot ser la instància de la memòria cau)
+                // només es substitueix si l'actualització ha anat bé.
+
+                Bici copia = bici.copia();
+                copia.setMarca(biciModificada.getMarca());
+                copia.setModelBici(biciModificada.getModelBici());
+                copia.setPes(biciModificada.getPes());
+                copia.setAnyFabricacio(biciModificada.getAnyFabricacio());
+                copia.setTipo(biciModificada.getTipo());
+                copia.setCarboni(biciModificada.getCarboni());
+                copia.setPropietari(biciModificada.getPropietari());
+
+                executar(bicicletaAsync.updateAsync(copia), () -> {
+                    viewController.getModelTaulaBicis().actualitzar(copia);
+                    viewController.getCercaBicis().actualitzar(copia);
+
+                    JOptionPane.showMessageDialog(view, "Bici modificada correctament", "Modificar bici", JOptionPane.INFORMATION_MESSAGE);
+                    llimpiarDadesBici();
+                });
             }
         } catch (DAOException e) {
             setExcepcio(new DAOException(e.getTipo()));
@@ -212,43 +217,32 @@ public class BiciController {
      */
 
     private void eliminarBici() {
-        try {
-            int fila = view.getTaulaBicis().getSelectedRow();
-            if (fila != -1) {
-                DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaBicis().getModel();
-                Bici bici = (Bici) tableModel.getValueAt(fila, 7);
-                if (bici != null && bici.getId() != null) {
-                    bicicletaDAO.delete(bici);
-
-                    updateBiciTable(bicicletaDAO.getAll());
-                    updateBiciComboBox(bicicletaDAO.getAll());
+        int fila = view.getTaulaBicis().getSelectedRow();
+        if (fila != -1) {
+            Bici bici = viewController.getModelTaulaBicis().getEntitat(fila);
+            if (bici != null && bici.getId() != null) {
+                executar(bicicletaAsync.deleteAsync(bici.getId()), () -> {
+                    viewController.getModelTaulaBicis().eliminar(bici);
+                    viewController.getCercaBicis().eliminar(bici);
 
                     JOptionPane.showMessageDialog(view, "Bici eliminada correctament", "Eliminar bici", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(view, "La bici o el seu ID és null", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                });
+            } else {
+                JOptionPane.showMessageDialog(view, "La bici o el seu ID és null", "Error", JOptionPane.ERROR_MESSAGE);
             }
-        } catch (DAOException e) {
-            setExcepcio(new DAOException(e.getTipo()));
         }
     }
 
     /**
-     * Actualitza la taula de bicicletes amb les dades actuals.
+     * Executa una operació d'escriptura en segon pla i, si acaba bé, actualitza la vista
+     * al fil d'esdeveniments de Swing.
      *
-     * @param bicis Llista de bicicletes per mostrar a la taula
+     * @param operacio L'operació asíncrona d'escriptura.
+     * @param enAcabar Acció que actualitza la vista amb el canvi fet.
      */
 
-    public void updateBiciTable(List<Bici> bicis) {
-        DefaultTableModel model = (DefaultTableModel) view.getTaulaBicis().getModel();
-        model.setRowCount(0);
-        for (Bici bici : bicis) {
-            model.addRow(new Object[]{bici.getMarca(), bici.getModelBici(), bici.getPes(), bici.getAnyFabricacio(), bici.getTipo(), bici.getCarboni(), bici.getPropietari(), bici});
-        }
-    }
-
-    public void updateBiciComboBox(List<Bici> bicis) {
-        viewController.updateBiciComboBox(bicis);
+    private void executar(CompletableFuture<Void> operacio, Runnable enAcabar) {
+        EDT.quan(operacio, v -> enAcabar.run(), e -> setExcepcio(new DAOException(e.getTipo())));
     }
 
     /**
@@ -262,7 +256,7 @@ public class BiciController {
         view.getCampAnyFabricacio().setText("");
         view.getComboTipus().setSelectedIndex(0);
         view.getComboCarboni().setSelectedIndex(0);
-        view.getComboPropietari().setSelectedIndex(0);
+        viewController.getCercaPropietaris().setSeleccionat(null);
     }
 
     /**
@@ -272,15 +266,15 @@ public class BiciController {
     private void mostrarDadesBici() {
         int fila = view.getTaulaBicis().getSelectedRow();
         if (fila != -1) {
-            DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaBicis().getModel();
-            Bici bici = (Bici) tableModel.getValueAt(fila, 7);
+            Bici bici = viewController.getModelTaulaBicis().getEntitat(fila);
+            if (bici == null) return;
             view.getCampMarca().setText(bici.getMarca());
             view.getCampModelBici().setText(bici.getModelBici());
             view.getCampPes().setText(String.valueOf(bici.getPes()));
             view.getCampAnyFabricacio().setText(String.valueOf(bici.getAnyFabricacio()));
             view.getComboTipus().setSelectedItem(bici.getTipo());
             view.getComboCarboni().setSelectedItem(bici.getCarboni());
-            view.getComboPropietari().setSelectedItem(bici.getPropietari());
+            viewController.getCercaPropietaris().setSeleccionat(bici.getPropietari());
         }
     }
 }
\ No newline at end of file
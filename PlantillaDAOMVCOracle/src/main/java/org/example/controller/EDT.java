@@ -0,0 +1,57 @@
+package org.example.controller;
+
+import org.example.model.exceptions.DAOException;
+import org.example.model.exceptions.UncheckedDAOException;
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Retorna al fil d'esdeveniments de Swing el resultat de les operacions asíncrones dels DAOs.
+ *
+ * Els components de Swing només es poden tocar des del fil d'esdeveniments; els controladors
+ * llancen les operacions de base de dades en un altre fil i, quan acaben, actualitzen la vista
+ * a través d'aquesta classe.
+ */
+
+final class EDT {
+
+    private EDT() {
+    }
+
+    /**
+     * Executa al fil d'esdeveniments l'acció corresponent quan el futur es completa.
+     *
+     * @param futur L'operació asíncrona.
+     * @param resultat Acció a executar amb el resultat si l'operació acaba bé.
+     * @param error Acció a executar amb l'error si l'operació falla.
+     * @param <T> El tipus del resultat.
+     */
+
+    static <T> void quan(CompletableFuture<T> futur, Consumer<T> resultat, Consumer<DAOException> error) {
+        futur.whenComplete((valor, excepcio) -> SwingUtilities.invokeLater(() -> {
+            if (excepcio == null) {
+                resultat.accept(valor);
+            } else {
+                error.accept(causa(excepcio));
+            }
+        }));
+    }
+
+    // Desembolcalla l'excepció d'un futur fins a la DAOException que l'ha provocada.
+
+    static DAOException causa(Throwable excepcio) {
+        Throwable causa = excepcio;
+        while (causa instanceof CompletionException && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        if (causa instanceof DAOException) {
+            return (DAOException) causa;
+        }
+        if (causa instanceof UncheckedDAOException) {
+            return ((UncheckedDAOException) causa).getCause();
+        }
+        return new DAOException(1, causa.getMessage());
+    }
+}
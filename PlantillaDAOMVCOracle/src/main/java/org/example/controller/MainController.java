@@ -1,5 +1,10 @@
 package org.example.controller;
 
+import org.example.model.daos.DAO;
+import org.example.model.daos.DAOAmbEsdeveniments;
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
 import org.example.model.impls.BiciDAOImpl;
 import org.example.model.impls.PropietariDAOImpl;
 import org.example.model.impls.RevisioDAOImpl;
@@ -18,9 +23,9 @@ import org.example.view.Vista;
  */
 
 public class MainController {
-    protected BiciDAOImpl bicicletaDAO;
-    protected PropietariDAOImpl propietariDAO;
-    protected RevisioDAOImpl revisioDAO;
+    protected DAO<Bici> bicicletaDAO;
+    protected DAO<Propietari> propietariDAO;
+    protected DAO<Revisio> revisioDAO;
     protected Vista view;
     protected ViewController viewController;
 
@@ -28,14 +33,15 @@ public class MainController {
      * Constructor del controlador principal.
      *
      * Crea instàncies de les implementacions DAO per a bicicletes, propietaris i revisions,
+     * embolcallades perquè emetin esdeveniments de JFR,
      * així com la vista principal i els components visuals del model. Inicialitza els controladors
      * específics per a cada entitat i mostra la vista principal.
      */
 
     public MainController() {
-        bicicletaDAO = new BiciDAOImpl();
-        propietariDAO = new PropietariDAOImpl();
-        revisioDAO = new RevisioDAOImpl();
+        bicicletaDAO = DAOAmbEsdeveniments.embolcallar(new BiciDAOImpl());
+        propietariDAO = DAOAmbEsdeveniments.embolcallar(new PropietariDAOImpl());
+        revisioDAO = DAOAmbEsdeveniments.embolcallar(new RevisioDAOImpl());
         view = new Vista();
         ModelComponentsVisuals modelComponentsVisuals = new ModelComponentsVisuals();
         viewController = new ViewController(view, modelComponentsVisuals);
@@ -1,13 +1,14 @@
 package org.example.controller;
 
 import org.example.model.entities.Propietari;
+import org.example.model.daos.AsyncDAO;
+import org.example.model.daos.DAO;
 import org.example.model.exceptions.DAOException;
-import org.example.model.impls.PropietariDAOImpl;
+import org.example.model.validacio.Validadors;
 import org.example.view.Vista;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.beans.PropertyChangeSupport;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador per a la gestió de propietaris.
@@ -21,7 +22,7 @@ import java.util.List;
  */
 
 public class PropietariController {
-    private final PropietariDAOImpl propietariDAO;
+    private final AsyncDAO<Propietari> propietariAsync;
     private final Vista view;
     private final PropertyChangeSupport propertyChangeSupport;
     private final ViewController viewController;
@@ -32,13 +33,13 @@ public class PropietariController {
      * Inicialitza les dependències necessàries, configura els escoltadors d'esdeveniments
      * i inicialitza la vista.
      *
-     * @param propietariDAO Implementació del DAO per a propietaris
+     * @param propietariDAO DAO per a propietaris
      * @param view Vista associada a aquest controlador
      * @param viewController Controlador de la vista principal
      */
 
-    public PropietariController(PropietariDAOImpl propietariDAO, Vista view, ViewController viewController) {
-        this.propietariDAO = propietariDAO;
+    public PropietariController(DAO<Propietari> propietariDAO, Vista view, ViewController viewController) {
+        this.propietariAsync = new AsyncDAO<>(propietariDAO);
         this.view = view;
         this.viewController = viewController;
         propertyChangeSupport = new PropertyChangeSupport(this);
@@ -56,13 +57,23 @@ public class PropietariController {
      */
 
     private void initView() {
-        try {
-            List<Propietari> propietaris = propietariDAO.getAll();
-            updatePropietariTable(propietaris);
-            updatePropietariComboBox(propietaris);
-        } catch (DAOException e) {
-            setExcepcio(new DAOException(e.getTipo()));
-        }
+        viewController.getModelTaulaPropietaris().setGestorErrors(e -> setExcepcio(new DAOException(EDT.causa(e).getTipo())));
+        viewController.getModelTaulaPropietaris().setFont(propietariAsync);
+        viewController.getCercaPropietaris().setGestorErrors(e -> setExcepcio(new DAOException(EDT.causa(e).getTipo())));
+        viewController.getCercaPropietaris().setFont(propietariAsync);
+        recarregar();
+    }
+
+    /**
+     * Torna a carregar totes les propietaris des de la base de dades.
+     *
+     * Només es fa en iniciar la vista i quan l'usuari ho demana explícitament (tecla F5);
+     * les altes, modificacions i baixes actualitzen només la fila afectada.
+     */
+
+    private void recarregar() {
+        viewController.getModelTaulaPropietaris().recarregar();
+        viewController.getCercaPropietaris().invalidar();
     }
 
     /**
@@ -83,6 +94,8 @@ public class PropietariController {
                 mostrarDadesPropietari();
             }
         });
+
+        viewController.addRefrescarListener(this::recarregar);
     }
 
     /**
@@ -119,22 +132,7 @@ public class PropietariController {
      */
 
     private boolean validarPropietari(Propietari propietari) throws DAOException {
-        String regexNomCognoms = "^[A-ZÀ-ÚÑÇ][a-zà-úñç]*(\\s+[A-ZÀ-ÚÑÇ][a-zà-úñç]*)*$";
-        String regexTelefon = "^[0-9]{9}$";
-        String regexEmail = "^[A-Za-z0-9+_.-]+@(.+)$";
-
-        if (propietari.getNom() == null || propietari.getNom().trim().isEmpty() || !propietari.getNom().matches(regexNomCognoms)) {
-            throw new DAOException(11);
-        }
-        if (propietari.getCognoms() == null || propietari.getCognoms().trim().isEmpty() || !propietari.getCognoms().matches(regexNomCognoms)) {
-            throw new DAOException(12);
-        }
-        if (propietari.getTelefon() == null || propietari.getTelefon().trim().isEmpty() || !propietari.getTelefon().matches(regexTelefon)) {
-            throw new DAOException(13);
-        }
-        if (propietari.getEmail() == null || propietari.getEmail().trim().isEmpty() || !propietari.getEmail().matches(regexEmail)) {
-            throw new DAOException(14);
-        }
+        Validadors.PROPIETARI.validar(propietari);
         return true;
     }
 
@@ -147,13 +145,14 @@ public class PropietariController {
             Propietari nouPropietari = getPropietariDadesVista();
             if (nouPropietari == null || !validarPropietari(nouPropietari)) return;
 
-            propietariDAO.save(nouPropietari);
-            updatePropietariTable(propietariDAO.getAll());
-            updatePropietariComboBox(propietariDAO.getAll());
+            executar(propietariAsync.saveAsync(nouPropietari), () -> {
+                viewController.getModelTaulaPropietaris().afegir(nouPropietari);
+                viewController.getCercaPropietaris().invalidar();
 
-            JOptionPane.showMessageDialog(view, "Propietari afegit correctament", "Afegir propietari", JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(view, "Propietari afegit correctament", "Afegir propietari", JOptionPane.INFORMATION_MESSAGE);
 
-            llimpiarDadesPropietari();
+                llimpiarDadesPropietari();
+            });
 
         } catch (DAOException e) {
             setExcepcio(new DAOException(e.getTipo()));
@@ -168,24 +167,28 @@ public class PropietariController {
         try {
             int fila = view.getTaulaPropietaris().getSelectedRow();
             if (fila != -1) {
-                DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaPropietaris().getModel();
-                Propietari propietari = (Propietari) tableModel.getValueAt(fila, 4);
+                Propietari propietari = viewController.getModelTaulaPropietaris().getEntitat(fila);
+                if (propietari == null) return;
 
                 Propietari propietariModificat = getPropietariDadesVista();
                 if (propietariModificat == null || !validarPropietari(propietariModificat)) return;
 
-                propietari.setNom(propietariModificat.getNom());
-                propietari.setCognoms(propietariModificat.getCognoms());
-                propietari.setTelefon(propietariModificat.getTelefon());
-                propietari.setEmail(propietariModificat.getEmail());
+                // Es modifica una còpia perquè, si l'actualització falla, la taula continuï mostrant les dades guardades.
 
-                propietariDAO.update(propietari);
-                updatePropietariTable(propietariDAO.getAll());
-                updatePropietariComboBox(propietariDAO.getAll());
+                Propietari copia = propietari.copia();
+                copia.setNom(propietariModificat.getNom());
+                copia.setCognoms(propietariModificat.getCognoms());
+                copia.setTelefon(propietariModificat.getTelefon());
+                copia.setEmail(propietariModificat.getEmail());
 
-                JOptionPane.showMessageDialog(view, "Propietari modificat correctament", "Modificar propietari", JOptionPane.INFORMATION_MESSAGE);
+                executar(propietariAsync.updateAsync(copia), () -> {
+                    viewController.getModelTaulaPropietaris().actualitzar(copia);
+                    viewController.getCercaPropietaris().actualitzar(copia);
 
-                llimpiarDadesPropietari();
+                    JOptionPane.showMessageDialog(view, "Propietari modificat correctament", "Modificar propietari", JOptionPane.INFORMATION_MESSAGE);
+
+                    llimpiarDadesPropietari();
+                });
             }
         } catch (DAOException e) {
             setExcepcio(new DAOException(e.getTipo()));
@@ -197,45 +200,30 @@ public class PropietariController {
      */
 
     private void eliminarPropietari() {
-        try {
-            int fila = view.getTaulaPropietaris().getSelectedRow();
-            if (fila != -1) {
-                DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaPropietaris().getModel();
-                Propietari propietari = (Propietari) tableModel.getValueAt(fila, 4);
-                propietariDAO.delete(propietari.getId());
+        int fila = view.getTaulaPropietaris().getSelectedRow();
+        if (fila != -1) {
+            Propietari propietari = viewController.getModelTaulaPropietaris().getEntitat(fila);
+            if (propietari == null) return;
 
-                updatePropietariTable(propietariDAO.getAll());
-                updatePropietariComboBox(propietariDAO.getAll());
+            executar(propietariAsync.deleteAsync(propietari.getId()), () -> {
+                viewController.getModelTaulaPropietaris().eliminar(propietari);
+                viewController.getCercaPropietaris().eliminar(propietari);
 
                 JOptionPane.showMessageDialog(view, "Propietari eliminat correctament", "Eliminar propietari", JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (DAOException e) {
-            setExcepcio(new DAOException(e.getTipo()));
-        }
-    }
-
-    /**
-     * Actualitza la taula de propietaris amb les dades actuals.
-     *
-     * @param propietaris Llista de propietaris per mostrar a la taula
-     */
-
-    public void updatePropietariTable(List<Propietari> propietaris) {
-        DefaultTableModel model = (DefaultTableModel) view.getTaulaPropietaris().getModel();
-        model.setRowCount(0);
-        for (Propietari propietari : propietaris) {
-            model.addRow(new Object[]{propietari.getNom(), propietari.getCognoms(), propietari.getTelefon(), propietari.getEmail(), propietari});
+            });
         }
     }
 
     /**
-     * Actualitza la taula de propietaris amb les dades actuals.
+     * Executa una operació d'escriptura en segon pla i, si acaba bé, actualitza la vista
+     * al fil d'esdeveniments de Swing.
      *
-     * @param propietaris Llista de propietaris per mostrar a la taula
+     * @param operacio L'operació asíncrona d'escriptura.
+     * @param enAcabar Acció que actualitza la vista amb el canvi fet.
      */
 
-    public void updatePropietariComboBox(List<Propietari> propietaris) {
-        viewController.updatePropietariComboBox(propietaris);
+    private void executar(CompletableFuture<Void> operacio, Runnable enAcabar) {
+        EDT.quan(operacio, v -> enAcabar.run(), e -> setExcepcio(new DAOException(e.getTipo())));
     }
 
     /**
@@ -256,8 +244,8 @@ public class PropietariController {
     private void mostrarDadesPropietari() {
         int fila = view.getTaulaPropietaris().getSelectedRow();
         if (fila != -1) {
-            DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaPropietaris().getModel();
-            Propietari propietari = (Propietari) tableModel.getValueAt(fila, 4);
+            Propietari propietari = viewController.getModelTaulaPropietaris().getEntitat(fila);
+            if (propietari == null) return;
             view.getCampNomPropietari().setText(propietari.getNom());
             view.getCampCognomsPropietari().setText(propietari.getCognoms());
             view.getCampTelefonPropietari().setText(propietari.getTelefon());
@@ -2,15 +2,16 @@ package org.example.controller;
 
 import org.example.model.entities.Bici;
 import org.example.model.entities.Revisio;
+import org.example.model.daos.AsyncDAO;
+import org.example.model.daos.DAO;
 import org.example.model.exceptions.DAOException;
-import org.example.model.impls.RevisioDAOImpl;
+import org.example.model.validacio.Validadors;
 import org.example.view.Vista;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.beans.PropertyChangeSupport;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador per a la gestió de revisions de bicicletes.
@@ -24,7 +25,7 @@ import java.util.List;
  */
 
 public class RevisioController {
-    private final RevisioDAOImpl revisioDAO;
+    private final AsyncDAO<Revisio> revisioAsync;
     private final Vista view;
     private final PropertyChangeSupport propertyChangeSupport;
     private final ViewController viewController;
@@ -35,13 +36,13 @@ public class RevisioController {
      * Inicialitza les dependències necessàries, configura els escoltadors d'esdeveniments
      * i inicialitza la vista.
      *
-     * @param revisioDAO Implementació del DAO per a revisions
+     * @param revisioDAO DAO per a revisions
      * @param view Vista associada a aquest controlador
      * @param viewController Controlador de la vista principal
      */
 
-    public RevisioController(RevisioDAOImpl revisioDAO, Vista view, ViewController viewController) {
-        this.revisioDAO = revisioDAO;
+    public RevisioController(DAO<Revisio> revisioDAO, Vista view, ViewController viewController) {
+        this.revisioAsync = new AsyncDAO<>(revisioDAO);
         this.view = view;
         this.viewController = viewController;
         propertyChangeSupport = new PropertyChangeSupport(this);
@@ -59,12 +60,20 @@ public class RevisioController {
      */
 
     private void initView() {
-        try {
-            List<Revisio> revisions = revisioDAO.getAll();
-            updateRevisioTable(revisions);
-        } catch (DAOException e) {
-            setExcepcio(new DAOException(e.getTipo()));
-        }
+        viewController.getModelTaulaRevisions().setGestorErrors(e -> setExcepcio(new DAOException(EDT.causa(e).getTipo())));
+        viewController.getModelTaulaRevisions().setFont(revisioAsync);
+        recarregar();
+    }
+
+    /**
+     * Torna a carregar totes les revisions des de la base de dades.
+     *
+     * Només es fa en iniciar la vista i quan l'usuari ho demana explícitament (tecla F5);
+     * les altes, modificacions i baixes actualitzen només la fila afectada.
+     */
+
+    private void recarregar() {
+        viewController.getModelTaulaRevisions().recarregar();
     }
 
     /**
@@ -85,20 +94,23 @@ public class RevisioController {
                 mostrarDadesRevisio();
             }
         });
+
+        viewController.addRefrescarListener(this::recarregar);
     }
 
     /**
      * Recupera les dades d'una revisió des de la vista.
      *
      * @return Revisio amb les dades provinents dels camps de la vista o null si hi ha errors
+     * @throws DAOException si la data no té el format yyyy-MM-dd
      */
 
-    private Revisio getRevisioDadesVista() {
+    private Revisio getRevisioDadesVista() throws DAOException {
         try {
             String dataStr = view.getCampDataRevisio().getText().trim();
             String descripcio = view.getCampDescripcioRevisio().getText().trim();
             String preuText = view.getCampPreuRevisio().getText().trim();
-            Bici bici = (Bici) view.getComboBici().getSelectedItem();
+            Bici bici = viewController.getCercaBicis().getSeleccionat();
 
             if (dataStr.isEmpty() || descripcio.isEmpty() || preuText.isEmpty() || bici == null) {
                 JOptionPane.showMessageDialog(view, "Tots els camps són obligatoris", "Error", JOptionPane.ERROR_MESSAGE);
@@ -107,7 +119,9 @@ public class RevisioController {
 
             double preu = Double.parseDouble(preuText);
 
-            return new Revisio(dataStr, descripcio, preu, bici);
+            return new Revisio(LocalDate.parse(dataStr), descripcio, preu, bici);
+        } catch (DateTimeParseException e) {
+            throw new DAOException(31);
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(view, "Preu ha de ser un número", "Error de format", JOptionPane.ERROR_MESSAGE);
             return null;
@@ -123,20 +137,7 @@ public class RevisioController {
      */
 
     private boolean validarRevisio(Revisio revisio) throws DAOException {
-        String regex = "^[A-ZÀ-ÚÑÇ][a-zà-úñç]*(\\s+[A-ZÀ-ÚÑÇ][a-zà-úñç]*)*$";
-
-        try {
-            LocalDate.parse(revisio.getData());
-        } catch (DateTimeParseException e) {
-            throw new DAOException(31);
-        }
-
-        if (revisio.getDescripcio() == null || revisio.getDescripcio().trim().isEmpty() || !revisio.getDescripcio().matches(regex)) {
-            throw new DAOException(32);
-        }
-        if (revisio.getPreu() <= 0) {
-            throw new DAOException(33);
-        }
+        Validadors.REVISIO.validar(revisio);
         return true;
     }
 
@@ -149,12 +150,13 @@ public class RevisioController {
             Revisio novaRevisio = getRevisioDadesVista();
             if (novaRevisio == null || !validarRevisio(novaRevisio)) return;
 
-            revisioDAO.save(novaRevisio);
-            updateRevisioTable(revisioDAO.getAll());
+            executar(revisioAsync.saveAsync(novaRevisio), () -> {
+                viewController.getModelTaulaRevisions().afegir(novaRevisio);
 
-            JOptionPane.showMessageDialog(view, "Revisió afegida correctament", "Afegir revisió", JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(view, "Revisió afegida correctament", "Afegir revisió", JOptionPane.INFORMATION_MESSAGE);
 
-            llimpiarDadesRevisio();
+                llimpiarDadesRevisio();
+            });
 
         } catch (DAOException e) {
             setExcepcio(new DAOException(e.getTipo()));
@@ -171,23 +173,25 @@ public class RevisioController {
         try {
             int fila = view.getTaulaRevisions().getSelectedRow();
             if (fila != -1) {
-                DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaRevisions().getModel();
-                Revisio revisio = (Revisio) tableModel.getValueAt(fila, 3);
+                Revisio revisio = viewController.getModelTaulaRevisions().getEntitat(fila);
+                if (revisio == null) return;
 
                 Revisio revisioModificada = getRevisioDadesVista();
                 if (revisioModificada == null || !validarRevisio(revisioModificada)) return;
 
-                revisio.setData(revisioModificada.getData());
-                revisio.setDescripcio(revisioModificada.getDescripcio());
-                revisio.setPreu(revisioModificada.getPreu());
-                revisio.setBici(revisioModificada.getBici());
+                Revisio copia = revisio.copia();
+                copia.setData(revisioModificada.getData());
+                copia.setDescripcio(revisioModificada.getDescripcio());
+                copia.setPreu(revisioModificada.getPreu());
+                copia.setBici(revisioModificada.getBici());
 
-                revisioDAO.update(revisio);
-                updateRevisioTable(revisioDAO.getAll());
+                executar(revisioAsync.updateAsync(copia), () -> {
+                    viewController.getModelTaulaRevisions().actualitzar(copia);
 
-                JOptionPane.showMessageDialog(view, "Revisió modificada correctament", "Modificar revisió", JOptionPane.INFORMATION_MESSAGE);
+                    JOptionPane.showMessageDialog(view, "Revisió modificada correctament", "Modificar revisió", JOptionPane.INFORMATION_MESSAGE);
 
-                llimpiarDadesRevisio();
+                    llimpiarDadesRevisio();
+                });
             }
         } catch (DAOException e) {
             setExcepcio(new DAOException(e.getTipo()));
@@ -201,34 +205,31 @@ public class RevisioController {
      */
 
     private void eliminarRevisio() {
-        try {
-            int fila = view.getTaulaRevisions().getSelectedRow();
-            if (fila != -1) {
-                DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaRevisions().getModel();
-                Revisio revisio = (Revisio) tableModel.getValueAt(fila, 3);
-                revisioDAO.delete(revisio.getId());
-                updateRevisioTable(revisioDAO.getAll());
+        int fila = view.getTaulaRevisions().getSelectedRow();
+        if (fila != -1) {
+            Revisio revisio = viewController.getModelTaulaRevisions().getEntitat(fila);
+            if (revisio == null) return;
+
+            executar(revisioAsync.deleteAsync(revisio.getId()), () -> {
+                viewController.getModelTaulaRevisions().eliminar(revisio);
+
                 llimpiarDadesRevisio();
 
                 JOptionPane.showMessageDialog(view, "Revisió eliminada correctament", "Eliminar revisió", JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (DAOException e) {
-            setExcepcio(new DAOException(e.getTipo()));
+            });
         }
     }
 
     /**
-     * Actualitza la taula de revisions amb les dades actuals.
+     * Executa una operació d'escriptura en segon pla i, si acaba bé, actualitza la vista
+     * al fil d'esdeveniments de Swing.
      *
-     * @param revisions Llista de revisions per mostrar a la taula
+     * @param operacio L'operació asíncrona d'escriptura.
+     * @param enAcabar Acció que actualitza la vista amb el canvi fet.
      */
 
-    public void updateRevisioTable(List<Revisio> revisions) {
-        DefaultTableModel model = (DefaultTableModel) view.getTaulaRevisions().getModel();
-        model.setRowCount(0);
-        for (Revisio revisio : revisions) {
-            model.addRow(new Object[]{revisio.getData(), revisio.getDescripcio(), revisio.getPreu(), revisio});
-        }
+    private void executar(CompletableFuture<Void> operacio, Runnable enAcabar) {
+        EDT.quan(operacio, v -> enAcabar.run(), e -> setExcepcio(new DAOException(e.getTipo())));
     }
 
     /**
@@ -239,7 +240,7 @@ public class RevisioController {
         view.getCampDataRevisio().setText("");
         view.getCampDescripcioRevisio().setText("");
         view.getCampPreuRevisio().setText("");
-        view.getComboBici().setSelectedIndex(0);
+        viewController.getCercaBicis().setSeleccionat(null);
     }
 
     /**
@@ -249,12 +250,12 @@ public class RevisioController {
     private void mostrarDadesRevisio() {
         int fila = view.getTaulaRevisions().getSelectedRow();
         if (fila != -1) {
-            DefaultTableModel tableModel = (DefaultTableModel) view.getTaulaRevisions().getModel();
-            Revisio revisio = (Revisio) tableModel.getValueAt(fila, 3);
-            view.getCampDataRevisio().setText(revisio.getData());
+            Revisio revisio = viewController.getModelTaulaRevisions().getEntitat(fila);
+            if (revisio == null) return;
+            view.getCampDataRevisio().setText(revisio.getData().toString());
             view.getCampDescripcioRevisio().setText(revisio.getDescripcio());
             view.getCampPreuRevisio().setText(String.valueOf(revisio.getPreu()));
-            view.getComboBici().setSelectedItem(revisio.getBici());
+            viewController.getCercaBicis().setSeleccionat(revisio.getBici());
         }
     }
 }
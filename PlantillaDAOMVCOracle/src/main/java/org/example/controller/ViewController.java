@@ -2,14 +2,30 @@ package org.example.controller;
 
 import org.example.model.entities.Bici;
 import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import org.example.view.CercaCombo;
 import org.example.view.ModelComponentsVisuals;
+import org.example.view.ModelTaulaPaginada;
 import org.example.view.Vista;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionListener;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
-import javax.swing.DefaultComboBoxModel;
 
 /**
  * Controlador que gestiona les interaccions entre la vista i els models de components.
@@ -24,6 +40,17 @@ import javax.swing.DefaultComboBoxModel;
 public class ViewController {
     private final Vista view;
     private final ModelComponentsVisuals modelComponentsVisuals;
+    private final List<Runnable> accionsRefrescar = new ArrayList<>();
+    private CercaCombo<Propietari> cercaPropietaris;
+    private CercaCombo<Bici> cercaBicis;
+
+    // Mil·lisegons sense escriure abans d'aplicar el filtre d'una taula o de buscar en un comboBox.
+
+    private static final int RETARD_FILTRE_MS = 300;
+
+    // Nombre màxim d'entitats que mostren els comboBox de propietaris i bicicletes.
+
+    private static final int MAX_RESULTATS_CERCA = 20;
 
     /**
      * Constructor que associa la vista i els models de components visuals.
@@ -43,30 +70,100 @@ public class ViewController {
      */
 
     private void lligaVistaModel() {
-        configurarTabla(view.getTaulaBicis(), modelComponentsVisuals.getModelTaulaBicis(), 7);
-        configurarTabla(view.getTaulaPropietaris(), modelComponentsVisuals.getModelTaulaPropietaris(), 4);
-        configurarTabla(view.getTaulaRevisions(), modelComponentsVisuals.getModelTaulaRevisions(), 4);
+        view.getTaulaBicis().setModel(modelComponentsVisuals.getModelTaulaBicis());
+        view.getTaulaPropietaris().setModel(modelComponentsVisuals.getModelTaulaPropietaris());
+        view.getTaulaRevisions().setModel(modelComponentsVisuals.getModelTaulaRevisions());
+
+        configurarOrdreIFiltre(view.getTaulaBicis(), view.getFiltreBicis(), modelComponentsVisuals.getModelTaulaBicis());
+        configurarOrdreIFiltre(view.getTaulaPropietaris(), view.getFiltrePropietaris(), modelComponentsVisuals.getModelTaulaPropietaris());
+        configurarOrdreIFiltre(view.getTaulaRevisions(), view.getFiltreRevisions(), modelComponentsVisuals.getModelTaulaRevisions());
+
+        // F5 torna a carregar totes les dades des de la base de dades; la resta de canvis només actualitzen la fila afectada.
+
+        view.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "refrescar");
+        view.getRootPane().getActionMap().put("refrescar", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                accionsRefrescar.forEach(Runnable::run);
+            }
+        });
 
         view.getComboTipus().setModel(modelComponentsVisuals.getComboBoxModelTipusBici());
         view.getComboCarboni().setModel(modelComponentsVisuals.getComboBoxModelCarboni());
         view.getComboPropietari().setModel(modelComponentsVisuals.getComboBoxModelPropietari());
         view.getComboBici().setModel(modelComponentsVisuals.getComboBoxModelBici());
+
+        // Els comboBox de propietaris i bicicletes no es carreguen sencers: busquen mentre l'usuari escriu.
+
+        cercaPropietaris = new CercaCombo<>(view.getComboPropietari(), Propietari.class,
+                propietari -> List.of(propietari.getNom(), propietari.getCognoms()), "nom", MAX_RESULTATS_CERCA, RETARD_FILTRE_MS);
+        cercaBicis = new CercaCombo<>(view.getComboBici(), Bici.class,
+                bici -> List.of(bici.getMarca(), bici.getModelBici()), "marca", MAX_RESULTATS_CERCA, RETARD_FILTRE_MS);
     }
 
     /**
-     * Configura una taula amb un model de dades i amaga una columna específica.
+     * Fa que un clic a la capçalera d'una taula l'ordeni per aquella columna i que el camp de filtre
+     * la filtri mentre s'escriu.
      *
-     * @param tabla La taula a configurar
-     * @param modelo El model de dades per a la taula
-     * @param columnaOculta Índex de la columna a amagar
+     * Tant l'ordre com el filtre es passen al model, que els envia a la base de dades; la taula
+     * no fa servir cap TableRowSorter. El filtre espera que l'usuari deixi d'escriure una estona
+     * abans de consultar, per no llançar una consulta per cada tecla.
+     *
+     * @param taula La taula
+     * @param filtre El camp de text del filtre
+     * @param model El model paginat de la taula
      */
 
-    private void configurarTabla(JTable tabla, DefaultTableModel modelo, int columnaOculta) {
-        tabla.setModel(modelo);
-        var columnModel = tabla.getColumnModel().getColumn(columnaOculta);
-        columnModel.setMinWidth(0);
-        columnModel.setMaxWidth(0);
-        columnModel.setPreferredWidth(0);
+    private void configurarOrdreIFiltre(JTable taula, JTextField filtre, ModelTaulaPaginada<?> model) {
+        JTableHeader capcalera = taula.getTableHeader();
+        capcalera.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int columna = capcalera.columnAtPoint(e.getPoint());
+                if (columna == -1) return;
+                taula.clearSelection();
+                model.ordenarPer(taula.convertColumnIndexToModel(columna));
+                marcarOrdre(taula, model);
+            }
+        });
+
+        Timer espera = new Timer(RETARD_FILTRE_MS, e -> {
+            taula.clearSelection();
+            model.filtrar(filtre.getText());
+        });
+        espera.setRepeats(false);
+        filtre.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                espera.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                espera.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                espera.restart();
+            }
+        });
+    }
+
+    // Afegeix una fletxa al títol de la columna per la qual s'ordena la taula.
+
+    private void marcarOrdre(JTable taula, ModelTaulaPaginada<?> model) {
+        TableColumnModel columnes = taula.getColumnModel();
+        for (int i = 0; i < columnes.getColumnCount(); i++) {
+            TableColumn columna = columnes.getColumn(i);
+            int index = columna.getModelIndex();
+            String titol = model.getColumnName(index);
+            if (index == model.getColumnaOrdre()) {
+                titol += model.isAscendent() ? " \u25B2" : " \u25BC";
+            }
+            columna.setHeaderValue(titol);
+        }
+        taula.getTableHeader().repaint();
     }
 
     /**
@@ -142,31 +239,62 @@ public class ViewController {
     }
 
     /**
-     * Actualitza el comboBox de propietaris amb una llista actualitzada de propietaris.
+     * Afegeix una acció a executar quan l'usuari demana refrescar totes les dades (tecla F5).
      *
-     * @param propietaris Llista de propietaris a mostrar en el comboBox
+     * @param accio L'acció de recàrrega
      */
 
-    public void updatePropietariComboBox(List<Propietari> propietaris) {
-        DefaultComboBoxModel<Propietari> comboBoxModel = (DefaultComboBoxModel<Propietari>) view.getComboPropietari().getModel();
-        comboBoxModel.removeAllElements();
-        for (Propietari propietari : propietaris) {
-            comboBoxModel.addElement(propietari);
-        }
+    public void addRefrescarListener(Runnable accio) {
+        accionsRefrescar.add(accio);
     }
 
     /**
-     * Actualitza el comboBox de bicicletes amb una llista actualitzada de bicicletes.
+     * Retorna el model paginat de la taula de bicicletes.
      *
-     * @param bicis Llista de bicicletes a mostrar en el comboBox
+     * @return El model de la taula
      */
 
-    public void updateBiciComboBox(List<Bici> bicis) {
-        DefaultComboBoxModel<Bici> comboBoxModel = (DefaultComboBoxModel<Bici>) view.getComboBici().getModel();
-        comboBoxModel.removeAllElements();
-        for (Bici bici : bicis) {
-            comboBoxModel.addElement(bici);
-        }
+    public ModelTaulaPaginada<Bici> getModelTaulaBicis() {
+        return modelComponentsVisuals.getModelTaulaBicis();
+    }
+
+    /**
+     * Retorna el model paginat de la taula de propietaris.
+     *
+     * @return El model de la taula
+     */
+
+    public ModelTaulaPaginada<Propietari> getModelTaulaPropietaris() {
+        return modelComponentsVisuals.getModelTaulaPropietaris();
     }
 
+    /**
+     * Retorna el cercador del comboBox de propietaris.
+     *
+     * @return El cercador
+     */
+
+    public CercaCombo<Propietari> getCercaPropietaris() {
+        return cercaPropietaris;
+    }
+
+    /**
+     * Retorna el cercador del comboBox de bicicletes.
+     *
+     * @return El cercador
+     */
+
+    public CercaCombo<Bici> getCercaBicis() {
+        return cercaBicis;
+    }
+
+    /**
+     * Retorna el model paginat de la taula de revisions.
+     *
+     * @return El model de la taula
+     */
+
+    public ModelTaulaPaginada<Revisio> getModelTaulaRevisions() {
+        return modelComponentsVisuals.getModelTaulaRevisions();
+    }
 }
@@ -0,0 +1,283 @@
+package org.example.model.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Memòria cau d'entitats indexades per la seva clau primària, situada davant d'un DAO.
+ *
+ * La mida és fitada: quan s'omple, s'expulsa l'entrada menys utilitzada recentment (LRU) o
+ * la menys utilitzada en total (LFU), segons la política configurada. Les entrades també
+ * caduquen passat un temps de vida (TTL). Una memòria cau desactivada no guarda res i
+ * tots els accessos compten com a errades.
+ *
+ * Les entitats guardades es comparteixen entre tots els fils: qui les obté no les ha de modificar,
+ * sinó treballar sobre una còpia (copia()) i guardar-la amb el DAO.
+ *
+ * Cada put, invalidate o clear incrementa una generació. Un DAO que omple la memòria cau després d'una lectura
+ * (read-through) llegeix la generació abans de la consulta i guarda el resultat amb {@link #putLlegit}, que no fa res
+ * si mentrestant s'ha escrit o invalidat alguna entrada: així una lectura anterior a una escriptura no pot
+ * substituir el valor que l'escriptura acaba de guardar.
+ *
+ * @param <T> El tipus d'entitat guardada.
+ */
+
+public class EntityCache<T> {
+
+    /**
+     * Polítiques d'expulsió disponibles.
+     */
+
+    public enum Politica {
+        LRU, LFU
+    }
+
+    private final String nom;
+    private final boolean activa;
+    private final int midaMaxima;
+    private final long ttlMs;
+    private final Politica politica;
+
+    private final Map<Long, Entrada<T>> entrades = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Només per a LFU: claus agrupades per freqüència d'ús, en ordre d'arribada dins de cada grup.
+
+    private final Map<Integer, LinkedHashSet<Long>> perFrequencia = new HashMap<>();
+    private int frequenciaMinima;
+
+    private long generacio;
+    private long encerts;
+    private long errades;
+    private long expulsions;
+
+    /**
+     * Crea una memòria cau.
+     *
+     * @param nom Nom descriptiu, utilitzat a les estadístiques.
+     * @param activa false per crear una memòria cau que no guarda res.
+     * @param midaMaxima Nombre màxim d'entitats guardades.
+     * @param ttlMs Temps de vida de cada entrada en mil·lisegons, o 0 perquè no caduquin.
+     * @param politica Política d'expulsió quan la memòria cau és plena.
+     */
+
+    public EntityCache(String nom, boolean activa, int midaMaxima, long ttlMs, Politica politica) {
+        if (activa && midaMaxima <= 0) {
+            throw new IllegalArgumentException("La mida màxima ha de ser positiva");
+        }
+        this.nom = nom;
+        this.activa = activa;
+        this.midaMaxima = midaMaxima;
+        this.ttlMs = ttlMs;
+        this.politica = politica;
+    }
+
+    /**
+     * Obté una entitat guardada.
+     *
+     * @param id La clau primària de l'entitat.
+     * @return L'entitat, o null si no hi és o ha caducat.
+     */
+
+    public synchronized T get(Long id) {
+        if (!activa || id == null) {
+            errades++;
+            return null;
+        }
+        Entrada<T> entrada = entrades.get(id);
+        if (entrada == null) {
+            errades++;
+            return null;
+        }
+        if (caducada(entrada)) {
+            eliminar(id);
+            expulsions++;
+            errades++;
+            return null;
+        }
+        if (politica == Politica.LFU) {
+            incrementarFrequencia(id, entrada);
+        }
+        encerts++;
+        return entrada.valor;
+    }
+
+    /**
+     * Guarda o substitueix una entitat.
+     *
+     * @param id La clau primària de l'entitat.
+     * @param valor L'entitat.
+     */
+
+    public synchronized void put(Long id, T valor) {
+        generacio++;
+        guardar(id, valor);
+    }
+
+    /**
+     * Retorna la generació actual, que s'ha de llegir abans de consultar la base de dades per a {@link #putLlegit}.
+     *
+     * @return La generació.
+     */
+
+    public synchronized long getGeneracio() {
+        return generacio;
+    }
+
+    /**
+     * Guarda una entitat llegida de la base de dades, només si des de la generació indicada no s'ha fet
+     * cap put, invalidate ni clear.
+     *
+     * @param id La clau primària de l'entitat.
+     * @param valor L'entitat llegida.
+     * @param generacio La generació obtinguda abans de la consulta.
+     */
+
+    public synchronized void putLlegit(Long id, T valor, long generacio) {
+        if (this.generacio == generacio) {
+            guardar(id, valor);
+        }
+    }
+
+    private void guardar(Long id, T valor) {
+        if (!activa || id == null || valor == null) return;
+
+        Entrada<T> existent = entrades.get(id);
+        if (existent != null) {
+            existent.valor = valor;
+            existent.creada = System.currentTimeMillis();
+            return;
+        }
+        if (entrades.size() >= midaMaxima) {
+            expulsar();
+        }
+        Entrada<T> entrada = new Entrada<>(valor);
+        entrades.put(id, entrada);
+        if (politica == Politica.LFU) {
+            perFrequencia.computeIfAbsent(1, f -> new LinkedHashSet<>()).add(id);
+            frequenciaMinima = 1;
+        }
+    }
+
+    /**
+     * Elimina una entitat, normalment perquè s'ha modificat o eliminat a la base de dades.
+     *
+     * @param id La clau primària de l'entitat.
+     */
+
+    public synchronized void invalidate(Long id) {
+        generacio++;
+        if (id != null) {
+            eliminar(id);
+        }
+    }
+
+    /**
+     * Elimina totes les entitats guardades.
+     */
+
+    public synchronized void clear() {
+        generacio++;
+        entrades.clear();
+        perFrequencia.clear();
+        frequenciaMinima = 0;
+    }
+
+    // Estadístiques
+
+    public boolean isActiva() {
+        return activa;
+    }
+
+    public synchronized int getMida() {
+        return entrades.size();
+    }
+
+    public synchronized long getEncerts() {
+        return encerts;
+    }
+
+    public synchronized long getErrades() {
+        return errades;
+    }
+
+    public synchronized long getExpulsions() {
+        return expulsions;
+    }
+
+    /**
+     * Retorna un resum de l'estat i les estadístiques de la memòria cau.
+     *
+     * @return Una cadena amb el nom, la mida, els encerts, les errades i les expulsions.
+     */
+
+    @Override
+    public synchronized String toString() {
+        return nom + " [" + (activa ? politica : "desactivada") + "] mida=" + entrades.size() + "/" + midaMaxima
+                + " encerts=" + encerts + " errades=" + errades + " expulsions=" + expulsions;
+    }
+
+    private boolean caducada(Entrada<T> entrada) {
+        return ttlMs > 0 && System.currentTimeMillis() - entrada.creada > ttlMs;
+    }
+
+    // Expulsa primer les entrades caducades i, si no n'hi ha cap, la que indiqui la política.
+
+    private void expulsar() {
+        Iterator<Map.Entry<Long, Entrada<T>>> it = entrades.entrySet().iterator();
+        Long victima = null;
+        while (it.hasNext()) {
+            Map.Entry<Long, Entrada<T>> e = it.next();
+            if (caducada(e.getValue())) {
+                victima = e.getKey();
+                break;
+            }
+        }
+        if (victima == null) {
+            victima = politica == Politica.LFU
+                    ? perFrequencia.get(frequenciaMinima).iterator().next()
+                    : entrades.keySet().iterator().next();
+        }
+        eliminar(victima);
+        expulsions++;
+    }
+
+    private void eliminar(Long id) {
+        Entrada<T> entrada = entrades.remove(id);
+        if (entrada != null && politica == Politica.LFU) {
+            LinkedHashSet<Long> grup = perFrequencia.get(entrada.frequencia);
+            grup.remove(id);
+            if (grup.isEmpty()) {
+                perFrequencia.remove(entrada.frequencia);
+                if (frequenciaMinima == entrada.frequencia) {
+                    frequenciaMinima = perFrequencia.keySet().stream().min(Integer::compare).orElse(0);
+                }
+            }
+        }
+    }
+
+    private void incrementarFrequencia(Long id, Entrada<T> entrada) {
+        LinkedHashSet<Long> grup = perFrequencia.get(entrada.frequencia);
+        grup.remove(id);
+        if (grup.isEmpty()) {
+            perFrequencia.remove(entrada.frequencia);
+            if (frequenciaMinima == entrada.frequencia) {
+                frequenciaMinima = entrada.frequencia + 1;
+            }
+        }
+        entrada.frequencia++;
+        perFrequencia.computeIfAbsent(entrada.frequencia, f -> new LinkedHashSet<>()).add(id);
+    }
+
+    private static class Entrada<T> {
+        private T valor;
+        private long creada = System.currentTimeMillis();
+        private int frequencia = 1;
+
+        Entrada(T valor) {
+            this.valor = valor;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.model.cache;
+
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import org.example.utils.DBUtil;
+
+/**
+ * Memòries cau compartides pels DAOs, una per tipus d'entitat.
+ *
+ * Cada memòria cau es configura a db.properties amb les propietats
+ * cache.&lt;entitat&gt;.enabled, .maxSize, .ttlMs i .policy (LRU o LFU),
+ * on &lt;entitat&gt; és propietari, bici o revisio. Una propietat de sistema amb el mateix nom
+ * té prioritat sobre db.properties (les eines la fan servir per desactivar les memòries cau).
+ */
+
+public final class EntityCaches {
+
+    public static final EntityCache<Propietari> PROPIETARIS = crear("propietari");
+    public static final EntityCache<Bici> BICIS = crear("bici");
+    public static final EntityCache<Revisio> REVISIONS = crear("revisio");
+
+    private EntityCaches() {
+    }
+
+    private static <T> EntityCache<T> crear(String entitat) {
+        String prefix = "cache." + entitat + ".";
+        return new EntityCache<>(
+                entitat,
+                Boolean.parseBoolean(System.getProperty(prefix + "enabled", DBUtil.getProperty(prefix + "enabled", "false"))),
+                DBUtil.getIntProperty(prefix + "maxSize", 1000),
+                Long.parseLong(DBUtil.getProperty(prefix + "ttlMs", "60000")),
+                EntityCache.Politica.valueOf(DBUtil.getProperty(prefix + "policy", "LRU").trim().toUpperCase())
+        );
+    }
+
+    /**
+     * Retorna un resum de les estadístiques de totes les memòries cau.
+     *
+     * @return Una línia per memòria cau.
+     */
+
+    public static String estadistiques() {
+        return PROPIETARIS + System.lineSeparator() + BICIS + System.lineSeparator() + REVISIONS;
+    }
+}
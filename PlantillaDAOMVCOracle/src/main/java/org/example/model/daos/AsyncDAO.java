@@ -0,0 +1,237 @@
+package org.example.model.daos;
+
+import org.example.model.exceptions.DAOException;
+import org.example.utils.DAOExecutors;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Façana asíncrona d'un DAO.
+ *
+ * Cada operació s'executa a l'executor indicat i retorna un CompletableFuture, de manera que
+ * qui la crida (per exemple, el fil d'esdeveniments de Swing) no queda bloquejat esperant la base de dades.
+ * Si l'operació falla, el futur es completa excepcionalment amb una CompletionException
+ * que té com a causa la DAOException original.
+ *
+ * Les operacions s'executen en un altre fil, així que no veuen la {@link org.example.model.sessio.Sessio}
+ * oberta al fil que les crida.
+ *
+ * @param <T> El tipus d'entitat sobre la qual opera el DAO.
+ */
+
+public class AsyncDAO<T> {
+
+    private final DAO<T> dao;
+    private final Executor executor;
+
+    /**
+     * Crea la façana sobre l'executor compartit de {@link DAOExecutors}.
+     *
+     * @param dao El DAO a embolcallar.
+     */
+
+    public AsyncDAO(DAO<T> dao) {
+        this(dao, DAOExecutors.executor());
+    }
+
+    /**
+     * Crea la façana sobre un executor concret.
+     *
+     * Les crides al DAO emeten esdeveniments JFR (vegeu {@link DAOAmbEsdeveniments}).
+     *
+     * @param dao El DAO a embolcallar.
+     * @param executor L'executor on s'executen les operacions.
+     */
+
+    public AsyncDAO(DAO<T> dao, Executor executor) {
+        this.dao = DAOAmbEsdeveniments.embolcallar(dao);
+        this.executor = executor;
+    }
+
+    /**
+     * Retorna el DAO síncron embolcallat, per a les operacions que s'han de fer al fil actual.
+     *
+     * @return El DAO.
+     */
+
+    public DAO<T> getDAO() {
+        return dao;
+    }
+
+    /**
+     * Recupera de manera asíncrona una entitat per la seva clau primària.
+     *
+     * @param id La clau primària.
+     * @return El futur amb l'entitat, o amb null si no es troba.
+     */
+
+    public CompletableFuture<T> getAsync(Long id) {
+        return executar(() -> dao.get(id));
+    }
+
+    /**
+     * Recupera de manera asíncrona totes les entitats.
+     *
+     * @return El futur amb la llista d'entitats.
+     */
+
+    public CompletableFuture<List<T>> getAllAsync() {
+        return executar(dao::getAll);
+    }
+
+    /**
+     * Recupera de manera asíncrona una pàgina d'entitats.
+     *
+     * @param pagina La pàgina a recuperar.
+     * @return El futur amb les entitats de la pàgina.
+     */
+
+    public CompletableFuture<List<T>> getPageAsync(Pagina pagina) {
+        return executar(() -> dao.getPage(pagina));
+    }
+
+    /**
+     * Compta de manera asíncrona les entitats.
+     *
+     * @return El futur amb el nombre d'entitats.
+     */
+
+    public CompletableFuture<Long> countAsync() {
+        return executar(dao::count);
+    }
+
+    /**
+     * Compta de manera asíncrona les entitats que compleixen un filtre de text.
+     *
+     * @param filtre Text a buscar, o null per comptar-les totes.
+     * @return El futur amb el nombre d'entitats.
+     */
+
+    public CompletableFuture<Long> countAsync(String filtre) {
+        return executar(() -> dao.count(filtre));
+    }
+
+    /**
+     * Guarda de manera asíncrona una entitat nova.
+     *
+     * @param obj L'entitat a guardar.
+     * @return El futur que es completa quan l'entitat s'ha guardat.
+     */
+
+    public CompletableFuture<Void> saveAsync(T obj) {
+        return executar(() -> {
+            dao.save(obj);
+            return null;
+        });
+    }
+
+    /**
+     * Actualitza de manera asíncrona una entitat existent.
+     *
+     * @param obj L'entitat a actualitzar.
+     * @return El futur que es completa quan l'entitat s'ha actualitzat.
+     */
+
+    public CompletableFuture<Void> updateAsync(T obj) {
+        return executar(() -> {
+            dao.update(obj);
+            return null;
+        });
+    }
+
+    /**
+     * Elimina de manera asíncrona una entitat per la seva clau primària.
+     *
+     * @param id La clau primària.
+     * @return El futur que es completa quan l'entitat s'ha eliminat.
+     */
+
+    public CompletableFuture<Void> deleteAsync(Long id) {
+        return executar(() -> {
+            dao.delete(id);
+            return null;
+        });
+    }
+
+    /**
+     * Guarda de manera asíncrona diverses entitats noves en lots.
+     *
+     * @param objs Les entitats a guardar.
+     * @return El futur que es completa quan s'han guardat totes.
+     */
+
+    public CompletableFuture<Void> saveAllAsync(Collection<T> objs) {
+        return executar(() -> {
+            dao.saveAll(objs);
+            return null;
+        });
+    }
+
+    /**
+     * Actualitza de manera asíncrona diverses entitats en lots.
+     *
+     * @param objs Les entitats a actualitzar.
+     * @return El futur que es completa quan s'han actualitzat totes.
+     */
+
+    public CompletableFuture<Void> updateAllAsync(Collection<T> objs) {
+        return executar(() -> {
+            dao.updateAll(objs);
+            return null;
+        });
+    }
+
+    /**
+     * Elimina de manera asíncrona diverses entitats pels seus IDs en lots.
+     *
+     * @param ids Els IDs de les entitats a eliminar.
+     * @return El futur que es completa quan s'han eliminat totes.
+     */
+
+    public CompletableFuture<Void> deleteAllAsync(Collection<Long> ids) {
+        return executar(() -> {
+            dao.deleteAll(ids);
+            return null;
+        });
+    }
+
+    /**
+     * Executa una operació del DAO a l'executor.
+     *
+     * Si l'executor rebutja la feina (la cua és plena), el futur retornat ja està completat
+     * excepcionalment en lloc de llançar l'excepció a qui crida.
+     *
+     * @param operacio L'operació a executar.
+     * @param <R> El tipus del resultat.
+     * @return El futur amb el resultat de l'operació.
+     */
+
+    protected <R> CompletableFuture<R> executar(Operacio<R> operacio) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return operacio.executar();
+                } catch (DAOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new CompletionException(new DAOException(1, "Massa peticions pendents a la base de dades")));
+        }
+    }
+
+    /**
+     * Operació d'un DAO que pot llançar una DAOException.
+     *
+     * @param <R> El tipus del resultat.
+     */
+
+    @FunctionalInterface
+    protected interface Operacio<R> {
+        R executar() throws DAOException;
+    }
+}
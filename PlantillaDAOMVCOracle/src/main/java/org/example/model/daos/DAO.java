@@ -1,7 +1,10 @@
 package org.example.model.daos;
 
 import org.example.model.exceptions.DAOException;
+import org.example.utils.DBUtil;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interfície genèrica per a l'accés a dades (DAO).
@@ -17,6 +20,9 @@ public interface DAO <T>{
     /**
      * Recupera una entitat per la seva clau primària.
      *
+     * Si el DAO té memòria cau, l'entitat retornada pot ser la instància compartida de la memòria cau:
+     * no s'ha de modificar directament, sinó a través d'una còpia (copia()) que després es guarda amb update().
+     *
      * @param id La clau primària de l'entitat a recuperar.
      * @return L'entitat trobada o null si no es troba cap.
      * @throws DAOException Si ocorre algun error durant l'operació.
@@ -33,6 +39,61 @@ public interface DAO <T>{
 
     List<T> getAll() throws DAOException;
 
+    /**
+     * Recupera una pàgina d'entitats, sense carregar la resta de la taula.
+     *
+     * @param pagina La pàgina a recuperar: mida, posició i ordre.
+     * @return Les entitats de la pàgina, com a màxim tantes com la mida de la pàgina.
+     * @throws DAOException Si la columna d'ordenació no és vàlida o ocorre algun error durant l'operació.
+     */
+
+    List<T> getPage(Pagina pagina) throws DAOException;
+
+    /**
+     * Compta les entitats d'un tipus específic.
+     *
+     * @return El nombre total d'entitats.
+     * @throws DAOException Si ocorre algun error durant l'operació.
+     */
+
+    long count() throws DAOException;
+
+    /**
+     * Compta les entitats que compleixen el filtre de text, amb el mateix criteri que {@link Pagina#filtradaPer(String)}.
+     *
+     * @param filtre Text a buscar, o null per comptar-les totes.
+     * @return El nombre d'entitats que compleixen el filtre.
+     * @throws DAOException Si ocorre algun error durant l'operació.
+     */
+
+    long count(String filtre) throws DAOException;
+
+    /**
+     * Recorre totes les entitats d'un tipus específic sense carregar-les totes en memòria.
+     *
+     * Les entitats es construeixen d'una en una a mesura que es consumeix el Stream, que manté
+     * oberta una connexió fins que s'esgota o es tanca. S'ha d'utilitzar dins d'un try-with-resources.
+     * Els errors de base de dades durant el recorregut es llancen com a UncheckedDAOException.
+     *
+     * @param fetchSize Nombre de files que es porten de la base de dades en cada anada.
+     * @return Un Stream de les entitats, que s'ha de tancar.
+     * @throws DAOException Si no es pot executar la consulta.
+     */
+
+    Stream<T> stream(int fetchSize) throws DAOException;
+
+    /**
+     * Recorre totes les entitats amb la mida de lectura configurada a db.properties (db.fetchSize).
+     *
+     * @return Un Stream de les entitats, que s'ha de tancar.
+     * @throws DAOException Si no es pot executar la consulta.
+     * @see #stream(int)
+     */
+
+    default Stream<T> stream() throws DAOException {
+        return stream(DBUtil.getIntProperty("db.fetchSize", 500));
+    }
+
     /**
      * Guarda una nova entitat a la base de dades.
      *
@@ -59,4 +120,33 @@ public interface DAO <T>{
      */
 
     void delete(Long id) throws DAOException;
+
+    /**
+     * Guarda diverses entitats noves agrupant-les en lots, i assigna a cadascuna la clau generada.
+     *
+     * Cada lot (de mida db.batchSize) s'envia en una sola anada i es confirma en una transacció pròpia.
+     *
+     * @param objs Les entitats a guardar.
+     * @throws DAOException Si ocorre algun error durant l'operació; el lot que falla es desfà sencer.
+     */
+
+    void saveAll(Collection<T> objs) throws DAOException;
+
+    /**
+     * Actualitza diverses entitats existents agrupant-les en lots.
+     *
+     * @param objs Les entitats a actualitzar.
+     * @throws DAOException Si ocorre algun error durant l'operació; el lot que falla es desfà sencer.
+     */
+
+    void updateAll(Collection<T> objs) throws DAOException;
+
+    /**
+     * Elimina diverses entitats per les seves claus primàries agrupant-les en lots.
+     *
+     * @param ids Les claus primàries de les entitats a eliminar.
+     * @throws DAOException Si ocorre algun error durant l'operació; el lot que falla es desfà sencer.
+     */
+
+    void deleteAll(Collection<Long> ids) throws DAOException;
 }
\ No newline at end of file
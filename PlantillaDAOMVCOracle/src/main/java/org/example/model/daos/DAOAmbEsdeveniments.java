@@ -0,0 +1,97 @@
+package org.example.model.daos;
+
+import org.example.utils.EsdevenimentDAO;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+
+/**
+ * Embolcalla un DAO perquè cada crida als mètodes de {@link DAO} emeti un {@link EsdevenimentDAO} de JFR
+ * amb l'entitat, l'operació, les formes de SQL executades, les files i la durada.
+ *
+ * Si no hi ha cap gravació JFR que inclogui l'esdeveniment, la crida es delega directament.
+ * Les operacions de stream() només mesuren l'obertura del stream, no el seu recorregut.
+ */
+
+public final class DAOAmbEsdeveniments {
+
+    private DAOAmbEsdeveniments() {
+    }
+
+    /**
+     * Embolcalla un DAO. Si ja està embolcallat, el retorna tal com és.
+     *
+     * @param dao El DAO.
+     * @param <T> El tipus d'entitat.
+     * @return El DAO embolcallat.
+     */
+
+    @SuppressWarnings("unchecked")
+    public static <T> DAO<T> embolcallar(DAO<T> dao) {
+        if (Proxy.isProxyClass(dao.getClass()) && Proxy.getInvocationHandler(dao) instanceof Handler) {
+            return dao;
+        }
+        return (DAO<T>) Proxy.newProxyInstance(
+                DAOAmbEsdeveniments.class.getClassLoader(),
+                new Class<?>[] { DAO.class },
+                new Handler(dao, entitat(dao.getClass())));
+    }
+
+    private static final class Handler implements InvocationHandler {
+
+        private final DAO<?> dao;
+        private final String entitat;
+
+        private Handler(DAO<?> dao, String entitat) {
+            this.dao = dao;
+            this.entitat = entitat;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invocar(method, args);
+            }
+
+            EsdevenimentDAO esdeveniment = new EsdevenimentDAO(entitat, method.getName());
+            if (!esdeveniment.isEnabled()) {
+                return invocar(method, args);
+            }
+
+            EsdevenimentDAO anterior = esdeveniment.iniciar();
+            boolean error = true;
+            try {
+                Object resultat = invocar(method, args);
+                error = false;
+                return resultat;
+            } finally {
+                esdeveniment.acabar(error, anterior);
+            }
+        }
+
+        private Object invocar(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(dao, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Nom de l'entitat a partir de l'argument de tipus de DAO<T> que implementa la classe (per exemple, Bici).
+
+    private static String entitat(Class<?> classe) {
+        for (Class<?> c = classe; c != null; c = c.getSuperclass()) {
+            for (Type tipus : c.getGenericInterfaces()) {
+                if (tipus instanceof ParameterizedType p && p.getRawType() == DAO.class && p.getActualTypeArguments()[0] instanceof Class<?> entitat) {
+                    return entitat.getSimpleName();
+                }
+            }
+        }
+        return classe.getSimpleName();
+    }
+}
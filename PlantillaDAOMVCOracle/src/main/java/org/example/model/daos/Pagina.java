@@ -0,0 +1,124 @@
+package org.example.model.daos;
+
+/**
+ * Descriu una pàgina de resultats a recuperar amb {@link DAO#getPage(Pagina)}.
+ *
+ * Hi ha dues maneres de paginar:
+ * <ul>
+ *     <li>Per clau (keyset): es demanen les files amb ID més gran que l'última ID ja llegida,
+ *     ordenades per ID. És la manera més eficient per recórrer taules grans de principi a fi.</li>
+ *     <li>Per desplaçament (offset): es salten les primeres files i es pot ordenar per qualsevol
+ *     columna ordenable del DAO. Útil per saltar directament a una posició, com fa una taula de la vista.</li>
+ * </ul>
+ * Qualsevol de les dues es pot restringir amb un filtre de text, que el DAO compara com a prefix
+ * (sense distingir majúscules) amb les seves columnes filtrables.
+ */
+
+public final class Pagina {
+
+    private final int mida;
+    private final int offset;
+    private final Long despresDe;
+    private final boolean perClau;
+    private final String ordre;
+    private final boolean ascendent;
+    private final String filtre;
+
+    private Pagina(int mida, int offset, Long despresDe, boolean perClau, String ordre, boolean ascendent, String filtre) {
+        if (mida <= 0) {
+            throw new IllegalArgumentException("La mida de la pàgina ha de ser positiva");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("El desplaçament no pot ser negatiu");
+        }
+        this.mida = mida;
+        this.offset = offset;
+        this.despresDe = despresDe;
+        this.perClau = perClau;
+        this.ordre = ordre;
+        this.ascendent = ascendent;
+        this.filtre = filtre;
+    }
+
+    /**
+     * Crea una pàgina per clau, ordenada per ID.
+     *
+     * @param despresDe Última ID de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida Nombre màxim de files de la pàgina.
+     * @return La pàgina descrita.
+     */
+
+    public static Pagina perClau(Long despresDe, int mida) {
+        return new Pagina(mida, 0, despresDe, true, null, true, null);
+    }
+
+    /**
+     * Crea una pàgina per desplaçament.
+     *
+     * @param offset Nombre de files a saltar.
+     * @param mida Nombre màxim de files de la pàgina.
+     * @return La pàgina descrita.
+     */
+
+    public static Pagina perOffset(int offset, int mida) {
+        return new Pagina(mida, offset, null, false, null, true, null);
+    }
+
+    /**
+     * Retorna una còpia d'aquesta pàgina ordenada per una columna.
+     * Les pàgines per clau sempre s'ordenen per ID i no admeten cap altre ordre.
+     *
+     * @param columna Nom de la columna per la qual ordenar, o null per ordenar per ID.
+     * @param ascendent true per ordre ascendent, false per descendent.
+     * @return La nova pàgina.
+     */
+
+    public Pagina ordenadaPer(String columna, boolean ascendent) {
+        if (perClau && columna != null) {
+            throw new IllegalStateException("Les pàgines per clau només es poden ordenar per ID");
+        }
+        return new Pagina(mida, offset, despresDe, perClau, columna, ascendent, filtre);
+    }
+
+    /**
+     * Retorna una còpia d'aquesta pàgina que només inclou les files que comencen pel text indicat.
+     *
+     * @param text Text a buscar; si és null o en blanc, la pàgina no es filtra.
+     * @return La nova pàgina.
+     */
+
+    public Pagina filtradaPer(String text) {
+        String filtre = text == null || text.isBlank() ? null : text.strip();
+        return new Pagina(mida, offset, despresDe, perClau, ordre, ascendent, filtre);
+    }
+
+    // Getters
+
+    public int getMida() {
+        return mida;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public Long getDespresDe() {
+        return despresDe;
+    }
+
+    public boolean isPerClau() {
+        return perClau;
+    }
+
+    public String getOrdre() {
+        return ordre;
+    }
+
+    public boolean isAscendent() {
+        return ascendent;
+    }
+
+    public String getFiltre() {
+        return filtre;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.model.daos;
+
+/**
+ * Què ha fet una operació upsert amb cada entitat.
+ */
+
+public enum ResultatFusio {
+    INSERIDA, ACTUALITZADA
+}
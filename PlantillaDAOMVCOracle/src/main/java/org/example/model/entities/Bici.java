@@ -1,7 +1,11 @@
 package org.example.model.entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Representa una bicicleta amb atributs específics i relacions associades amb propietaris i revisions.
@@ -28,6 +32,14 @@ public class Bici {
         SI, NO
     }
 
+    /**
+     * Camps persistents de la bicicleta, per al seguiment de canvis.
+     */
+
+    public enum Camp {
+        MARCA, MODEL, ANY_FABRICACIO, PES, TIPUS, CARBONI, PROPIETARI
+    }
+
     private Long id;
     private String marca;
     private String modelBici;
@@ -38,6 +50,10 @@ public class Bici {
     private Propietari propietari;
     private List<Revisio> revisions;
 
+    // Camps modificats des de l'última lectura o escriptura.
+
+    private final Set<Camp> modificats = EnumSet.allOf(Camp.class);
+
 
     /**
      * Constructor per a crear una instància de Bici amb detalls específics.
@@ -107,37 +123,124 @@ public class Bici {
     }
 
     public void setMarca(String marca) {
-        this.marca = marca;
+        if (!Objects.equals(this.marca, marca)) {
+            this.marca = marca;
+            modificats.add(Camp.MARCA);
+        }
     }
 
     public void setModelBici(String modelBici) {
-        this.modelBici = modelBici;
+        if (!Objects.equals(this.modelBici, modelBici)) {
+            this.modelBici = modelBici;
+            modificats.add(Camp.MODEL);
+        }
     }
 
     public void setAnyFabricacio(int anyFabricacio) {
-        this.anyFabricacio = anyFabricacio;
+        if (this.anyFabricacio != anyFabricacio) {
+            this.anyFabricacio = anyFabricacio;
+            modificats.add(Camp.ANY_FABRICACIO);
+        }
     }
 
     public void setPes(double pes) {
-        this.pes = pes;
+        if (Double.compare(this.pes, pes) != 0) {
+            this.pes = pes;
+            modificats.add(Camp.PES);
+        }
     }
 
     public void setTipo(TipoBici tipo) {
-        this.tipo = tipo;
+        if (!Objects.equals(this.tipo, tipo)) {
+            this.tipo = tipo;
+            modificats.add(Camp.TIPUS);
+        }
     }
 
     public void setCarboni(Carboni carboni) {
-        this.carboni = carboni;
+        if (!Objects.equals(this.carboni, carboni)) {
+            this.carboni = carboni;
+            modificats.add(Camp.CARBONI);
+        }
     }
 
     public void setPropietari(Propietari propietari) {
-        this.propietari = propietari;
+        if (!Objects.equals(this.propietari, propietari)) {
+            this.propietari = propietari;
+            modificats.add(Camp.PROPIETARI);
+        }
     }
 
     public void setRevisions(List<Revisio> revisions) {
         this.revisions = revisions;
     }
 
+
+    // Seguiment de canvis
+
+    /**
+     * Retorna els camps modificats des que es va llegir o guardar la bicicleta.
+     *
+     * @return Conjunt no modificable dels camps modificats.
+     */
+
+    public Set<Camp> getCampsModificats() {
+        return Collections.unmodifiableSet(modificats);
+    }
+
+    /**
+     * Indica si algun camp ha canviat des que es va llegir o guardar la bicicleta.
+     *
+     * @return true si hi ha canvis pendents d'escriure.
+     */
+
+    public boolean isModificat() {
+        return !modificats.isEmpty();
+    }
+
+    /**
+     * Marca la bicicleta com a sincronitzada amb la base de dades. Els DAOs el criden després de llegir-la o escriure-la.
+     */
+
+    public void netejarCanvis() {
+        modificats.clear();
+    }
+
+    /**
+     * Retorna una còpia de la bicicleta amb la mateixa ID i els mateixos camps pendents.
+     * Permet editar-la i guardar-la sense tocar la instància original fins que l'escriptura ha anat bé.
+     *
+     * @return La còpia, amb la seva pròpia llista de revisions.
+     */
+
+    public Bici copia() {
+        Bici copia = new Bici(marca, modelBici, anyFabricacio, pes, tipo, carboni, propietari);
+        copia.id = id;
+        copia.revisions = new ArrayList<>(revisions);
+        copia.modificats.retainAll(modificats);
+        return copia;
+    }
+
+    /**
+     * Dues instàncies de Bici són iguals si representen la mateixa fila, és a dir, si tenen la mateixa ID.
+     * Una bicicleta sense ID només és igual a si mateixa.
+     *
+     * @param o L'objecte a comparar.
+     * @return true si representen la mateixa bicicleta.
+     */
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Bici)) return false;
+        return id != null && id.equals(((Bici) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : System.identityHashCode(this);
+    }
+
     /**
      * Retorna una representació en cadena de la bicicleta, mostrant la marca i el model.
      *
@@ -1,16 +1,34 @@
 package org.example.model.entities;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
 /**
  * Representa un propietari d'una bicicleta, amb detalls personals com el nom, cognoms, telèfon i email.
  */
 
 public class Propietari {
+
+    /**
+     * Camps persistents del propietari, per al seguiment de canvis.
+     */
+
+    public enum Camp {
+        NOM, COGNOMS, TELEFON, EMAIL
+    }
+
     private Long id;
     private String nom;
     private String cognoms;
     private String telefon;
     private String email;
 
+    // Camps modificats des de l'última lectura o escriptura.
+
+    private final Set<Camp> modificats = EnumSet.allOf(Camp.class);
+
     /**
      * Constructor que crea un propietari sense identificador especificat.
      *
@@ -60,7 +78,10 @@ public class Propietari {
     }
 
     public void setNom(String nom) {
-        this.nom = nom;
+        if (!Objects.equals(this.nom, nom)) {
+            this.nom = nom;
+            modificats.add(Camp.NOM);
+        }
     }
 
     public String getCognoms() {
@@ -68,7 +89,10 @@ public class Propietari {
     }
 
     public void setCognoms(String cognoms) {
-        this.cognoms = cognoms;
+        if (!Objects.equals(this.cognoms, cognoms)) {
+            this.cognoms = cognoms;
+            modificats.add(Camp.COGNOMS);
+        }
     }
 
     public String getTelefon() {
@@ -76,7 +100,10 @@ public class Propietari {
     }
 
     public void setTelefon(String telefon) {
-        this.telefon = telefon;
+        if (!Objects.equals(this.telefon, telefon)) {
+            this.telefon = telefon;
+            modificats.add(Camp.TELEFON);
+        }
     }
 
     public String getEmail() {
@@ -84,7 +111,73 @@ public class Propietari {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        if (!Objects.equals(this.email, email)) {
+            this.email = email;
+            modificats.add(Camp.EMAIL);
+        }
+    }
+
+
+    // Seguiment de canvis
+
+    /**
+     * Retorna els camps modificats des que es va llegir o guardar el propietari.
+     *
+     * @return Conjunt no modificable dels camps modificats.
+     */
+
+    public Set<Camp> getCampsModificats() {
+        return Collections.unmodifiableSet(modificats);
+    }
+
+    /**
+     * Indica si algun camp ha canviat des que es va llegir o guardar el propietari.
+     *
+     * @return true si hi ha canvis pendents d'escriure.
+     */
+
+    public boolean isModificat() {
+        return !modificats.isEmpty();
+    }
+
+    /**
+     * Marca el propietari com a sincronitzat amb la base de dades. Els DAOs el criden després de llegir-lo o escriure-lo.
+     */
+
+    public void netejarCanvis() {
+        modificats.clear();
+    }
+
+    /**
+     * Retorna una còpia del propietari, amb la mateixa ID i els mateixos camps pendents d'escriure.
+     *
+     * @return La còpia.
+     */
+
+    public Propietari copia() {
+        Propietari copia = new Propietari(id, nom, cognoms, telefon, email);
+        copia.modificats.retainAll(modificats);
+        return copia;
+    }
+
+    /**
+     * Dues instàncies de Propietari són iguals si representen la mateixa fila, és a dir, si tenen la mateixa ID.
+     * Un propietari sense ID només és igual a si mateix.
+     *
+     * @param o L'objecte a comparar.
+     * @return true si representen el mateix propietari.
+     */
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Propietari)) return false;
+        return id != null && id.equals(((Propietari) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : System.identityHashCode(this);
     }
 
     /**
@@ -1,16 +1,35 @@
 package org.example.model.entities;
 
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
 /**
  * Representa una revisió realitzada a una bicicleta, incloent detalls com la data, descripció, preu, i la bicicleta associada.
  */
 
 public class Revisio {
+
+    /**
+     * Camps persistents de la revisió, per al seguiment de canvis.
+     */
+
+    public enum Camp {
+        DATA, DESCRIPCIO, PREU, BICI
+    }
+
     private Long id;
-    private String data;
+    private LocalDate data;
     private String descripcio;
     private double preu;
     private Bici bici;
 
+    // Camps modificats des de l'última lectura o escriptura.
+
+    private final Set<Camp> modificats = EnumSet.allOf(Camp.class);
+
     /**
      * Constructor per crear una revisió amb els detalls específics.
      *
@@ -20,7 +39,7 @@ public class Revisio {
      * @param bici L'objecte Bici al qual pertany aquesta revisió.
      */
 
-    public Revisio(String data, String descripcio, double preu, Bici bici) {
+    public Revisio(LocalDate data, String descripcio, double preu, Bici bici) {
         this.data = data;
         this.descripcio = descripcio;
         this.preu = preu;
@@ -37,12 +56,15 @@ public class Revisio {
         this.id = id;
     }
 
-    public String getData() {
+    public LocalDate getData() {
         return data;
     }
 
-    public void setData(String data) {
-        this.data = data;
+    public void setData(LocalDate data) {
+        if (!Objects.equals(this.data, data)) {
+            this.data = data;
+            modificats.add(Camp.DATA);
+        }
     }
 
     public String getDescripcio() {
@@ -50,7 +72,10 @@ public class Revisio {
     }
 
     public void setDescripcio(String descripcio) {
-        this.descripcio = descripcio;
+        if (!Objects.equals(this.descripcio, descripcio)) {
+            this.descripcio = descripcio;
+            modificats.add(Camp.DESCRIPCIO);
+        }
     }
 
     public double getPreu() {
@@ -58,7 +83,10 @@ public class Revisio {
     }
 
     public void setPreu(double preu) {
-        this.preu = preu;
+        if (Double.compare(this.preu, preu) != 0) {
+            this.preu = preu;
+            modificats.add(Camp.PREU);
+        }
     }
 
     public Bici getBici() {
@@ -66,9 +94,77 @@ public class Revisio {
     }
 
     public void setBici(Bici bici) {
-        this.bici = bici;
+        if (!Objects.equals(this.bici, bici)) {
+            this.bici = bici;
+            modificats.add(Camp.BICI);
+        }
+    }
+
+
+
+    // Seguiment de canvis
+
+    /**
+     * Retorna els camps modificats des que es va llegir o guardar la revisió.
+     *
+     * @return Conjunt no modificable dels camps modificats.
+     */
+
+    public Set<Camp> getCampsModificats() {
+        return Collections.unmodifiableSet(modificats);
+    }
+
+    /**
+     * Indica si algun camp ha canviat des que es va llegir o guardar la revisió.
+     *
+     * @return true si hi ha canvis pendents d'escriure.
+     */
+
+    public boolean isModificat() {
+        return !modificats.isEmpty();
+    }
+
+    /**
+     * Marca la revisió com a sincronitzada amb la base de dades. Els DAOs el criden després de llegir-la o escriure-la.
+     */
+
+    public void netejarCanvis() {
+        modificats.clear();
+    }
+
+    /**
+     * Retorna una còpia de la revisió que es pot modificar sense afectar l'original.
+     * Conserva la ID, la bicicleta i els camps pendents d'escriure.
+     *
+     * @return La còpia.
+     */
+
+    public Revisio copia() {
+        Revisio copia = new Revisio(data, descripcio, preu, bici);
+        copia.id = id;
+        copia.modificats.retainAll(modificats);
+        return copia;
+    }
+
+    /**
+     * Dues instàncies de Revisio són iguals si representen la mateixa fila, és a dir, si tenen la mateixa ID.
+     * Una revisió sense ID només és igual a si mateixa.
+     *
+     * @param o L'objecte a comparar.
+     * @return true si representen la mateixa revisió.
+     */
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Revisio)) return false;
+        return id != null && id.equals(((Revisio) o).id);
     }
 
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : System.identityHashCode(this);
+    }
 
     /**
      * Retorna una representació en cadena de la revisió, utilitzant la representació en cadena de la bicicleta associada.
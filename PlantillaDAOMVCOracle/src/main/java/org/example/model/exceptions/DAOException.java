@@ -36,6 +36,7 @@ public class DAOException extends Exception {
         missatges.put(12,"Cognoms no vàlids! Ha de començar per majúscula i seguir amb minúscules, sense números ni caràcters especials.");
         missatges.put(13,"Telèfon no vàlid! Ha de començar per 6 o 9 i seguir amb 8 dígits més.");
         missatges.put(14,"Email no vàlid! Ha de tenir un format vàlid (propietari@example.com)");
+        missatges.put(15,"Email repetit! Ja hi ha un propietari amb aquest email.");
 
         missatges.put(21, "La marca de la bicicleta és invàlida! Ha de començar per majúscula i seguir amb minúscules, sense números ni caràcters especials.");
         missatges.put(22, "El model de la bicicleta és invàlid! Ha de començar per majúscula i seguir amb minúscules, sense números ni caràcters especials.");
@@ -104,4 +105,15 @@ public class DAOException extends Exception {
     public String getCodi() {
         return missatges.get(tipo);
     }
+
+    /**
+     * Obté el missatge predeterminat d'un codi d'error, sense crear cap excepció.
+     *
+     * @param tipo El codi d'error.
+     * @return El missatge corresponent, o null si el codi no en té.
+     */
+
+    public static String missatge(int tipo) {
+        return missatges.get(tipo);
+    }
 }
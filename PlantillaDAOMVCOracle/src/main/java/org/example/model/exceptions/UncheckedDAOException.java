@@ -0,0 +1,32 @@
+package org.example.model.exceptions;
+
+/**
+ * Embolcalla una {@link DAOException} en una excepció no comprovada.
+ *
+ * S'utilitza en els camins on l'API no permet llançar excepcions comprovades,
+ * com els Stream que llegeixen files de la base de dades a mesura que es consumeixen.
+ */
+
+public class UncheckedDAOException extends RuntimeException {
+
+    /**
+     * Constructor que embolcalla una excepció de DAO.
+     *
+     * @param cause L'excepció de DAO original.
+     */
+
+    public UncheckedDAOException(DAOException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Obté l'excepció de DAO original.
+     *
+     * @return L'excepció de DAO embolcallada.
+     */
+
+    @Override
+    public DAOException getCause() {
+        return (DAOException) super.getCause();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.model.impls;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Genera sentències UPDATE que només escriuen les columnes modificades d'una entitat.
+ *
+ * Cada combinació de columnes dona lloc a un SQL diferent; els SQL ja generats es guarden
+ * perquè una mateixa combinació faci servir sempre el mateix text (i, per tant, la mateixa
+ * sentència de la memòria cau de la connexió).
+ *
+ * Les entitats es creen amb tots els camps marcats com a modificats, i els DAOs els netegen
+ * (netejarCanvis) després de llegir-les o escriure-les: una entitat que no ve de la base de dades
+ * s'escriu sencera, i una de llegida només escriu els camps que s'han canviat des de llavors.
+ *
+ * @param <E> L'enumeració de camps de l'entitat.
+ */
+
+final class ActualitzacioSQL<E extends Enum<E>> {
+
+    private final String taula;
+    private final String columnaId;
+    private final EnumMap<E, String> columnes;
+    private final Map<Set<E>, String> generats = new ConcurrentHashMap<>();
+
+    /**
+     * @param taula La taula a actualitzar.
+     * @param columnaId La columna de la clau primària.
+     * @param columnes La columna de cada camp de l'entitat.
+     */
+
+    ActualitzacioSQL(String taula, String columnaId, EnumMap<E, String> columnes) {
+        this.taula = taula;
+        this.columnaId = columnaId;
+        this.columnes = columnes;
+    }
+
+    /**
+     * Retorna l'UPDATE per a un conjunt de camps modificats. Els paràmetres segueixen l'ordre
+     * de declaració de l'enumeració i l'últim paràmetre és la clau primària.
+     *
+     * @param camps Els camps modificats; no pot ser buit.
+     * @return La sentència UPDATE.
+     */
+
+    String sql(Set<E> camps) {
+        return generats.computeIfAbsent(EnumSet.copyOf(camps), c -> {
+            StringJoiner sets = new StringJoiner(", ");
+            for (E camp : c) {
+                sets.add(columnes.get(camp) + " = ?");
+            }
+            return "UPDATE " + taula + " SET " + sets + " WHERE " + columnaId + " = ?";
+        });
+    }
+}
@@ -1,21 +1,80 @@
 package org.example.model.impls;
 
+import org.example.model.cache.EntityCaches;
 import org.example.model.daos.DAO;
+import org.example.model.daos.Pagina;
+import org.example.model.daos.ResultatFusio;
 import org.example.model.entities.Bici;
 import org.example.model.entities.Propietari;
 import org.example.model.exceptions.DAOException;
 import org.example.utils.DBUtil;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Implementació de l'interfície DAO per a objectes Bici.
  * Proporciona la gestió de persistència per a objectes Bici a la base de dades.
+ * Les lectures per ID passen per la memòria cau d'EntityCaches, que s'actualitza en cada escriptura.
  */
 
 public class BiciDAOImpl implements DAO<Bici> {
 
+    // Consulta base que porta cada bicicleta amb el seu propietari en una sola anada a la base de dades.
+
+    private static final String SELECT_BICI_PROPIETARI =
+            "SELECT " + EntityMapper.COLUMNES_BICI + ", " + EntityMapper.COLUMNES_PROPIETARI +
+            " FROM Bicicletes b LEFT JOIN Propietaris p ON b.propietari_id = p.propietari_id";
+
+    private static final String INSERT_BICI =
+            "INSERT INTO Bicicletes (marca, model, any_fabricacio, pes, tipus, carboni, propietari_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_BICI = "DELETE FROM Bicicletes WHERE bici_id = ?";
+
+    // UPDATEs que només escriuen les columnes modificades, un per cada combinació de columnes.
+
+    private static final ActualitzacioSQL<Bici.Camp> ACTUALITZACIONS;
+
+    static {
+        EnumMap<Bici.Camp, String> columnes = new EnumMap<>(Bici.Camp.class);
+        columnes.put(Bici.Camp.MARCA, "marca");
+        columnes.put(Bici.Camp.MODEL, "model");
+        columnes.put(Bici.Camp.ANY_FABRICACIO, "any_fabricacio");
+        columnes.put(Bici.Camp.PES, "pes");
+        columnes.put(Bici.Camp.TIPUS, "tipus");
+        columnes.put(Bici.Camp.CARBONI, "carboni");
+        columnes.put(Bici.Camp.PROPIETARI, "propietari_id");
+        ACTUALITZACIONS = new ActualitzacioSQL<>("Bicicletes", "bici_id", columnes);
+    }
+
+    // Columnes per les quals es pot ordenar una pàgina de bicicletes.
+
+    private static final Map<String, String> ORDENABLES = Map.of(
+            "marca", "UPPER(b.marca)",
+            "model", "UPPER(b.model)"
+    );
+
+    // Columnes que es comparen amb el filtre de text de les pàgines i dels recomptes.
+
+    private static final List<String> FILTRABLES = List.of("b.marca", "b.model");
+
+    // MERGE de les bicicletes per ID o, si no en tenen, per marca, model i propietari.
+
+    private static final FusioSQL.Taula<Bici> FUSIO = new FusioSQL.Taula<>(
+            "Bicicletes", "bici_id",
+            List.of("marca", "model", "any_fabricacio", "pes", "tipus", "carboni", "propietari_id"),
+            List.of("marca", "model", "propietari_id"),
+            BiciDAOImpl::vincular, Bici::getId, Bici::setId,
+            bici -> Arrays.asList(bici.getMarca(), bici.getModelBici(), bici.getPropietari().getId()));
+
     /**
      * Recupera una bicicleta pel seu ID.
      *
@@ -26,6 +85,10 @@ public class BiciDAOImpl implements DAO<Bici> {
 
     @Override
     public Bici get(Long id) throws DAOException {
+        Bici enCache = EntityMapper.enSessio(Bici.class, id, EntityCaches.BICIS.get(id));
+        if (enCache != null) return enCache;
+
+        long generacio = EntityCaches.BICIS.getGeneracio();
         Connection con = null;
         PreparedStatement st = null;
         ResultSet rs = null;
@@ -33,20 +96,12 @@ public class BiciDAOImpl implements DAO<Bici> {
 
         try {
             con = DBUtil.getConnection();
-            st = con.prepareStatement("SELECT * FROM Bicicletes WHERE bici_id = ?");
+            st = con.prepareStatement(SELECT_BICI_PROPIETARI + " WHERE b.bici_id = ?");
             st.setLong(1, id);
             rs = st.executeQuery();
 
             if (rs.next()) {
-                bici = new Bici(
-                        rs.getString("marca"),
-                        rs.getString("model"),
-                        rs.getInt("any_fabricacio"),
-                        rs.getDouble("pes"),
-                        Bici.TipoBici.valueOf(rs.getString("tipus")),
-                        Bici.Carboni.valueOf(rs.getString("carboni")),
-                        getPropietari(rs.getLong("propietari_id"), con)
-                );
+                bici = EntityMapper.bici(rs, new HashMap<>(), new HashMap<>());
             }
         } catch (SQLException throwables) {
             throw new DAOException(1);
@@ -59,11 +114,15 @@ public class BiciDAOImpl implements DAO<Bici> {
                 throw new DAOException(1);
             }
         }
+        if (EntityMapper.perCache()) EntityCaches.BICIS.putLlegit(id, bici, generacio);
         return bici;
     }
 
     /**
-     * Recupera totes les bicicletes de la base de dades.
+     * Recupera totes les bicicletes de la base de dades juntament amb els seus propietaris.
+     *
+     * Les bicicletes i els propietaris es llegeixen amb una sola consulta (LEFT JOIN), i les
+     * bicicletes d'un mateix propietari comparteixen la mateixa instància de Propietari.
      *
      * @return Una llista de totes les bicicletes.
      * @throws DAOException si ocorre un error de base de dades.
@@ -72,23 +131,47 @@ public class BiciDAOImpl implements DAO<Bici> {
     @Override
     public List<Bici> getAll() throws DAOException {
         List<Bici> bicicletes = new ArrayList<>();
+        Map<Long, Bici> bicis = new HashMap<>();
+        Map<Long, Propietari> propietaris = new HashMap<>();
 
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement("SELECT * FROM Bicicletes");
+             PreparedStatement st = con.prepareStatement(SELECT_BICI_PROPIETARI);
              ResultSet rs = st.executeQuery()) {
 
             while (rs.next()) {
-                Bici bici = new Bici(
-                        rs.getString("marca"),
-                        rs.getString("model"),
-                        rs.getInt("any_fabricacio"),
-                        rs.getDouble("pes"),
-                        Bici.TipoBici.valueOf(rs.getString("tipus")),
-                        Bici.Carboni.valueOf(rs.getString("carboni")),
-                        getPropietari(rs.getLong("propietari_id"), con)
-                );
-                bici.setId(rs.getLong("bici_id"));
-                bicicletes.add(bici);
+                bicicletes.add(EntityMapper.bici(rs, bicis, propietaris));
+            }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
+        }
+        return bicicletes;
+    }
+
+    /**
+     * Recupera una pàgina de bicicletes amb els seus propietaris.
+     *
+     * Es pot ordenar per marca o model, sense distingir majúscules.
+     * El filtre de text es compara amb la marca i el model.
+     *
+     * @param pagina La pàgina a recuperar.
+     * @return Les bicicletes de la pàgina.
+     * @throws DAOException si la columna d'ordenació no és vàlida o ocorre un error de base de dades.
+     */
+
+    @Override
+    public List<Bici> getPage(Pagina pagina) throws DAOException {
+        List<Bici> bicicletes = new ArrayList<>();
+        Map<Long, Bici> bicis = new HashMap<>();
+        Map<Long, Propietari> propietaris = new HashMap<>();
+
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(PaginaSQL.construir(SELECT_BICI_PROPIETARI, "b.bici_id", ORDENABLES, FILTRABLES, pagina))) {
+
+            PaginaSQL.vincular(st, FILTRABLES, pagina);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    bicicletes.add(EntityMapper.bici(rs, bicis, propietaris));
+                }
             }
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
@@ -96,6 +179,58 @@ public class BiciDAOImpl implements DAO<Bici> {
         return bicicletes;
     }
 
+    /**
+     * Compta les bicicletes de la base de dades.
+     *
+     * @return El nombre total de bicicletes.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public long count() throws DAOException {
+        return count(null);
+    }
+
+    /**
+     * Compta les bicicletes la marca o el model de les quals comença pel text indicat.
+     *
+     * @param filtre Text a buscar, o null per comptar-les totes.
+     * @return El nombre de bicicletes que compleixen el filtre.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public long count(String filtre) throws DAOException {
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(PaginaSQL.comptar("Bicicletes b", FILTRABLES, filtre))) {
+
+            PaginaSQL.vincularFiltre(st, 1, FILTRABLES, filtre);
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
+        }
+    }
+
+    /**
+     * Recorre totes les bicicletes amb els seus propietaris d'una en una.
+     *
+     * Cada fila es converteix en objectes nous, sense compartir instàncies entre files,
+     * perquè la memòria utilitzada no creixi amb la mida de la taula.
+     *
+     * @param fetchSize Nombre de files que es porten de la base de dades en cada anada.
+     * @return Un Stream de les bicicletes, que s'ha de tancar.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public Stream<Bici> stream(int fetchSize) throws DAOException {
+        return ResultSetStream.obrir(SELECT_BICI_PROPIETARI + " ORDER BY b.bici_id", fetchSize,
+                rs -> EntityMapper.bici(rs, new HashMap<>(), new HashMap<>()));
+    }
+
     /**
      * Guarda una nova bicicleta a la base de dades.
      *
@@ -106,17 +241,9 @@ public class BiciDAOImpl implements DAO<Bici> {
     @Override
     public void save(Bici bici) throws DAOException {
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(
-                     "INSERT INTO Bicicletes (marca, model, any_fabricacio, pes, tipus, carboni, propietari_id) VALUES (?, ?, ?, ?, ?, ?, ?)",
-                     new String[] { "bici_id" })) {
-
-            st.setString(1, bici.getMarca());
-            st.setString(2, bici.getModelBici());
-            st.setInt(3, bici.getAnyFabricacio());
-            st.setDouble(4, bici.getPes());
-            st.setString(5, bici.getTipo().name());
-            st.setString(6, bici.getCarboni().name());
-            st.setLong(7, bici.getPropietari().getId());
+             PreparedStatement st = con.prepareStatement(INSERT_BICI, new String[] { "bici_id" })) {
+
+            vincular(st, bici);
 
             int affectedRows = st.executeUpdate();
             if (affectedRows == 0) {
@@ -133,11 +260,15 @@ public class BiciDAOImpl implements DAO<Bici> {
         } catch (SQLException e) {
             throw new DAOException(1, e.getMessage());
         }
+        bici.netejarCanvis();
+        EntityCaches.BICIS.put(bici.getId(), bici);
     }
 
     /**
      * Actualitza una bicicleta existent a la base de dades.
      *
+     * Només s'escriuen les columnes modificades des de la darrera lectura o escriptura; si no n'hi ha cap, no s'executa cap sentència.
+     *
      * @param bici La bicicleta a actualitzar.
      * @throws DAOException si la bicicleta és null, el seu ID és null, o si ocorre un error de base de dades.
      */
@@ -148,18 +279,15 @@ public class BiciDAOImpl implements DAO<Bici> {
             throw new DAOException(1, "La bici o el seu ID és null");
         }
 
+        if (!bici.isModificat()) return;
+
+        EntityCaches.BICIS.invalidate(bici.getId());
+        EntityCaches.REVISIONS.clear();
+
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(
-                     "UPDATE Bicicletes SET marca = ?, model = ?, any_fabricacio = ?, pes = ?, tipus = ?, carboni = ?, propietari_id = ? WHERE bici_id = ?")) {
-
-            st.setString(1, bici.getMarca());
-            st.setString(2, bici.getModelBici());
-            st.setInt(3, bici.getAnyFabricacio());
-            st.setDouble(4, bici.getPes());
-            st.setString(5, bici.getTipo().name());
-            st.setString(6, bici.getCarboni().name());
-            st.setLong(7, bici.getPropietari().getId());
-            st.setLong(8, bici.getId());
+             PreparedStatement st = con.prepareStatement(ACTUALITZACIONS.sql(bici.getCampsModificats()))) {
+
+            vincularCanvis(st, bici);
 
             int affectedRows = st.executeUpdate();
             if (affectedRows == 0) {
@@ -168,6 +296,8 @@ public class BiciDAOImpl implements DAO<Bici> {
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
         }
+        bici.netejarCanvis();
+        EntityCaches.BICIS.put(bici.getId(), bici);
     }
 
     /**
@@ -183,8 +313,11 @@ public class BiciDAOImpl implements DAO<Bici> {
             throw new DAOException(1, "L'ID de la bici és null.");
         }
 
+        EntityCaches.BICIS.invalidate(id);
+        EntityCaches.REVISIONS.clear();
+
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement("DELETE FROM Bicicletes WHERE bici_id = ?")) {
+             PreparedStatement st = con.prepareStatement(DELETE_BICI)) {
 
             st.setLong(1, id);
             st.executeUpdate();
@@ -207,22 +340,168 @@ public class BiciDAOImpl implements DAO<Bici> {
         delete(bici.getId());
     }
 
-    private Propietari getPropietari(Long propietariId, Connection con) throws SQLException {
-        if (propietariId == null) return null;
-        Propietari propietari = null;
-        try (PreparedStatement st = con.prepareStatement("SELECT * FROM Propietaris WHERE propietari_id = ?")) {
-            st.setLong(1, propietariId);
-            try (ResultSet rs = st.executeQuery()) {
-                if (rs.next()) {
-                    propietari = new Propietari(
-                            rs.getString("nom"),
-                            rs.getString("cognoms"),
-                            rs.getString("telefon"),
-                            rs.getString("email")
-                    );
-                }
+    /**
+     * Guarda diverses bicicletes noves en lots i assigna a cadascuna l'ID generat.
+     *
+     * @param bicis Les bicicletes a guardar.
+     * @throws DAOException si alguna bicicleta no té propietari o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void saveAll(Collection<Bici> bicis) throws DAOException {
+        for (Bici bici : bicis) {
+            if (bici == null || bici.getPropietari() == null) {
+                throw new DAOException(1, "La bici o el seu propietari és null");
+            }
+        }
+        LotSQL.inserir(INSERT_BICI, "bici_id", bicis, BiciDAOImpl::vincular, Bici::setId);
+        for (Bici bici : bicis) {
+            bici.netejarCanvis();
+            EntityCaches.BICIS.put(bici.getId(), bici);
+        }
+    }
+
+    /**
+     * Actualitza diverses bicicletes existents en lots.
+     *
+     * Les entitats sense canvis s'ometen i la resta s'agrupa segons les columnes modificades.
+     *
+     * @param bicis Les bicicletes a actualitzar.
+     * @throws DAOException si alguna bicicleta o el seu ID és null, o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void updateAll(Collection<Bici> bicis) throws DAOException {
+        for (Bici bici : bicis) {
+            if (bici == null || bici.getId() == null) {
+                throw new DAOException(1, "La bici o el seu ID és null");
             }
         }
-        return propietari;
+
+        // Les entitats sense canvis no s'escriuen; la resta s'agrupa per columnes modificades, amb un lot per cada UPDATE.
+
+        Map<Set<Bici.Camp>, List<Bici>> perColumnes = new LinkedHashMap<>();
+        for (Bici bici : bicis) {
+            if (bici.isModificat()) {
+                perColumnes.computeIfAbsent(EnumSet.copyOf(bici.getCampsModificats()), k -> new ArrayList<>()).add(bici);
+            }
+        }
+        if (perColumnes.isEmpty()) return;
+
+        perColumnes.values().forEach(grup -> grup.forEach(bici -> EntityCaches.BICIS.invalidate(bici.getId())));
+        EntityCaches.REVISIONS.clear();
+        for (Map.Entry<Set<Bici.Camp>, List<Bici>> grup : perColumnes.entrySet()) {
+            LotSQL.executar(ACTUALITZACIONS.sql(grup.getKey()), grup.getValue(), BiciDAOImpl::vincularCanvis);
+            for (Bici bici : grup.getValue()) {
+                bici.netejarCanvis();
+                EntityCaches.BICIS.put(bici.getId(), bici);
+            }
+        }
+    }
+
+    /**
+     * Elimina diverses bicicletes pels seus IDs en lots.
+     *
+     * @param ids Els IDs de les bicicletes a eliminar.
+     * @throws DAOException si algun ID és null o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void deleteAll(Collection<Long> ids) throws DAOException {
+        if (ids.contains(null)) {
+            throw new DAOException(1, "L'ID de la bici és null.");
+        }
+        ids.forEach(EntityCaches.BICIS::invalidate);
+        EntityCaches.REVISIONS.clear();
+        LotSQL.esborrar(DELETE_BICI, ids, (st, id) -> st.setLong(1, id));
+    }
+
+    /**
+     * Insereix o actualitza diverses bicicletes amb MERGE, en lots.
+     *
+     * Les bicicletes amb ID es fusionen per ID i les que no en tenen, per marca, model i propietari,
+     * en lloc de consultar cada bicicleta i decidir entre save i update. Aquesta clau no és única (un propietari
+     * pot tenir dues bicicletes iguals): si correspon a més d'una bicicleta, cal indicar-ne l'ID.
+     *
+     * @param bicis Les bicicletes a guardar.
+     * @return Si cada bicicleta s'ha inserit o actualitzat, en el mateix ordre. Totes les bicicletes acaben amb la seva ID.
+     * @throws DAOException si alguna bicicleta o el seu propietari és null, si una bicicleta sense ID coincideix amb més
+     *                      d'una bicicleta, o si ocorre un error de base de dades; el lot afectat es desfà sencer.
+     */
+
+    public List<ResultatFusio> upsertAll(Collection<Bici> bicis) throws DAOException {
+        for (Bici bici : bicis) {
+            if (bici == null || bici.getPropietari() == null || bici.getPropietari().getId() == null) {
+                throw new DAOException(1, "La bici o el seu propietari és null");
+            }
+            if (bici.getId() != null) EntityCaches.BICIS.invalidate(bici.getId());
+        }
+        EntityCaches.REVISIONS.clear();
+
+        List<ResultatFusio> resultats = FusioSQL.fusionar(FUSIO, bicis);
+        for (Bici bici : bicis) {
+            bici.netejarCanvis();
+            EntityCaches.BICIS.put(bici.getId(), bici);
+        }
+        return resultats;
+    }
+
+    /**
+     * Assigna les columnes d'una bicicleta als primers paràmetres d'un INSERT.
+     *
+     * @param st La sentència preparada.
+     * @param bici La bicicleta.
+     * @return El nombre de paràmetres assignats.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    private static int vincular(PreparedStatement st, Bici bici) throws SQLException {
+        int index = 1;
+        for (Bici.Camp camp : Bici.Camp.values()) {
+            vincularCamp(st, index++, bici, camp);
+        }
+        return index - 1;
+    }
+
+    /**
+     * Assigna les columnes modificades d'una bicicleta i, al final, la seva ID, en l'ordre de l'UPDATE generat per a aquests camps.
+     *
+     * @param st La sentència preparada.
+     * @param bici La bicicleta.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    private static void vincularCanvis(PreparedStatement st, Bici bici) throws SQLException {
+        int index = 1;
+        for (Bici.Camp camp : bici.getCampsModificats()) {
+            vincularCamp(st, index++, bici, camp);
+        }
+        st.setLong(index, bici.getId());
+    }
+
+    private static void vincularCamp(PreparedStatement st, int index, Bici bici, Bici.Camp camp) throws SQLException {
+        switch (camp) {
+            case MARCA:
+                st.setString(index, bici.getMarca());
+                break;
+            case MODEL:
+                st.setString(index, bici.getModelBici());
+                break;
+            case ANY_FABRICACIO:
+                st.setInt(index, bici.getAnyFabricacio());
+                break;
+            case PES:
+                st.setDouble(index, bici.getPes());
+                break;
+            case TIPUS:
+                st.setString(index, bici.getTipo().name());
+                break;
+            case CARBONI:
+                st.setString(index, bici.getCarboni().name());
+                break;
+            case PROPIETARI:
+                st.setLong(index, bici.getPropietari().getId());
+                break;
+        }
     }
 }
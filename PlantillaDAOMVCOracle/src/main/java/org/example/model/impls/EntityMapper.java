@@ -0,0 +1,199 @@
+package org.example.model.impls;
+
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import org.example.model.sessio.Sessio;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Construeix entitats a partir de les files d'un ResultSet.
+ *
+ * Les consultes que fan JOIN entre taules retornen les mateixes dades de propietari o bicicleta
+ * en moltes files; els mapes d'entitats ja construïdes permeten que totes les files que
+ * comparteixen clau primària comparteixin també la mateixa instància.
+ * Si hi ha una {@link Sessio} oberta al fil actual, les entitats es busquen i es registren
+ * al seu mapa d'identitats, de manera que la instància és única dins de tota la sessió.
+ */
+
+final class EntityMapper {
+
+    /**
+     * Columnes de Propietaris en l'ordre esperat pels mètodes d'aquesta classe.
+     */
+
+    static final String COLUMNES_PROPIETARI = "p.propietari_id, p.nom, p.cognoms, p.telefon, p.email";
+
+    /**
+     * Columnes de Bicicletes en l'ordre esperat pels mètodes d'aquesta classe.
+     */
+
+    static final String COLUMNES_BICI = "b.bici_id, b.marca, b.model, b.any_fabricacio, b.pes, b.tipus, b.carboni";
+
+    /**
+     * Columnes de Revisions en l'ordre esperat pels mètodes d'aquesta classe.
+     */
+
+    static final String COLUMNES_REVISIO = "r.revisio_id, r.data, r.descripcio, r.preu";
+
+    private EntityMapper() {
+    }
+
+    /**
+     * Construeix el propietari de la fila actual, o reutilitza el ja construït amb el mateix ID.
+     *
+     * @param rs ResultSet posicionat a la fila a llegir.
+     * @param propietaris Propietaris ja construïts, indexats pel seu ID.
+     * @return El propietari de la fila, o null si la fila no en té (LEFT JOIN sense coincidència).
+     * @throws SQLException si ocorre un error llegint la fila.
+     */
+
+    static Propietari propietari(ResultSet rs, Map<Long, Propietari> propietaris) throws SQLException {
+        long id = rs.getLong("propietari_id");
+        if (rs.wasNull()) return null;
+
+        Propietari propietari = propietaris.get(id);
+        if (propietari == null) {
+            propietari = deSessio(Propietari.class, id);
+        }
+        if (propietari == null) {
+            propietari = aSessio(Propietari.class, id, new Propietari(
+                    id,
+                    rs.getString("nom"),
+                    rs.getString("cognoms"),
+                    rs.getString("telefon"),
+                    rs.getString("email")
+            ));
+            propietari.netejarCanvis();
+        }
+        propietaris.put(id, propietari);
+        return propietari;
+    }
+
+    /**
+     * Construeix la bicicleta de la fila actual, o reutilitza la ja construïda amb el mateix ID.
+     *
+     * @param rs ResultSet posicionat a la fila a llegir.
+     * @param bicis Bicicletes ja construïdes, indexades pel seu ID.
+     * @param propietaris Propietaris ja construïts, indexats pel seu ID.
+     * @return La bicicleta de la fila, o null si la fila no en té.
+     * @throws SQLException si ocorre un error llegint la fila.
+     */
+
+    static Bici bici(ResultSet rs, Map<Long, Bici> bicis, Map<Long, Propietari> propietaris) throws SQLException {
+        long id = rs.getLong("bici_id");
+        if (rs.wasNull()) return null;
+
+        Bici bici = bicis.get(id);
+        if (bici == null) {
+            bici = deSessio(Bici.class, id);
+        }
+        if (bici == null) {
+            bici = new Bici(
+                    rs.getString("marca"),
+                    rs.getString("model"),
+                    rs.getInt("any_fabricacio"),
+                    rs.getDouble("pes"),
+                    Bici.TipoBici.valueOf(rs.getString("tipus")),
+                    Bici.Carboni.valueOf(rs.getString("carboni")),
+                    propietari(rs, propietaris)
+            );
+            bici.setId(id);
+            bici.netejarCanvis();
+            bici = aSessio(Bici.class, id, bici);
+        }
+        bicis.put(id, bici);
+        return bici;
+    }
+
+    /**
+     * Construeix la revisió de la fila actual amb la seva bicicleta i el propietari d'aquesta.
+     *
+     * La revisió s'afegeix també a la llista de revisions de la bicicleta, de manera que el graf
+     * d'objectes queda enllaçat en els dos sentits. Si la bicicleta ja tenia una revisió amb la mateixa ID
+     * (és la de la sessió o de la memòria cau i ja s'havia carregat), es substitueix en lloc de duplicar-la.
+     *
+     * @param rs ResultSet posicionat a la fila a llegir.
+     * @param bicis Bicicletes ja construïdes, indexades pel seu ID.
+     * @param propietaris Propietaris ja construïts, indexats pel seu ID.
+     * @return La revisió de la fila.
+     * @throws SQLException si ocorre un error llegint la fila.
+     */
+
+    static Revisio revisio(ResultSet rs, Map<Long, Bici> bicis, Map<Long, Propietari> propietaris) throws SQLException {
+        Bici bici = bici(rs, bicis, propietaris);
+        long id = rs.getLong("revisio_id");
+        Revisio existent = deSessio(Revisio.class, id);
+        if (existent != null) {
+            return existent;
+        }
+
+        Revisio revisio = new Revisio(
+                rs.getObject("data", LocalDate.class),
+                rs.getString("descripcio"),
+                rs.getDouble("preu"),
+                bici
+        );
+        revisio.setId(id);
+        revisio.netejarCanvis();
+        if (bici != null) {
+            bici.getRevisions().removeIf(anterior -> anterior.getId() != null && anterior.getId() == id);
+            bici.getRevisions().add(revisio);
+        }
+        return aSessio(Revisio.class, id, revisio);
+    }
+
+    /**
+     * Resol una entitat obtinguda fora d'una consulta (per exemple, de la memòria cau)
+     * contra el mapa d'identitats de la sessió actual.
+     *
+     * La candidata pot ser la instància compartida de la memòria cau, així que dins d'una sessió
+     * se n'hi registra una còpia: els canvis fets durant la sessió no arriben a la memòria cau
+     * fins que l'escriptura corresponent els hi posa.
+     *
+     * @param tipus La classe de l'entitat.
+     * @param id La clau primària.
+     * @param candidata L'entitat obtinguda, o null.
+     * @param <T> El tipus d'entitat.
+     * @return La instància de la sessió si n'hi ha; si no, la candidata, o una còpia registrada a la sessió si n'hi ha una d'oberta.
+     */
+
+    static <T> T enSessio(Class<T> tipus, Long id, T candidata) {
+        T existent = deSessio(tipus, id);
+        if (existent != null) return existent;
+        if (candidata == null || Sessio.actual() == null) return candidata;
+        return aSessio(tipus, id, tipus.cast(copia(candidata)));
+    }
+
+    /**
+     * Indica si les entitats llegides s'han de posar a la memòria cau.
+     *
+     * Dins d'una sessió no: les instàncies llegides són les del seu mapa d'identitats, que la sessió
+     * pot modificar abans d'escriure-les.
+     *
+     * @return true si no hi ha cap sessió oberta al fil actual.
+     */
+
+    static boolean perCache() {
+        return Sessio.actual() == null;
+    }
+
+    private static Object copia(Object entitat) {
+        if (entitat instanceof Propietari) return ((Propietari) entitat).copia();
+        if (entitat instanceof Bici) return ((Bici) entitat).copia();
+        return ((Revisio) entitat).copia();
+    }
+
+    private static <T> T deSessio(Class<T> tipus, Long id) {
+        Sessio sessio = Sessio.actual();
+        return sessio == null ? null : sessio.trobar(tipus, id);
+    }
+
+    private static <T> T aSessio(Class<T> tipus, Long id, T entitat) {
+        Sessio sessio = Sessio.actual();
+        return sessio == null ? entitat : sessio.registrarCarregat(tipus, id, entitat);
+    }
+}
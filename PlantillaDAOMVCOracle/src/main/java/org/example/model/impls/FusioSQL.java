@@ -0,0 +1,300 @@
+package org.example.model.impls;
+
+import org.example.model.daos.ResultatFusio;
+import org.example.model.exceptions.DAOException;
+import org.example.utils.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Insereix o actualitza moltes entitats amb MERGE INTO, en lots JDBC com {@link LotSQL}.
+ *
+ * Les entitats amb ID es fusionen per ID; les que no en tenen, per la seva clau natural. Cada lot
+ * es fa en una transacció pròpia amb tres anades a la base de dades:
+ * <ol>
+ *     <li>un SELECT ... FOR UPDATE de les files que ja existeixen, que indica si cada entitat s'actualitzarà o s'inserirà
+ *     i bloqueja aquestes files fins al final del lot;</li>
+ *     <li>els MERGE del lot, enviats amb executeBatch;</li>
+ *     <li>un SELECT per clau natural per recuperar les IDs de les files inserides, ja que Oracle no retorna claus generades d'un MERGE.</li>
+ * </ol>
+ *
+ * Els SELECT busquen les entitats en blocs de {@link #MIDA_IN} valors, independentment de db.batchSize: Oracle no
+ * admet més de 1000 expressions en un IN, i un bloc incomplet es completa repetint l'últim valor perquè el text
+ * SQL sigui sempre el mateix.
+ *
+ * La clau natural ha de tenir un índex (vegeu pl.sql), perquè el MERGE i els SELECT per clau no recorrin tota la taula.
+ * No cal que l'índex sigui únic, però la fusió no tria entre files: si una clau correspon a més d'una fila, el lot es
+ * desfà en lloc d'actualitzar-les totes. Una ID que ja no existeix s'insereix com a fila nova, amb una ID nova que
+ * es recupera per la clau natural; si l'entitat no la té completa, o si amb la fila nova la clau deixa de ser única,
+ * el lot també es desfà.
+ */
+
+final class FusioSQL {
+
+    private static final int MIDA_IN = 100;
+
+    /**
+     * Assigna les columnes d'una entitat als primers paràmetres d'una sentència.
+     *
+     * @param <T> El tipus d'entitat.
+     */
+
+    @FunctionalInterface
+    interface Columnes<T> {
+        int vincular(PreparedStatement st, T obj) throws SQLException;
+    }
+
+    /**
+     * Descripció de la taula d'un tipus d'entitat.
+     *
+     * @param taula Nom de la taula.
+     * @param columnaId Columna d'identitat.
+     * @param columnes Columnes que s'insereixen, en l'ordre en què les assigna el vinculador.
+     * @param columnesClau Columnes de la clau natural, subconjunt de les anteriors.
+     * @param vinculador Assigna les columnes d'una entitat.
+     * @param id Retorna l'ID d'una entitat, o null si és nova.
+     * @param assignadorId Assigna l'ID a una entitat.
+     * @param clau Retorna els valors de la clau natural d'una entitat, en l'ordre de columnesClau.
+     * @param <T> El tipus d'entitat.
+     */
+
+    record Taula<T>(String taula, String columnaId, List<String> columnes, List<String> columnesClau,
+                    Columnes<T> vinculador, Function<T, Long> id, LotSQL.AssignadorId<T> assignadorId,
+                    Function<T, List<Object>> clau) {
+    }
+
+    private FusioSQL() {
+    }
+
+    /**
+     * Fusiona les entitats amb la taula en lots de db.batchSize.
+     * Si un lot falla es desfà sencer, però els lots anteriors ja queden confirmats.
+     *
+     * @param taula La descripció de la taula.
+     * @param objs Les entitats.
+     * @param <T> El tipus d'entitat.
+     * @return El resultat de cada entitat, en el mateix ordre. Totes les entitats acaben amb l'ID de la seva fila.
+     * @throws DAOException si una entitat sense ID no té completa la clau natural, si una clau natural correspon a més
+     *                      d'una fila o si ocorre un error de base de dades.
+     */
+
+    static <T> List<ResultatFusio> fusionar(Taula<T> taula, Collection<T> objs) throws DAOException {
+        if (objs == null || objs.isEmpty()) return Collections.emptyList();
+        for (T obj : objs) {
+            if (taula.id().apply(obj) == null && clau(taula, obj).contains(null)) {
+                throw new DAOException(1, "Sense ID, cal la clau natural completa (" + String.join(", ", taula.columnesClau()) + ")");
+            }
+        }
+        int midaLot = LotSQL.midaLot();
+        List<ResultatFusio> resultats = new ArrayList<>(objs.size());
+
+        try (Connection con = DBUtil.getConnection()) {
+            con.setAutoCommit(false);
+            List<T> lot = new ArrayList<>(Math.min(midaLot, objs.size()));
+            for (T obj : objs) {
+                lot.add(obj);
+                if (lot.size() == midaLot) {
+                    resultats.addAll(fusionarLot(con, taula, lot));
+                    lot.clear();
+                }
+            }
+            if (!lot.isEmpty()) {
+                resultats.addAll(fusionarLot(con, taula, lot));
+            }
+        } catch (SQLException e) {
+            throw new DAOException(1, e.getMessage(), e);
+        }
+        return resultats;
+    }
+
+    private static <T> List<ResultatFusio> fusionarLot(Connection con, Taula<T> taula, List<T> lot) throws SQLException, DAOException {
+        try {
+            List<T> perId = new ArrayList<>();
+            List<T> perClau = new ArrayList<>();
+            for (T obj : lot) {
+                (taula.id().apply(obj) != null ? perId : perClau).add(obj);
+            }
+
+            Set<Long> idsExistents = idsExistents(con, taula, perId);
+            Map<List<String>, Long> clausExistents = perClau(con, taula, perClau, true);
+
+            // Una clau repetida dins del lot s'insereix el primer cop i s'actualitza les següents, igual que farà el MERGE.
+
+            List<ResultatFusio> resultats = new ArrayList<>(lot.size());
+            List<T> senseId = new ArrayList<>();
+            Set<List<String>> vistes = new HashSet<>(clausExistents.keySet());
+            for (T obj : lot) {
+                Long id = taula.id().apply(obj);
+                boolean existeix = id != null ? idsExistents.contains(id) : !vistes.add(clau(taula, obj));
+                if (id != null && !existeix && clau(taula, obj).contains(null)) {
+                    throw new DAOException(1, "L'ID " + id + " ja no existeix i sense la clau natural completa no es pot recuperar la ID nova");
+                }
+                resultats.add(existeix ? ResultatFusio.ACTUALITZADA : ResultatFusio.INSERIDA);
+                if (id == null || !existeix) {
+                    senseId.add(obj);
+                }
+            }
+
+            executar(con, mergePerId(taula), perId, (st, obj) -> {
+                int n = taula.vinculador().vincular(st, obj);
+                st.setLong(n + 1, taula.id().apply(obj));
+            });
+            executar(con, mergePerClau(taula), perClau, (st, obj) -> taula.vinculador().vincular(st, obj));
+
+            Map<List<String>, Long> ids = perClau(con, taula, senseId, false);
+            con.commit();
+
+            // Les IDs només s'assignen un cop confirmat el lot, com a LotSQL.
+
+            for (T obj : senseId) {
+                Long id = ids.get(clau(taula, obj));
+                if (id != null) {
+                    taula.assignadorId().assignar(obj, id);
+                }
+            }
+            return resultats;
+        } catch (SQLException | DAOException e) {
+            con.rollback();
+            throw e;
+        }
+    }
+
+    private static <T> void executar(Connection con, String sql, List<T> objs, LotSQL.Vinculador<T> vinculador) throws SQLException, DAOException {
+        if (objs.isEmpty()) return;
+        try (PreparedStatement st = con.prepareStatement(sql)) {
+            for (T obj : objs) {
+                vinculador.vincular(st, obj);
+                st.addBatch();
+            }
+            for (int resultat : st.executeBatch()) {
+                if (resultat == Statement.EXECUTE_FAILED) {
+                    throw new DAOException(1, "Ha fallat una sentència del lot");
+                }
+            }
+        }
+    }
+
+    private static <T> Set<Long> idsExistents(Connection con, Taula<T> taula, List<T> objs) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        if (objs.isEmpty()) return ids;
+
+        String sql = "SELECT " + taula.columnaId() + " FROM " + taula.taula()
+                + " WHERE " + taula.columnaId() + " IN (" + String.join(", ", Collections.nCopies(MIDA_IN, "?")) + ") FOR UPDATE";
+        try (PreparedStatement st = con.prepareStatement(sql)) {
+            for (int inici = 0; inici < objs.size(); inici += MIDA_IN) {
+                for (int i = 0; i < MIDA_IN; i++) {
+                    st.setLong(i + 1, taula.id().apply(objs.get(Math.min(inici + i, objs.size() - 1))));
+                }
+                try (ResultSet rs = st.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    // ID de la fila amb la clau natural de cada entitat. Una clau amb diverses files no s'ha de fusionar.
+
+    private static <T> Map<List<String>, Long> perClau(Connection con, Taula<T> taula, List<T> objs, boolean bloquejar) throws SQLException, DAOException {
+        Map<List<String>, Long> ids = new HashMap<>();
+        if (objs.isEmpty()) return ids;
+
+        List<String> clauColumnes = taula.columnesClau();
+        String tupla = clauColumnes.size() == 1 ? "?" : "(" + String.join(", ", Collections.nCopies(clauColumnes.size(), "?")) + ")";
+        String columnes = clauColumnes.size() == 1 ? clauColumnes.get(0) : "(" + String.join(", ", clauColumnes) + ")";
+        String sql = "SELECT " + taula.columnaId() + ", " + String.join(", ", clauColumnes) + " FROM " + taula.taula()
+                + " WHERE " + columnes + " IN (" + String.join(", ", Collections.nCopies(MIDA_IN, tupla)) + ")"
+                + (bloquejar ? " FOR UPDATE" : "");
+
+        try (PreparedStatement st = con.prepareStatement(sql)) {
+            for (int inici = 0; inici < objs.size(); inici += MIDA_IN) {
+                int index = 1;
+                for (int i = 0; i < MIDA_IN; i++) {
+                    for (Object valor : taula.clau().apply(objs.get(Math.min(inici + i, objs.size() - 1)))) {
+                        st.setObject(index++, valor);
+                    }
+                }
+                try (ResultSet rs = st.executeQuery()) {
+                    while (rs.next()) {
+                        List<String> clau = new ArrayList<>(clauColumnes.size());
+                        for (int i = 0; i < clauColumnes.size(); i++) {
+                            clau.add(rs.getString(i + 2));
+                        }
+                        long id = rs.getLong(1);
+                        Long anterior = ids.put(clau, id);
+                        if (anterior != null && anterior != id) {
+                            throw new DAOException(1, "La clau natural " + clau + " correspon a més d'una fila de " + taula.taula());
+                        }
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static <T> List<String> clau(Taula<T> taula, T obj) {
+        List<String> clau = new ArrayList<>();
+        for (Object valor : taula.clau().apply(obj)) {
+            clau.add(valor == null ? null : Objects.toString(valor));
+        }
+        return clau;
+    }
+
+    // MERGE per ID: actualitza totes les columnes; si l'ID ja no existeix, insereix una fila nova amb una ID generada.
+
+    private static String mergePerId(Taula<?> taula) {
+        List<String> origen = new ArrayList<>(taula.columnes());
+        origen.add(taula.columnaId());
+        return merge(taula, origen, List.of(taula.columnaId()), taula.columnes());
+    }
+
+    // MERGE per clau natural: Oracle no permet actualitzar les columnes de l'ON, així que només s'actualitza la resta.
+
+    private static String mergePerClau(Taula<?> taula) {
+        List<String> actualitzables = new ArrayList<>(taula.columnes());
+        actualitzables.removeAll(taula.columnesClau());
+        return merge(taula, taula.columnes(), taula.columnesClau(), actualitzables);
+    }
+
+    private static String merge(Taula<?> taula, List<String> origen, List<String> on, List<String> actualitzables) {
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(taula.taula()).append(" t USING (SELECT ");
+        for (int i = 0; i < origen.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("? AS ").append(origen.get(i));
+        }
+        sql.append(" FROM dual) s ON (");
+        for (int i = 0; i < on.size(); i++) {
+            if (i > 0) sql.append(" AND ");
+            sql.append("t.").append(on.get(i)).append(" = s.").append(on.get(i));
+        }
+        sql.append(")");
+        if (!actualitzables.isEmpty()) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < actualitzables.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append("t.").append(actualitzables.get(i)).append(" = s.").append(actualitzables.get(i));
+            }
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", taula.columnes())).append(") VALUES (");
+        for (int i = 0; i < taula.columnes().size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("s.").append(taula.columnes().get(i));
+        }
+        return sql.append(")").toString();
+    }
+}
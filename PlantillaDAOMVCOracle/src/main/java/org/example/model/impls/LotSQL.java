@@ -0,0 +1,225 @@
+package org.example.model.impls;
+
+import org.example.model.exceptions.DAOException;
+import org.example.utils.DBUtil;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Executa una mateixa sentència sobre moltes entitats agrupant-les en lots JDBC (addBatch/executeBatch).
+ *
+ * Cada lot s'envia a la base de dades en una sola anada i es confirma en una transacció pròpia:
+ * si un lot falla es desfà sencer, però els lots anteriors ja queden confirmats.
+ * La mida del lot es configura a db.properties (db.batchSize).
+ *
+ * Les insercions recuperen les claus generades amb getGeneratedKeys després de l'executeBatch si el controlador
+ * ho admet, o inserint el lot fila a fila (un executeUpdate per entitat, en la mateixa transacció) si no.
+ * Es decideix un sol cop, amb db.batchGeneratedKeys si està configurada o, si no, amb les metadades del controlador.
+ */
+
+final class LotSQL {
+
+    /**
+     * Assigna els paràmetres d'una entitat a la sentència preparada.
+     *
+     * @param <T> El tipus d'entitat.
+     */
+
+    @FunctionalInterface
+    interface Vinculador<T> {
+        void vincular(PreparedStatement st, T obj) throws SQLException;
+    }
+
+    /**
+     * Rep la clau generada per a una entitat inserida.
+     *
+     * @param <T> El tipus d'entitat.
+     */
+
+    @FunctionalInterface
+    interface AssignadorId<T> {
+        void assignar(T obj, Long id);
+    }
+
+    private static volatile Boolean clausEnLot;
+
+    private LotSQL() {
+    }
+
+    /**
+     * Mida del lot configurada a db.properties.
+     *
+     * @return El nombre màxim de files per lot.
+     */
+
+    static int midaLot() {
+        return Math.max(1, DBUtil.getIntProperty("db.batchSize", 500));
+    }
+
+    /**
+     * Executa una inserció per lots i assigna a cada entitat la clau generada.
+     *
+     * @param sql La sentència INSERT.
+     * @param columnaId Nom de la columna d'identitat que genera la clau.
+     * @param objs Les entitats a inserir.
+     * @param vinculador Assigna els paràmetres de cada entitat.
+     * @param assignadorId Rep la clau generada per a cada entitat.
+     * @param <T> El tipus d'entitat.
+     * @throws DAOException si ocorre un error de base de dades o no es poden recuperar les claus.
+     */
+
+    static <T> void inserir(String sql, String columnaId, Collection<T> objs, Vinculador<T> vinculador, AssignadorId<T> assignadorId) throws DAOException {
+        executar(sql, new String[] { columnaId }, objs, vinculador, assignadorId, true);
+    }
+
+    /**
+     * Executa una actualització per lots.
+     * Cada entitat ha d'afectar almenys una fila.
+     *
+     * @param sql La sentència UPDATE.
+     * @param objs Les entitats a processar.
+     * @param vinculador Assigna els paràmetres de cada entitat.
+     * @param <T> El tipus d'entitat.
+     * @throws DAOException si ocorre un error de base de dades o alguna entitat no afecta cap fila.
+     */
+
+    static <T> void executar(String sql, Collection<T> objs, Vinculador<T> vinculador) throws DAOException {
+        executar(sql, null, objs, vinculador, null, true);
+    }
+
+    /**
+     * Executa una eliminació per lots. Com a delete(Long), una fila que ja no existeix no és cap error.
+     *
+     * @param sql La sentència DELETE.
+     * @param objs Les claus de les files a eliminar.
+     * @param vinculador Assigna els paràmetres de cada clau.
+     * @param <T> El tipus de clau.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    static <T> void esborrar(String sql, Collection<T> objs, Vinculador<T> vinculador) throws DAOException {
+        executar(sql, null, objs, vinculador, null, false);
+    }
+
+    private static <T> void executar(String sql, String[] columnesClau, Collection<T> objs, Vinculador<T> vinculador,
+                                     AssignadorId<T> assignadorId, boolean totesAfectades) throws DAOException {
+        if (objs == null || objs.isEmpty()) return;
+        int midaLot = midaLot();
+
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = columnesClau == null ? con.prepareStatement(sql) : con.prepareStatement(sql, columnesClau)) {
+
+            con.setAutoCommit(false);
+            boolean perLots = assignadorId == null || clausEnLot(con);
+            List<T> lot = new ArrayList<>(Math.min(midaLot, objs.size()));
+            try {
+                for (T obj : objs) {
+                    if (perLots) {
+                        vinculador.vincular(st, obj);
+                        st.addBatch();
+                    }
+                    lot.add(obj);
+                    if (lot.size() == midaLot) {
+                        enviar(con, st, lot, perLots, vinculador, assignadorId, totesAfectades);
+                    }
+                }
+                if (!lot.isEmpty()) {
+                    enviar(con, st, lot, perLots, vinculador, assignadorId, totesAfectades);
+                }
+            } catch (SQLException | DAOException e) {
+                con.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DAOException(1, e.getMessage(), e);
+        }
+    }
+
+    // Decideix un sol cop si les claus generades es poden recuperar després d'un executeBatch.
+
+    private static boolean clausEnLot(Connection con) throws SQLException {
+        Boolean decisio = clausEnLot;
+        if (decisio == null) {
+            String configurada = DBUtil.getProperty("db.batchGeneratedKeys", null);
+            if (configurada != null) {
+                decisio = Boolean.parseBoolean(configurada.trim());
+            } else {
+                DatabaseMetaData metadades = con.getMetaData();
+                decisio = metadades.supportsBatchUpdates() && metadades.supportsGetGeneratedKeys();
+            }
+            clausEnLot = decisio;
+        }
+        return decisio;
+    }
+
+    // Envia el lot acumulat, recupera les claus generades si cal i confirma la transacció.
+
+    private static <T> void enviar(Connection con, PreparedStatement st, List<T> lot, boolean perLots, Vinculador<T> vinculador,
+                                   AssignadorId<T> assignadorId, boolean totesAfectades) throws SQLException, DAOException {
+        List<Long> claus = null;
+        if (perLots) {
+            int[] resultats = st.executeBatch();
+            for (int resultat : resultats) {
+                if (resultat == 0 && totesAfectades) {
+                    throw new DAOException(1, "No s'ha actualitzat cap fila");
+                }
+                if (resultat == Statement.EXECUTE_FAILED) {
+                    throw new DAOException(1, "Ha fallat una sentència del lot");
+                }
+            }
+            if (assignadorId != null) {
+                claus = clausDelLot(st, lot.size());
+            }
+        } else {
+            claus = inserirUnAUn(st, lot, vinculador);
+        }
+
+        con.commit();
+
+        // Les claus només s'assignen un cop confirmat el lot, perquè un lot desfet no deixi IDs inexistents.
+
+        if (assignadorId != null) {
+            for (int i = 0; i < lot.size(); i++) {
+                assignadorId.assignar(lot.get(i), claus.get(i));
+            }
+        }
+        lot.clear();
+    }
+
+    private static List<Long> clausDelLot(PreparedStatement st, int files) throws SQLException, DAOException {
+        List<Long> claus = new ArrayList<>(files);
+        try (ResultSet generatedKeys = st.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                claus.add(generatedKeys.getLong(1));
+            }
+        }
+        if (claus.size() != files) {
+            throw new DAOException(1, "El controlador no ha retornat les claus generades del lot (cal db.batchGeneratedKeys=false)");
+        }
+        return claus;
+    }
+
+    private static <T> List<Long> inserirUnAUn(PreparedStatement st, List<T> lot, Vinculador<T> vinculador) throws SQLException, DAOException {
+        List<Long> claus = new ArrayList<>(lot.size());
+        for (T obj : lot) {
+            vinculador.vincular(st, obj);
+            if (st.executeUpdate() == 0) {
+                throw new DAOException(1, "No s'ha actualitzat cap fila");
+            }
+            try (ResultSet generatedKeys = st.getGeneratedKeys()) {
+                if (!generatedKeys.next()) {
+                    throw new DAOException(1, "Failed to retrieve generated key.");
+                }
+                claus.add(generatedKeys.getLong(1));
+            }
+        }
+        return claus;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.model.impls;
+
+import org.example.model.daos.Pagina;
+import org.example.model.exceptions.DAOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construeix les consultes paginades dels DAOs a partir d'una {@link Pagina}.
+ *
+ * Les pàgines per clau fan servir un predicat sobre la columna d'identitat (WHERE id &gt; ?),
+ * que Oracle resol amb l'índex de la clau primària sense haver de recórrer les files anteriors.
+ * Les pàgines per desplaçament fan servir OFFSET ... FETCH NEXT.
+ *
+ * El filtre de text es compara com a prefix amb cada columna filtrable (UPPER(columna) LIKE UPPER(?)),
+ * de manera que Oracle pot fer servir els índexs basats en funció UPPER(columna) definits a pl.sql.
+ * Per la mateixa raó, les columnes ordenables dels DAOs són només expressions indexades (UPPER(columna)
+ * o una columna amb índex propi): ordenar per qualsevol altra obligaria a ordenar tota la taula per servir una pàgina.
+ */
+
+final class PaginaSQL {
+
+    private PaginaSQL() {
+    }
+
+    /**
+     * Afegeix a una consulta base el filtre, l'ordre i el límit de la pàgina.
+     *
+     * @param select Consulta base, sense WHERE ni ORDER BY.
+     * @param columnaId Columna d'identitat qualificada (per exemple b.bici_id).
+     * @param ordenables Columnes per les quals es pot ordenar, indexades pel nom que fa servir el client.
+     * @param filtrables Columnes qualificades que es comparen amb el filtre de text de la pàgina.
+     * @param pagina La pàgina a recuperar.
+     * @return La consulta paginada.
+     * @throws DAOException si la columna d'ordenació no és una de les ordenables.
+     */
+
+    static String construir(String select, String columnaId, Map<String, String> ordenables, List<String> filtrables, Pagina pagina) throws DAOException {
+        StringBuilder sql = new StringBuilder(select);
+        String direccio = pagina.isAscendent() ? " ASC" : " DESC";
+        String connector = " WHERE ";
+
+        if (pagina.getFiltre() != null) {
+            sql.append(connector).append(condicioFiltre(filtrables));
+            connector = " AND ";
+        }
+
+        if (pagina.isPerClau()) {
+            if (pagina.getDespresDe() != null) {
+                sql.append(connector).append(columnaId).append(" > ?");
+            }
+            sql.append(" ORDER BY ").append(columnaId).append(" FETCH FIRST ? ROWS ONLY");
+            return sql.toString();
+        }
+
+        sql.append(" ORDER BY ");
+        if (pagina.getOrdre() != null) {
+            String columna = ordenables.get(pagina.getOrdre());
+            if (columna == null) {
+                throw new DAOException(904);
+            }
+            sql.append(columna).append(direccio).append(", ");
+        }
+        sql.append(columnaId).append(direccio).append(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+        return sql.toString();
+    }
+
+    /**
+     * Construeix la consulta que compta les files d'una taula que compleixen un filtre.
+     *
+     * @param taula La taula amb l'àlies que fan servir les columnes filtrables (per exemple Bicicletes b).
+     * @param filtrables Columnes qualificades que es comparen amb el filtre.
+     * @param filtre Text a buscar, o null per comptar totes les files.
+     * @return La consulta de recompte.
+     */
+
+    static String comptar(String taula, List<String> filtrables, String filtre) {
+        String sql = "SELECT COUNT(*) FROM " + taula;
+        return actiu(filtre) ? sql + " WHERE " + condicioFiltre(filtrables) : sql;
+    }
+
+    /**
+     * Assigna els paràmetres de la pàgina a una consulta construïda amb {@link #construir}.
+     *
+     * @param st La consulta preparada.
+     * @param filtrables Les mateixes columnes filtrables amb què s'ha construït la consulta.
+     * @param pagina La pàgina a recuperar.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    static void vincular(PreparedStatement st, List<String> filtrables, Pagina pagina) throws SQLException {
+        int index = vincularFiltre(st, 1, filtrables, pagina.getFiltre());
+        if (pagina.isPerClau()) {
+            if (pagina.getDespresDe() != null) {
+                st.setLong(index++, pagina.getDespresDe());
+            }
+        } else {
+            st.setInt(index++, pagina.getOffset());
+        }
+        st.setInt(index, pagina.getMida());
+    }
+
+    /**
+     * Assigna el filtre de text a cadascuna de les columnes filtrables d'una consulta.
+     *
+     * @param st La consulta preparada.
+     * @param index Índex del primer paràmetre del filtre.
+     * @param filtrables Les columnes filtrables.
+     * @param filtre Text a buscar, o null si la consulta no està filtrada.
+     * @return L'índex del paràmetre següent al filtre.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    static int vincularFiltre(PreparedStatement st, int index, List<String> filtrables, String filtre) throws SQLException {
+        if (!actiu(filtre)) return index;
+
+        String patro = patro(filtre);
+        for (int i = 0; i < filtrables.size(); i++) {
+            st.setString(index++, patro);
+        }
+        return index;
+    }
+
+    // Els comodins que escriu l'usuari (%, _) es busquen literalment; només s'afegeix el % final del prefix.
+
+    private static String patro(String filtre) {
+        return filtre.strip()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
+    private static String condicioFiltre(List<String> filtrables) {
+        StringBuilder condicio = new StringBuilder("(");
+        for (int i = 0; i < filtrables.size(); i++) {
+            if (i > 0) condicio.append(" OR ");
+            condicio.append("UPPER(").append(filtrables.get(i)).append(") LIKE UPPER(?) ESCAPE '\\'");
+        }
+        return condicio.append(")").toString();
+    }
+
+    private static boolean actiu(String filtre) {
+        return filtre != null && !filtre.isBlank();
+    }
+}
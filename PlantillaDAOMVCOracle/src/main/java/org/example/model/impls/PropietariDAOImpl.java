@@ -1,20 +1,69 @@
 package org.example.model.impls;
 
+import org.example.model.cache.EntityCaches;
 import org.example.model.daos.DAO;
+import org.example.model.daos.Pagina;
+import org.example.model.daos.ResultatFusio;
 import org.example.model.entities.Propietari;
 import org.example.model.exceptions.DAOException;
 import org.example.utils.DBUtil;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Implementació de l'interfície DAO per a objectes Propietari.
  * Proporciona la gestió de persistència per a objectes Propietari a la base de dades.
+ * Les lectures per ID passen per la memòria cau d'EntityCaches, que s'actualitza en cada escriptura.
  */
 
 public class PropietariDAOImpl implements DAO<Propietari> {
 
+    private static final String SELECT_PROPIETARI = "SELECT " + EntityMapper.COLUMNES_PROPIETARI + " FROM Propietaris p";
+    private static final String INSERT_PROPIETARI = "INSERT INTO Propietaris (nom, cognoms, telefon, email) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_PROPIETARI = "DELETE FROM Propietaris WHERE propietari_id = ?";
+
+    // UPDATEs que només escriuen les columnes modificades, un per cada combinació de columnes.
+
+    private static final ActualitzacioSQL<Propietari.Camp> ACTUALITZACIONS;
+
+    static {
+        EnumMap<Propietari.Camp, String> columnes = new EnumMap<>(Propietari.Camp.class);
+        columnes.put(Propietari.Camp.NOM, "nom");
+        columnes.put(Propietari.Camp.COGNOMS, "cognoms");
+        columnes.put(Propietari.Camp.TELEFON, "telefon");
+        columnes.put(Propietari.Camp.EMAIL, "email");
+        ACTUALITZACIONS = new ActualitzacioSQL<>("Propietaris", "propietari_id", columnes);
+    }
+
+    // Columnes per les quals es pot ordenar una pàgina de propietaris.
+
+    private static final Map<String, String> ORDENABLES = Map.of(
+            "nom", "UPPER(p.nom)",
+            "cognoms", "UPPER(p.cognoms)"
+    );
+
+    // Columnes que es comparen amb el filtre de text de les pàgines i dels recomptes.
+
+    private static final List<String> FILTRABLES = List.of("p.nom", "p.cognoms");
+
+    // MERGE dels propietaris per ID o, si no en tenen, pel correu electrònic.
+
+    private static final FusioSQL.Taula<Propietari> FUSIO = new FusioSQL.Taula<>(
+            "Propietaris", "propietari_id",
+            List.of("nom", "cognoms", "telefon", "email"), List.of("email"),
+            PropietariDAOImpl::vincular, Propietari::getId, Propietari::setId,
+            propietari -> Arrays.asList(propietari.getEmail()));
+
     /**
      * Recupera un propietari pel seu ID.
      *
@@ -25,6 +74,10 @@ public class PropietariDAOImpl implements DAO<Propietari> {
 
     @Override
     public Propietari get(Long id) throws DAOException {
+        Propietari enCache = EntityMapper.enSessio(Propietari.class, id, EntityCaches.PROPIETARIS.get(id));
+        if (enCache != null) return enCache;
+
+        long generacio = EntityCaches.PROPIETARIS.getGeneracio();
         Connection con = null;
         PreparedStatement st = null;
         ResultSet rs = null;
@@ -32,18 +85,12 @@ public class PropietariDAOImpl implements DAO<Propietari> {
 
         try {
             con = DBUtil.getConnection();
-            st = con.prepareStatement("SELECT * FROM Propietaris WHERE propietari_id = ?");
+            st = con.prepareStatement(SELECT_PROPIETARI + " WHERE p.propietari_id = ?");
             st.setLong(1, id);
             rs = st.executeQuery();
 
             if (rs.next()) {
-                propietari = new Propietari(
-                        rs.getLong("propietari_id"),
-                        rs.getString("nom"),
-                        rs.getString("cognoms"),
-                        rs.getString("telefon"),
-                        rs.getString("email")
-                );
+                propietari = EntityMapper.propietari(rs, new HashMap<>());
             }
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
@@ -56,6 +103,7 @@ public class PropietariDAOImpl implements DAO<Propietari> {
                 throw new DAOException(1, e.getMessage());
             }
         }
+        if (EntityMapper.perCache()) EntityCaches.PROPIETARIS.putLlegit(id, propietari, generacio);
         return propietari;
     }
 
@@ -69,19 +117,45 @@ public class PropietariDAOImpl implements DAO<Propietari> {
     @Override
     public List<Propietari> getAll() throws DAOException {
         List<Propietari> propietaris = new ArrayList<>();
+        Map<Long, Propietari> carregats = new HashMap<>();
 
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement("SELECT * FROM Propietaris");
+             PreparedStatement st = con.prepareStatement(SELECT_PROPIETARI);
              ResultSet rs = st.executeQuery()) {
 
             while (rs.next()) {
-                propietaris.add(new Propietari(
-                        rs.getLong("propietari_id"),
-                        rs.getString("nom"),
-                        rs.getString("cognoms"),
-                        rs.getString("telefon"),
-                        rs.getString("email")
-                ));
+                propietaris.add(EntityMapper.propietari(rs, carregats));
+            }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
+        }
+        return propietaris;
+    }
+
+    /**
+     * Recupera una pàgina de propietaris.
+     *
+     * Es pot ordenar per nom o cognoms, sense distingir majúscules.
+     * El filtre de text es compara amb el nom i els cognoms.
+     *
+     * @param pagina La pàgina a recuperar.
+     * @return Els propietaris de la pàgina.
+     * @throws DAOException si la columna d'ordenació no és vàlida o ocorre un error de base de dades.
+     */
+
+    @Override
+    public List<Propietari> getPage(Pagina pagina) throws DAOException {
+        List<Propietari> propietaris = new ArrayList<>();
+        Map<Long, Propietari> carregats = new HashMap<>();
+
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(PaginaSQL.construir(SELECT_PROPIETARI, "p.propietari_id", ORDENABLES, FILTRABLES, pagina))) {
+
+            PaginaSQL.vincular(st, FILTRABLES, pagina);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    propietaris.add(EntityMapper.propietari(rs, carregats));
+                }
             }
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
@@ -89,23 +163,71 @@ public class PropietariDAOImpl implements DAO<Propietari> {
         return propietaris;
     }
 
+    /**
+     * Compta els propietaris de la base de dades.
+     *
+     * @return El nombre total de propietaris.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public long count() throws DAOException {
+        return count(null);
+    }
+
+    /**
+     * Compta els propietaris el nom o els cognoms dels quals comencen pel text indicat.
+     *
+     * @param filtre Text a buscar, o null per comptar-los tots.
+     * @return El nombre de propietaris que compleixen el filtre.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public long count(String filtre) throws DAOException {
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(PaginaSQL.comptar("Propietaris p", FILTRABLES, filtre))) {
+
+            PaginaSQL.vincularFiltre(st, 1, FILTRABLES, filtre);
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
+        }
+    }
+
+    /**
+     * Recorre tots els propietaris d'un en un.
+     *
+     * Cada fila es converteix en objectes nous, sense compartir instàncies entre files,
+     * perquè la memòria utilitzada no creixi amb la mida de la taula.
+     *
+     * @param fetchSize Nombre de files que es porten de la base de dades en cada anada.
+     * @return Un Stream dels propietaris, que s'ha de tancar.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public Stream<Propietari> stream(int fetchSize) throws DAOException {
+        return ResultSetStream.obrir(SELECT_PROPIETARI + " ORDER BY p.propietari_id", fetchSize,
+                rs -> EntityMapper.propietari(rs, new HashMap<>()));
+    }
+
     /**
      * Guarda un nou propietari a la base de dades.
      *
      * @param propietari El propietari a guardar.
-     * @throws DAOException si ocorre un error de base de dades o si no es pot guardar.
+     * @throws DAOException si ocorre un error de base de dades o si no es pot guardar (codi 15 si l'email ja és d'un altre propietari).
      */
 
     @Override
     public void save(Propietari propietari) throws DAOException {
-        String insertSQL = "INSERT INTO Propietaris (nom, cognoms, telefon, email) VALUES (?, ?, ?, ?)";
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(insertSQL, new String[] { "propietari_id" })) {
+             PreparedStatement st = con.prepareStatement(INSERT_PROPIETARI, new String[] { "propietari_id" })) {
 
-            st.setString(1, propietari.getNom());
-            st.setString(2, propietari.getCognoms());
-            st.setString(3, propietari.getTelefon());
-            st.setString(4, propietari.getEmail());
+            vincular(st, propietari);
 
             int affectedRows = st.executeUpdate();
             if (affectedRows == 0) {
@@ -121,34 +243,48 @@ public class PropietariDAOImpl implements DAO<Propietari> {
             }
         } catch (SQLException e) {
             System.err.println("SQL Error: " + e.getMessage());
-            throw new DAOException(1, e.getMessage());
+            throw error(e);
         }
+        propietari.netejarCanvis();
+        EntityCaches.PROPIETARIS.put(propietari.getId(), propietari);
     }
 
     /**
      * Actualitza un propietari existent a la base de dades.
      *
+     * Només s'escriuen les columnes modificades des de la darrera lectura o escriptura; si no n'hi ha cap, no s'executa cap sentència.
+     *
      * @param propietari El propietari a actualitzar.
-     * @throws DAOException si el propietari és null, el seu ID és null, o si ocorre un error de base de dades.
+     * @throws DAOException si el propietari és null, el seu ID és null, o si ocorre un error de base de dades (codi 15 si l'email ja és d'un altre propietari).
      */
 
     @Override
     public void update(Propietari propietari) throws DAOException {
-        String updateSQL = "UPDATE Propietaris SET nom = ?, cognoms = ?, telefon = ?, email = ? WHERE propietari_id = ?";
+        if (propietari == null || propietari.getId() == null) {
+            throw new DAOException(1, "El propietari o el seu ID és null");
+        }
+
+        if (!propietari.isModificat()) return;
+
+        EntityCaches.PROPIETARIS.invalidate(propietari.getId());
+        EntityCaches.BICIS.clear();
+        EntityCaches.REVISIONS.clear();
+
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(updateSQL)) {
+             PreparedStatement st = con.prepareStatement(ACTUALITZACIONS.sql(propietari.getCampsModificats()))) {
 
-            st.setString(1, propietari.getNom());
-            st.setString(2, propietari.getCognoms());
-            st.setString(3, propietari.getTelefon());
-            st.setString(4, propietari.getEmail());
-            st.setLong(5, propietari.getId());
+            vincularCanvis(st, propietari);
 
-            st.executeUpdate();
+            int affectedRows = st.executeUpdate();
+            if (affectedRows == 0) {
+                throw new DAOException(1, "No s'ha actualitzat cap fila");
+            }
         } catch (SQLException e) {
             System.err.println("SQL Error: " + e.getMessage());
-            throw new DAOException(1, e.getMessage());
+            throw error(e);
         }
+        propietari.netejarCanvis();
+        EntityCaches.PROPIETARIS.put(propietari.getId(), propietari);
     }
 
     /**
@@ -160,9 +296,16 @@ public class PropietariDAOImpl implements DAO<Propietari> {
 
     @Override
     public void delete(Long id) throws DAOException {
-        String deleteSQL = "DELETE FROM Propietaris WHERE propietari_id = ?";
+        if (id == null) {
+            throw new DAOException(1, "L'ID del propietari és null.");
+        }
+
+        EntityCaches.PROPIETARIS.invalidate(id);
+        EntityCaches.BICIS.clear();
+        EntityCaches.REVISIONS.clear();
+
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(deleteSQL)) {
+             PreparedStatement st = con.prepareStatement(DELETE_PROPIETARI)) {
 
             st.setLong(1, id);
             st.executeUpdate();
@@ -171,4 +314,183 @@ public class PropietariDAOImpl implements DAO<Propietari> {
             throw new DAOException(1, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Guarda diversos propietaris nous en lots i assigna a cadascun l'ID generat.
+     *
+     * @param propietaris Els propietaris a guardar.
+     * @throws DAOException si algun propietari és null, si ocorre un error de base de dades o si no es poden guardar (codi 15 si l'email ja és d'un altre propietari).
+     */
+
+    @Override
+    public void saveAll(Collection<Propietari> propietaris) throws DAOException {
+        if (propietaris.contains(null)) {
+            throw new DAOException(1, "El propietari és null");
+        }
+
+        try {
+            LotSQL.inserir(INSERT_PROPIETARI, "propietari_id", propietaris, PropietariDAOImpl::vincular, Propietari::setId);
+        } catch (DAOException e) {
+            throw error(e);
+        }
+        for (Propietari propietari : propietaris) {
+            propietari.netejarCanvis();
+            EntityCaches.PROPIETARIS.put(propietari.getId(), propietari);
+        }
+    }
+
+    /**
+     * Actualitza diversos propietaris existents en lots.
+     *
+     * Les entitats sense canvis s'ometen i la resta s'agrupa segons les columnes modificades.
+     *
+     * @param propietaris Els propietaris a actualitzar.
+     * @throws DAOException si algun propietari o el seu ID és null, o si ocorre un error de base de dades (codi 15 si l'email ja és d'un altre propietari).
+     */
+
+    @Override
+    public void updateAll(Collection<Propietari> propietaris) throws DAOException {
+        for (Propietari propietari : propietaris) {
+            if (propietari == null || propietari.getId() == null) {
+                throw new DAOException(1, "El propietari o el seu ID és null");
+            }
+        }
+
+        // Les entitats sense canvis no s'escriuen; la resta s'agrupa per columnes modificades, amb un lot per cada UPDATE.
+
+        Map<Set<Propietari.Camp>, List<Propietari>> perColumnes = new LinkedHashMap<>();
+        for (Propietari propietari : propietaris) {
+            if (propietari.isModificat()) {
+                perColumnes.computeIfAbsent(EnumSet.copyOf(propietari.getCampsModificats()), k -> new ArrayList<>()).add(propietari);
+            }
+        }
+        if (perColumnes.isEmpty()) return;
+
+        perColumnes.values().forEach(grup -> grup.forEach(propietari -> EntityCaches.PROPIETARIS.invalidate(propietari.getId())));
+        EntityCaches.BICIS.clear();
+        EntityCaches.REVISIONS.clear();
+        for (Map.Entry<Set<Propietari.Camp>, List<Propietari>> grup : perColumnes.entrySet()) {
+            try {
+                LotSQL.executar(ACTUALITZACIONS.sql(grup.getKey()), grup.getValue(), PropietariDAOImpl::vincularCanvis);
+            } catch (DAOException e) {
+                throw error(e);
+            }
+            for (Propietari propietari : grup.getValue()) {
+                propietari.netejarCanvis();
+                EntityCaches.PROPIETARIS.put(propietari.getId(), propietari);
+            }
+        }
+    }
+
+    /**
+     * Elimina diversos propietaris pels seus IDs en lots.
+     *
+     * @param ids Els IDs dels propietaris a eliminar.
+     * @throws DAOException si algun ID és null o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void deleteAll(Collection<Long> ids) throws DAOException {
+        if (ids.contains(null)) {
+            throw new DAOException(1, "L'ID del propietari és null.");
+        }
+        ids.forEach(EntityCaches.PROPIETARIS::invalidate);
+        EntityCaches.BICIS.clear();
+        EntityCaches.REVISIONS.clear();
+        LotSQL.esborrar(DELETE_PROPIETARI, ids, (st, id) -> st.setLong(1, id));
+    }
+
+    /**
+     * Insereix o actualitza diversos propietaris amb MERGE, en lots.
+     *
+     * Els propietaris amb ID es fusionen per ID i els que no en tenen, pel correu electrònic,
+     * en lloc de consultar cada propietari i decidir entre save i update.
+     *
+     * @param propietaris Els propietaris a guardar.
+     * @return Si cada propietari s'ha inserit o actualitzat, en el mateix ordre. Tots els propietaris acaben amb la seva ID.
+     * @throws DAOException si algun propietari és null, si un propietari no té correu i no té ID o la seva ID ja no existeix, o si ocorre un error de base de dades (codi 15 si l'email ja és d'un altre propietari).
+     */
+
+    public List<ResultatFusio> upsertAll(Collection<Propietari> propietaris) throws DAOException {
+        if (propietaris.contains(null)) {
+            throw new DAOException(1, "El propietari és null");
+        }
+        for (Propietari propietari : propietaris) {
+            if (propietari.getId() != null) EntityCaches.PROPIETARIS.invalidate(propietari.getId());
+        }
+        EntityCaches.BICIS.clear();
+        EntityCaches.REVISIONS.clear();
+
+        List<ResultatFusio> resultats;
+        try {
+            resultats = FusioSQL.fusionar(FUSIO, propietaris);
+        } catch (DAOException e) {
+            throw error(e);
+        }
+        for (Propietari propietari : propietaris) {
+            propietari.netejarCanvis();
+            EntityCaches.PROPIETARIS.put(propietari.getId(), propietari);
+        }
+        return resultats;
+    }
+
+    // ORA-00001 a Propietaris només pot venir de l'índex únic de l'email (uq_propietaris_email).
+
+    private static DAOException error(SQLException e) {
+        return e.getErrorCode() == 1 ? new DAOException(15, DAOException.missatge(15), e) : new DAOException(1, e.getMessage(), e);
+    }
+
+    private static DAOException error(DAOException e) {
+        return e.getCause() instanceof SQLException causa && causa.getErrorCode() == 1 ? error(causa) : e;
+    }
+
+    /**
+     * Assigna les columnes d'un propietari als primers paràmetres d'un INSERT.
+     *
+     * @param st La sentència preparada.
+     * @param propietari El propietari.
+     * @return El nombre de paràmetres assignats.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    private static int vincular(PreparedStatement st, Propietari propietari) throws SQLException {
+        int index = 1;
+        for (Propietari.Camp camp : Propietari.Camp.values()) {
+            vincularCamp(st, index++, propietari, camp);
+        }
+        return index - 1;
+    }
+
+    /**
+     * Assigna les columnes modificades d'un propietari i, al final, la seva ID, en l'ordre de l'UPDATE generat per a aquests camps.
+     *
+     * @param st La sentència preparada.
+     * @param propietari El propietari.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    private static void vincularCanvis(PreparedStatement st, Propietari propietari) throws SQLException {
+        int index = 1;
+        for (Propietari.Camp camp : propietari.getCampsModificats()) {
+            vincularCamp(st, index++, propietari, camp);
+        }
+        st.setLong(index, propietari.getId());
+    }
+
+    private static void vincularCamp(PreparedStatement st, int index, Propietari propietari, Propietari.Camp camp) throws SQLException {
+        switch (camp) {
+            case NOM:
+                st.setString(index, propietari.getNom());
+                break;
+            case COGNOMS:
+                st.setString(index, propietari.getCognoms());
+                break;
+            case TELEFON:
+                st.setString(index, propietari.getTelefon());
+                break;
+            case EMAIL:
+                st.setString(index, propietari.getEmail());
+                break;
+        }
+    }
+}
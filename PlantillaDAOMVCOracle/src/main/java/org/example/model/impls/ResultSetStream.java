@@ -0,0 +1,119 @@
+package org.example.model.impls;
+
+import org.example.model.exceptions.DAOException;
+import org.example.model.exceptions.UncheckedDAOException;
+import org.example.utils.DBUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposa el resultat d'una consulta com un Stream que llegeix les files a mesura que es consumeixen.
+ *
+ * La connexió, la sentència i el ResultSet es mantenen oberts mentre es recorre el Stream i
+ * es tanquen quan s'arriba al final o quan es tanca el Stream, el que passi primer.
+ */
+
+final class ResultSetStream {
+
+    /**
+     * Converteix la fila actual d'un ResultSet en una entitat.
+     *
+     * @param <T> El tipus d'entitat.
+     */
+
+    @FunctionalInterface
+    interface Mapejador<T> {
+        T mapejar(ResultSet rs) throws SQLException;
+    }
+
+    private ResultSetStream() {
+    }
+
+    /**
+     * Executa una consulta i retorna un Stream sobre les seves files.
+     *
+     * @param sql La consulta a executar.
+     * @param fetchSize Nombre de files que el driver porta de la base de dades en cada anada.
+     * @param mapejador Converteix cada fila en una entitat.
+     * @param <T> El tipus d'entitat.
+     * @return Un Stream que s'ha de tancar quan ja no es necessiti.
+     * @throws DAOException si no es pot executar la consulta.
+     */
+
+    static <T> Stream<T> obrir(String sql, int fetchSize, Mapejador<T> mapejador) throws DAOException {
+        Connection con = null;
+        PreparedStatement st = null;
+        try {
+            con = DBUtil.getConnection();
+            st = con.prepareStatement(sql);
+            st.setFetchSize(fetchSize);
+            ResultSet rs = st.executeQuery();
+            Cursor<T> cursor = new Cursor<>(con, st, rs, mapejador);
+            return StreamSupport.stream(cursor, false).onClose(cursor::tancar);
+        } catch (SQLException e) {
+            tancar(st);
+            tancar(con);
+            throw new DAOException(1, e.getMessage());
+        }
+    }
+
+    private static void tancar(AutoCloseable recurs) {
+        if (recurs == null) return;
+        try {
+            recurs.close();
+        } catch (Exception ignored) {
+            // El recurs ja no és utilitzable; no hi ha res més a fer.
+        }
+    }
+
+    /**
+     * Spliterator que avança el ResultSet una fila cada vegada.
+     */
+
+    private static class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection con;
+        private final PreparedStatement st;
+        private final ResultSet rs;
+        private final Mapejador<T> mapejador;
+        private boolean tancat;
+
+        Cursor(Connection con, PreparedStatement st, ResultSet rs, Mapejador<T> mapejador) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.con = con;
+            this.st = st;
+            this.rs = rs;
+            this.mapejador = mapejador;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (tancat) return false;
+            try {
+                if (!rs.next()) {
+                    tancar();
+                    return false;
+                }
+                action.accept(mapejador.mapejar(rs));
+                return true;
+            } catch (SQLException e) {
+                tancar();
+                throw new UncheckedDAOException(new DAOException(1, e.getMessage()));
+            }
+        }
+
+        void tancar() {
+            if (tancat) return;
+            tancat = true;
+            ResultSetStream.tancar(rs);
+            ResultSetStream.tancar(st);
+            ResultSetStream.tancar(con);
+        }
+    }
+}
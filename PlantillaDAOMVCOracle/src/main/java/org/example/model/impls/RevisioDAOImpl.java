@@ -1,21 +1,68 @@
 package org.example.model.impls;
 
+import org.example.model.cache.EntityCaches;
 import org.example.model.daos.DAO;
+import org.example.model.daos.Pagina;
 import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
 import org.example.model.entities.Revisio;
 import org.example.model.exceptions.DAOException;
 import org.example.utils.DBUtil;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Implementació de l'interfície DAO per a objectes Revisio.
  * Proporciona la gestió de persistència per a objectes Revisio a la base de dades.
+ * Les lectures per ID passen per la memòria cau d'EntityCaches, que s'actualitza en cada escriptura.
  */
 
 public class RevisioDAOImpl implements DAO<Revisio> {
 
+    // Consulta base que porta cada revisió amb la seva bicicleta i el propietari en una sola anada a la base de dades.
+
+    private static final String SELECT_REVISIO_BICI =
+            "SELECT " + EntityMapper.COLUMNES_REVISIO + ", " + EntityMapper.COLUMNES_BICI + ", " + EntityMapper.COLUMNES_PROPIETARI +
+            " FROM Revisions r JOIN Bicicletes b ON r.bici_id = b.bici_id" +
+            " LEFT JOIN Propietaris p ON b.propietari_id = p.propietari_id";
+
+    private static final String INSERT_REVISIO = "INSERT INTO Revisions (data, descripcio, preu, bici_id) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_REVISIO = "DELETE FROM Revisions WHERE revisio_id = ?";
+
+    // UPDATEs que només escriuen les columnes modificades, un per cada combinació de columnes.
+
+    private static final ActualitzacioSQL<Revisio.Camp> ACTUALITZACIONS;
+
+    static {
+        EnumMap<Revisio.Camp, String> columnes = new EnumMap<>(Revisio.Camp.class);
+        columnes.put(Revisio.Camp.DATA, "data");
+        columnes.put(Revisio.Camp.DESCRIPCIO, "descripcio");
+        columnes.put(Revisio.Camp.PREU, "preu");
+        columnes.put(Revisio.Camp.BICI, "bici_id");
+        ACTUALITZACIONS = new ActualitzacioSQL<>("Revisions", "revisio_id", columnes);
+    }
+
+    // Columnes per les quals es pot ordenar una pàgina de revisions.
+
+    private static final Map<String, String> ORDENABLES = Map.of(
+            "data", "r.data",
+            "descripcio", "UPPER(r.descripcio)"
+    );
+
+    // Columnes que es comparen amb el filtre de text de les pàgines i dels recomptes.
+
+    private static final List<String> FILTRABLES = List.of("r.descripcio");
+
     /**
      * Recupera una revisió pel seu ID.
      *
@@ -26,6 +73,10 @@ public class RevisioDAOImpl implements DAO<Revisio> {
 
     @Override
     public Revisio get(Long id) throws DAOException {
+        Revisio enCache = EntityMapper.enSessio(Revisio.class, id, EntityCaches.REVISIONS.get(id));
+        if (enCache != null) return enCache;
+
+        long generacio = EntityCaches.REVISIONS.getGeneracio();
         Connection con = null;
         PreparedStatement st = null;
         ResultSet rs = null;
@@ -33,19 +84,12 @@ public class RevisioDAOImpl implements DAO<Revisio> {
 
         try {
             con = DBUtil.getConnection();
-            st = con.prepareStatement("SELECT * FROM Revisions WHERE revisio_id = ?");
+            st = con.prepareStatement(SELECT_REVISIO_BICI + " WHERE r.revisio_id = ?");
             st.setLong(1, id);
             rs = st.executeQuery();
 
             if (rs.next()) {
-                Bici bici = getBici(rs.getLong("bici_id"), con);
-                revisio = new Revisio(
-                        rs.getDate("data").toString(),
-                        rs.getString("descripcio"),
-                        rs.getDouble("preu"),
-                        bici
-                );
-                revisio.setId(rs.getLong("revisio_id"));
+                revisio = EntityMapper.revisio(rs, new HashMap<>(), new HashMap<>());
             }
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
@@ -58,11 +102,15 @@ public class RevisioDAOImpl implements DAO<Revisio> {
                 throw new DAOException(1, e.getMessage());
             }
         }
+        if (EntityMapper.perCache()) EntityCaches.REVISIONS.putLlegit(id, revisio, generacio);
         return revisio;
     }
 
     /**
-     * Recupera totes les revisions de la base de dades.
+     * Recupera totes les revisions de la base de dades amb les seves bicicletes i propietaris.
+     *
+     * Tot es llegeix amb una sola consulta, i les revisions d'una mateixa bicicleta comparteixen
+     * la mateixa instància de Bici (i aquesta, la de Propietari).
      *
      * @return Una llista de totes les revisions.
      * @throws DAOException si ocorre un error de base de dades.
@@ -71,21 +119,103 @@ public class RevisioDAOImpl implements DAO<Revisio> {
     @Override
     public List<Revisio> getAll() throws DAOException {
         List<Revisio> revisions = new ArrayList<>();
+        Map<Long, Bici> bicis = new HashMap<>();
+        Map<Long, Propietari> propietaris = new HashMap<>();
 
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement("SELECT * FROM Revisions");
+             PreparedStatement st = con.prepareStatement(SELECT_REVISIO_BICI);
              ResultSet rs = st.executeQuery()) {
 
             while (rs.next()) {
-                Bici bici = getBici(rs.getLong("bici_id"), con);
-                Revisio revisio = new Revisio(
-                        rs.getDate("data").toString(),
-                        rs.getString("descripcio"),
-                        rs.getDouble("preu"),
-                        bici
-                );
-                revisio.setId(rs.getLong("revisio_id"));
-                revisions.add(revisio);
+                revisions.add(EntityMapper.revisio(rs, bicis, propietaris));
+            }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
+        }
+        return revisions;
+    }
+
+    /**
+     * Recupera l'historial de revisions d'una bicicleta, de la més antiga a la més recent.
+     *
+     * Oracle resol la consulta amb l'índex Revisions(bici_id, data), sense recórrer la taula sencera.
+     *
+     * @param biciId El ID de la bicicleta.
+     * @return Les revisions de la bicicleta.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    public List<Revisio> getByBici(Long biciId) throws DAOException {
+        return consultar(" WHERE r.bici_id = ? ORDER BY r.data, r.revisio_id", biciId);
+    }
+
+    /**
+     * Recupera les darreres revisions d'una bicicleta, de la més recent a la més antiga.
+     *
+     * @param biciId El ID de la bicicleta.
+     * @param n Nombre màxim de revisions.
+     * @return Com a màxim n revisions de la bicicleta.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    public List<Revisio> getDarreres(Long biciId, int n) throws DAOException {
+        return consultar(" WHERE r.bici_id = ? ORDER BY r.data DESC, r.revisio_id DESC FETCH FIRST ? ROWS ONLY", biciId, n);
+    }
+
+    /**
+     * Recupera les revisions fetes entre dues dates, ambdues incloses, ordenades per data.
+     *
+     * La condició es fa sobre la columna sense cap funció (data &gt;= inici i data &lt; l'endemà del final),
+     * perquè Oracle pugui fer servir l'índex Revisions(data) encara que la columna guardi hores.
+     *
+     * @param desDe Primera data del període.
+     * @param finsA Última data del període.
+     * @return Les revisions del període.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    public List<Revisio> getByData(LocalDate desDe, LocalDate finsA) throws DAOException {
+        return consultar(" WHERE r.data >= ? AND r.data < ? ORDER BY r.data, r.revisio_id", desDe, finsA.plusDays(1));
+    }
+
+    /**
+     * Recupera les revisions amb un preu dins d'un interval, ambdós extrems inclosos, ordenades per preu.
+     *
+     * @param minim Preu mínim.
+     * @param maxim Preu màxim.
+     * @return Les revisions amb el preu dins de l'interval.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    public List<Revisio> getByPreu(double minim, double maxim) throws DAOException {
+        return consultar(" WHERE r.preu BETWEEN ? AND ? ORDER BY r.preu, r.revisio_id", minim, maxim);
+    }
+
+    /**
+     * Recupera una pàgina de revisions amb les seves bicicletes i propietaris.
+     *
+     * Es pot ordenar per data o per descripció (sense distingir majúscules).
+     * El filtre de text es compara amb la descripció.
+     *
+     * @param pagina La pàgina a recuperar.
+     * @return Les revisions de la pàgina.
+     * @throws DAOException si la columna d'ordenació no és vàlida o ocorre un error de base de dades.
+     */
+
+    @Override
+    public List<Revisio> getPage(Pagina pagina) throws DAOException {
+        List<Revisio> revisions = new ArrayList<>();
+        Map<Long, Bici> bicis = new HashMap<>();
+        Map<Long, Propietari> propietaris = new HashMap<>();
+
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(PaginaSQL.construir(SELECT_REVISIO_BICI, "r.revisio_id", ORDENABLES, FILTRABLES, pagina))) {
+
+            PaginaSQL.vincular(st, FILTRABLES, pagina);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    revisions.add(EntityMapper.revisio(rs, bicis, propietaris));
+                }
             }
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
@@ -93,6 +223,58 @@ public class RevisioDAOImpl implements DAO<Revisio> {
         return revisions;
     }
 
+    /**
+     * Compta les revisions de la base de dades.
+     *
+     * @return El nombre total de revisions.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public long count() throws DAOException {
+        return count(null);
+    }
+
+    /**
+     * Compta les revisions la descripció de les quals comença pel text indicat.
+     *
+     * @param filtre Text a buscar, o null per comptar-les totes.
+     * @return El nombre de revisions que compleixen el filtre.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public long count(String filtre) throws DAOException {
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(PaginaSQL.comptar("Revisions r", FILTRABLES, filtre))) {
+
+            PaginaSQL.vincularFiltre(st, 1, FILTRABLES, filtre);
+            try (ResultSet rs = st.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
+        }
+    }
+
+    /**
+     * Recorre totes les revisions amb les seves bicicletes i propietaris d'una en una.
+     *
+     * Cada fila es converteix en objectes nous, sense compartir instàncies entre files,
+     * perquè la memòria utilitzada no creixi amb la mida de la taula.
+     *
+     * @param fetchSize Nombre de files que es porten de la base de dades en cada anada.
+     * @return Un Stream de les revisions, que s'ha de tancar.
+     * @throws DAOException si ocorre un error de base de dades.
+     */
+
+    @Override
+    public Stream<Revisio> stream(int fetchSize) throws DAOException {
+        return ResultSetStream.obrir(SELECT_REVISIO_BICI + " ORDER BY r.revisio_id", fetchSize,
+                rs -> EntityMapper.revisio(rs, new HashMap<>(), new HashMap<>()));
+    }
+
     /**
      * Guarda una nova revisió a la base de dades.
      *
@@ -103,14 +285,9 @@ public class RevisioDAOImpl implements DAO<Revisio> {
     @Override
     public void save(Revisio revisio) throws DAOException {
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(
-                     "INSERT INTO Revisions (data, descripcio, preu, bici_id) VALUES (?, ?, ?, ?)",
-                     new String[] { "revisio_id" })) {
+             PreparedStatement st = con.prepareStatement(INSERT_REVISIO, new String[] { "revisio_id" })) {
 
-            st.setDate(1, Date.valueOf(revisio.getData()));
-            st.setString(2, revisio.getDescripcio());
-            st.setDouble(3, revisio.getPreu());
-            st.setLong(4, revisio.getBici().getId());
+            vincular(st, revisio);
 
             int affectedRows = st.executeUpdate();
             if (affectedRows == 0) {
@@ -127,11 +304,15 @@ public class RevisioDAOImpl implements DAO<Revisio> {
         } catch (SQLException e) {
             throw new DAOException(1, e.getMessage());
         }
+        revisio.netejarCanvis();
+        EntityCaches.REVISIONS.put(revisio.getId(), revisio);
     }
 
     /**
      * Actualitza una revisió existent a la base de dades.
      *
+     * Només s'escriuen les columnes modificades des de la darrera lectura o escriptura; si no n'hi ha cap, no s'executa cap sentència.
+     *
      * @param revisio La revisió a actualitzar.
      * @throws DAOException si la revisió és null, el seu ID és null, o si ocorre un error de base de dades.
      */
@@ -142,15 +323,14 @@ public class RevisioDAOImpl implements DAO<Revisio> {
             throw new DAOException(1, "La revisió o el seu ID és null");
         }
 
+        if (!revisio.isModificat()) return;
+
+        EntityCaches.REVISIONS.invalidate(revisio.getId());
+
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement(
-                     "UPDATE Revisions SET data = ?, descripcio = ?, preu = ?, bici_id = ? WHERE revisio_id = ?")) {
+             PreparedStatement st = con.prepareStatement(ACTUALITZACIONS.sql(revisio.getCampsModificats()))) {
 
-            st.setDate(1, Date.valueOf(revisio.getData()));
-            st.setString(2, revisio.getDescripcio());
-            st.setDouble(3, revisio.getPreu());
-            st.setLong(4, revisio.getBici().getId());
-            st.setLong(5, revisio.getId());
+            vincularCanvis(st, revisio);
 
             int affectedRows = st.executeUpdate();
             if (affectedRows == 0) {
@@ -159,6 +339,8 @@ public class RevisioDAOImpl implements DAO<Revisio> {
         } catch (SQLException throwables) {
             throw new DAOException(1, throwables.getMessage());
         }
+        revisio.netejarCanvis();
+        EntityCaches.REVISIONS.put(revisio.getId(), revisio);
     }
 
     /**
@@ -174,8 +356,10 @@ public class RevisioDAOImpl implements DAO<Revisio> {
             throw new DAOException(1, "L'ID de la revisió és null.");
         }
 
+        EntityCaches.REVISIONS.invalidate(id);
+
         try (Connection con = DBUtil.getConnection();
-             PreparedStatement st = con.prepareStatement("DELETE FROM Revisions WHERE revisio_id = ?")) {
+             PreparedStatement st = con.prepareStatement(DELETE_REVISIO)) {
 
             st.setLong(1, id);
             st.executeUpdate();
@@ -185,34 +369,150 @@ public class RevisioDAOImpl implements DAO<Revisio> {
     }
 
     /**
-     * Recupera una bicicleta pel seu ID utilitzant una connexió existent.
+     * Guarda diverses revisions noves en lots i assigna a cadascuna l'ID generat.
+     *
+     * @param revisions Les revisions a guardar.
+     * @throws DAOException si alguna revisió no té bicicleta o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void saveAll(Collection<Revisio> revisions) throws DAOException {
+        for (Revisio revisio : revisions) {
+            if (revisio == null || revisio.getBici() == null) {
+                throw new DAOException(1, "La revisió o la seva bici és null");
+            }
+        }
+        LotSQL.inserir(INSERT_REVISIO, "revisio_id", revisions, RevisioDAOImpl::vincular, Revisio::setId);
+        for (Revisio revisio : revisions) {
+            revisio.netejarCanvis();
+            EntityCaches.REVISIONS.put(revisio.getId(), revisio);
+        }
+    }
+
+    /**
+     * Actualitza diverses revisions existents en lots.
+     *
+     * Les entitats sense canvis s'ometen i la resta s'agrupa segons les columnes modificades.
+     *
+     * @param revisions Les revisions a actualitzar.
+     * @throws DAOException si alguna revisió o el seu ID és null, o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void updateAll(Collection<Revisio> revisions) throws DAOException {
+        for (Revisio revisio : revisions) {
+            if (revisio == null || revisio.getId() == null) {
+                throw new DAOException(1, "La revisió o el seu ID és null");
+            }
+        }
+
+        // Les entitats sense canvis no s'escriuen; la resta s'agrupa per columnes modificades, amb un lot per cada UPDATE.
+
+        Map<Set<Revisio.Camp>, List<Revisio>> perColumnes = new LinkedHashMap<>();
+        for (Revisio revisio : revisions) {
+            if (revisio.isModificat()) {
+                perColumnes.computeIfAbsent(EnumSet.copyOf(revisio.getCampsModificats()), k -> new ArrayList<>()).add(revisio);
+            }
+        }
+        if (perColumnes.isEmpty()) return;
+
+        perColumnes.values().forEach(grup -> grup.forEach(revisio -> EntityCaches.REVISIONS.invalidate(revisio.getId())));
+        for (Map.Entry<Set<Revisio.Camp>, List<Revisio>> grup : perColumnes.entrySet()) {
+            LotSQL.executar(ACTUALITZACIONS.sql(grup.getKey()), grup.getValue(), RevisioDAOImpl::vincularCanvis);
+            for (Revisio revisio : grup.getValue()) {
+                revisio.netejarCanvis();
+                EntityCaches.REVISIONS.put(revisio.getId(), revisio);
+            }
+        }
+    }
+
+    /**
+     * Elimina diverses revisions pels seus IDs en lots.
+     *
+     * @param ids Els IDs de les revisions a eliminar.
+     * @throws DAOException si algun ID és null o si ocorre un error de base de dades.
+     */
+
+    @Override
+    public void deleteAll(Collection<Long> ids) throws DAOException {
+        if (ids.contains(null)) {
+            throw new DAOException(1, "L'ID de la revisió és null.");
+        }
+        ids.forEach(EntityCaches.REVISIONS::invalidate);
+        LotSQL.esborrar(DELETE_REVISIO, ids, (st, id) -> st.setLong(1, id));
+    }
+
+    /**
+     * Assigna les columnes d'una revisió als primers paràmetres d'un INSERT.
      *
-     * @param biciId El ID de la bicicleta a recuperar.
-     * @param con La connexió de base de dades activa.
-     * @return La bicicleta si es troba, o null si no es troba.
-     * @throws SQLException si ocorre un error de base de dades durant la consulta.
+     * @param st La sentència preparada.
+     * @param revisio La revisió.
+     * @return El nombre de paràmetres assignats.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
      */
 
-    private Bici getBici(Long biciId, Connection con) throws SQLException {
-        if (biciId == null) return null;
-        Bici bici = null;
-        try (PreparedStatement st = con.prepareStatement("SELECT * FROM Bicicletes WHERE bici_id = ?")) {
-            st.setLong(1, biciId);
+    private static int vincular(PreparedStatement st, Revisio revisio) throws SQLException {
+        int index = 1;
+        for (Revisio.Camp camp : Revisio.Camp.values()) {
+            vincularCamp(st, index++, revisio, camp);
+        }
+        return index - 1;
+    }
+
+    /**
+     * Assigna les columnes modificades d'una revisió i, al final, la seva ID, en l'ordre de l'UPDATE generat per a aquests camps.
+     *
+     * @param st La sentència preparada.
+     * @param revisio La revisió.
+     * @throws SQLException si ocorre un error assignant els paràmetres.
+     */
+
+    private static void vincularCanvis(PreparedStatement st, Revisio revisio) throws SQLException {
+        int index = 1;
+        for (Revisio.Camp camp : revisio.getCampsModificats()) {
+            vincularCamp(st, index++, revisio, camp);
+        }
+        st.setLong(index, revisio.getId());
+    }
+
+    private static void vincularCamp(PreparedStatement st, int index, Revisio revisio, Revisio.Camp camp) throws SQLException {
+        switch (camp) {
+            case DATA:
+                st.setObject(index, revisio.getData());
+                break;
+            case DESCRIPCIO:
+                st.setString(index, revisio.getDescripcio());
+                break;
+            case PREU:
+                st.setDouble(index, revisio.getPreu());
+                break;
+            case BICI:
+                st.setLong(index, revisio.getBici().getId());
+                break;
+        }
+    }
+
+    // Executa la consulta base amb una condició i un ordre, i construeix les revisions resultants.
+
+    private List<Revisio> consultar(String condicio, Object... parametres) throws DAOException {
+        List<Revisio> revisions = new ArrayList<>();
+        Map<Long, Bici> bicis = new HashMap<>();
+        Map<Long, Propietari> propietaris = new HashMap<>();
+
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement(SELECT_REVISIO_BICI + condicio)) {
+
+            for (int i = 0; i < parametres.length; i++) {
+                st.setObject(i + 1, parametres[i]);
+            }
             try (ResultSet rs = st.executeQuery()) {
-                if (rs.next()) {
-                    bici = new Bici(
-                            rs.getString("marca"),
-                            rs.getString("model"),
-                            rs.getInt("any_fabricacio"),
-                            rs.getDouble("pes"),
-                            Bici.TipoBici.valueOf(rs.getString("tipus")),
-                            Bici.Carboni.valueOf(rs.getString("carboni")),
-                            null
-                    );
-                    bici.setId(rs.getLong("bici_id"));
+                while (rs.next()) {
+                    revisions.add(EntityMapper.revisio(rs, bicis, propietaris));
                 }
             }
+        } catch (SQLException throwables) {
+            throw new DAOException(1, throwables.getMessage());
         }
-        return bici;
+        return revisions;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,300 @@
+package org.example.model.sessio;
+
+import org.example.model.daos.DAO;
+import org.example.model.daos.DAOAmbEsdeveniments;
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import org.example.model.exceptions.DAOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sessió de treball amb mapa d'identitats i unitat de treball.
+ *
+ * Mentre una sessió està oberta al fil actual, els DAOs retornen sempre la mateixa instància
+ * per a una mateixa clau primària: la primera vegada que es llegeix una fila es registra al
+ * mapa d'identitats, i les lectures posteriors de la mateixa fila reutilitzen aquella instància
+ * en lloc de crear-ne una de nova.
+ *
+ * La sessió recorda l'estat de cada entitat tal com es va llegir. En confirmar-la amb
+ * {@link #commit()} insereix les entitats registrades com a noves, actualitza només les
+ * entitats que han canviat des que es van llegir i elimina les registrades com a eliminades.
+ * Cada tipus d'entitat s'escriu per lots amb el seu DAO, en una transacció per lot.
+ *
+ * Una sessió està lligada al fil que l'obre i s'ha de tancar al mateix fil, preferiblement
+ * amb un try-with-resources.
+ */
+
+public class Sessio implements AutoCloseable {
+
+    private static final ThreadLocal<Sessio> actual = new ThreadLocal<>();
+
+    private final DAO<Propietari> propietariDAO;
+    private final DAO<Bici> biciDAO;
+    private final DAO<Revisio> revisioDAO;
+
+    private final Map<Class<?>, Map<Long, Object>> identitats = new HashMap<>();
+    private final Map<Object, Object[]> estatsLlegits = new IdentityHashMap<>();
+    // Conjunts per identitat: l'ID, i per tant el hashCode, d'una entitat nova canvia en inserir-la.
+
+    private final Set<Object> nous = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Object> eliminats = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Sessio anterior;
+
+    private Sessio(DAO<Propietari> propietariDAO, DAO<Bici> biciDAO, DAO<Revisio> revisioDAO) {
+        this.propietariDAO = propietariDAO;
+        this.biciDAO = biciDAO;
+        this.revisioDAO = revisioDAO;
+        this.anterior = actual.get();
+    }
+
+    /**
+     * Obre una sessió i la lliga al fil actual. Els DAOs s'embolcallen perquè les escriptures
+     * de {@link #commit()} emetin esdeveniments de JFR.
+     *
+     * @param propietariDAO DAO per escriure els propietaris en confirmar la sessió.
+     * @param biciDAO DAO per escriure les bicicletes en confirmar la sessió.
+     * @param revisioDAO DAO per escriure les revisions en confirmar la sessió.
+     * @return La sessió oberta.
+     */
+
+    public static Sessio obrir(DAO<Propietari> propietariDAO, DAO<Bici> biciDAO, DAO<Revisio> revisioDAO) {
+        Sessio sessio = new Sessio(DAOAmbEsdeveniments.embolcallar(propietariDAO),
+                DAOAmbEsdeveniments.embolcallar(biciDAO), DAOAmbEsdeveniments.embolcallar(revisioDAO));
+        actual.set(sessio);
+        return sessio;
+    }
+
+    /**
+     * Obté la sessió oberta al fil actual.
+     *
+     * @return La sessió, o null si no n'hi ha cap d'oberta.
+     */
+
+    public static Sessio actual() {
+        return actual.get();
+    }
+
+    /**
+     * Busca al mapa d'identitats la instància d'una entitat ja llegida en aquesta sessió.
+     *
+     * @param tipus La classe de l'entitat.
+     * @param id La clau primària.
+     * @param <T> El tipus d'entitat.
+     * @return La instància de la sessió, o null si encara no s'ha llegit.
+     */
+
+    public <T> T trobar(Class<T> tipus, Long id) {
+        Map<Long, Object> perId = identitats.get(tipus);
+        return perId == null ? null : tipus.cast(perId.get(id));
+    }
+
+    /**
+     * Registra una entitat acabada de llegir de la base de dades.
+     *
+     * Si la sessió ja tenia una instància amb la mateixa clau, es retorna aquella i la nova es descarta.
+     *
+     * @param tipus La classe de l'entitat.
+     * @param id La clau primària.
+     * @param entitat L'entitat llegida.
+     * @param <T> El tipus d'entitat.
+     * @return La instància que s'ha d'utilitzar dins de la sessió.
+     */
+
+    public <T> T registrarCarregat(Class<T> tipus, Long id, T entitat) {
+        if (entitat == null || id == null) return entitat;
+        Map<Long, Object> perId = identitats.computeIfAbsent(tipus, t -> new HashMap<>());
+        Object existent = perId.putIfAbsent(id, entitat);
+        if (existent != null) {
+            return tipus.cast(existent);
+        }
+        estatsLlegits.put(entitat, estat(entitat));
+        return entitat;
+    }
+
+    /**
+     * Registra una entitat nova, que s'inserirà en confirmar la sessió.
+     *
+     * @param entitat L'entitat a inserir.
+     */
+
+    public void registrarNou(Object entitat) {
+        comprovarTipus(entitat);
+        eliminats.remove(entitat);
+        nous.add(entitat);
+    }
+
+    /**
+     * Registra una entitat per eliminar-la en confirmar la sessió.
+     *
+     * @param entitat L'entitat a eliminar.
+     */
+
+    public void registrarEliminat(Object entitat) {
+        comprovarTipus(entitat);
+        if (nous.remove(entitat)) return;
+        eliminats.add(entitat);
+    }
+
+    /**
+     * Indica si una entitat llegida en aquesta sessió ha canviat des que es va llegir.
+     *
+     * @param entitat L'entitat.
+     * @return true si alguna de les seves columnes ha canviat.
+     */
+
+    public boolean esModificat(Object entitat) {
+        Object[] llegit = estatsLlegits.get(entitat);
+        return llegit != null && !Arrays.equals(llegit, estat(entitat));
+    }
+
+    /**
+     * Escriu a la base de dades els canvis acumulats a la sessió.
+     *
+     * Primer insereix les entitats noves (propietaris, bicicletes i revisions, en aquest ordre perquè
+     * les claus foranes ja existeixin), després actualitza les modificades i finalment elimina les
+     * registrades com a eliminades en l'ordre invers. Les entitats sense canvis no generen cap UPDATE.
+     *
+     * Cada grup que s'escriu correctament es dona per confirmat de seguida, de manera que si una
+     * escriptura falla, tornar a cridar commit() només reprèn els grups pendents.
+     *
+     * @throws DAOException si alguna escriptura falla; els lots ja confirmats no es desfan.
+     */
+
+    public void commit() throws DAOException {
+        List<Propietari> nousPropietaris = new ArrayList<>();
+        List<Bici> nousBicis = new ArrayList<>();
+        List<Revisio> nousRevisions = new ArrayList<>();
+        repartir(nous, nousPropietaris, nousBicis, nousRevisions);
+
+        List<Propietari> modPropietaris = new ArrayList<>();
+        List<Bici> modBicis = new ArrayList<>();
+        List<Revisio> modRevisions = new ArrayList<>();
+        List<Object> modificats = new ArrayList<>();
+        for (Object entitat : estatsLlegits.keySet()) {
+            if (!eliminats.contains(entitat) && esModificat(entitat)) {
+                modificats.add(entitat);
+            }
+        }
+        repartir(modificats, modPropietaris, modBicis, modRevisions);
+
+        List<Propietari> elimPropietaris = new ArrayList<>();
+        List<Bici> elimBicis = new ArrayList<>();
+        List<Revisio> elimRevisions = new ArrayList<>();
+        repartir(eliminats, elimPropietaris, elimBicis, elimRevisions);
+
+        if (!nousPropietaris.isEmpty()) propietariDAO.saveAll(nousPropietaris);
+        inserits(nousPropietaris);
+        if (!nousBicis.isEmpty()) biciDAO.saveAll(nousBicis);
+        inserits(nousBicis);
+        if (!nousRevisions.isEmpty()) revisioDAO.saveAll(nousRevisions);
+        inserits(nousRevisions);
+
+        if (!modPropietaris.isEmpty()) propietariDAO.updateAll(modPropietaris);
+        actualitzats(modPropietaris);
+        if (!modBicis.isEmpty()) biciDAO.updateAll(modBicis);
+        actualitzats(modBicis);
+        if (!modRevisions.isEmpty()) revisioDAO.updateAll(modRevisions);
+        actualitzats(modRevisions);
+
+        if (!elimRevisions.isEmpty()) revisioDAO.deleteAll(ids(elimRevisions));
+        esborrats(elimRevisions);
+        if (!elimBicis.isEmpty()) biciDAO.deleteAll(ids(elimBicis));
+        esborrats(elimBicis);
+        if (!elimPropietaris.isEmpty()) propietariDAO.deleteAll(ids(elimPropietaris));
+        esborrats(elimPropietaris);
+    }
+
+    // L'estat escrit passa a ser el nou estat de referència de la sessió.
+
+    private void inserits(Collection<?> entitats) {
+        for (Object entitat : entitats) {
+            nous.remove(entitat);
+            registrarCarregat(tipus(entitat), id(entitat), entitat);
+        }
+    }
+
+    private void actualitzats(Collection<?> entitats) {
+        for (Object entitat : entitats) {
+            estatsLlegits.put(entitat, estat(entitat));
+        }
+    }
+
+    private void esborrats(Collection<?> entitats) {
+        for (Object entitat : entitats) {
+            eliminats.remove(entitat);
+            estatsLlegits.remove(entitat);
+            Map<Long, Object> perId = identitats.get(tipus(entitat));
+            if (perId != null) perId.remove(id(entitat));
+        }
+    }
+
+    /**
+     * Tanca la sessió i la deslliga del fil actual. Els canvis no confirmats es descarten.
+     */
+
+    @Override
+    public void close() {
+        if (actual.get() == this) {
+            if (anterior != null) actual.set(anterior);
+            else actual.remove();
+        }
+    }
+
+    private static void comprovarTipus(Object entitat) {
+        if (!(entitat instanceof Propietari || entitat instanceof Bici || entitat instanceof Revisio)) {
+            throw new IllegalArgumentException("Entitat no suportada: " + entitat);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> tipus(Object entitat) {
+        return (Class<T>) entitat.getClass();
+    }
+
+    private static Long id(Object entitat) {
+        if (entitat instanceof Propietari) return ((Propietari) entitat).getId();
+        if (entitat instanceof Bici) return ((Bici) entitat).getId();
+        return ((Revisio) entitat).getId();
+    }
+
+    private static List<Long> ids(Collection<?> entitats) {
+        List<Long> ids = new ArrayList<>();
+        for (Object entitat : entitats) ids.add(id(entitat));
+        return ids;
+    }
+
+    private static void repartir(Iterable<Object> entitats, List<Propietari> propietaris, List<Bici> bicis, List<Revisio> revisions) {
+        for (Object entitat : entitats) {
+            if (entitat instanceof Propietari) propietaris.add((Propietari) entitat);
+            else if (entitat instanceof Bici) bicis.add((Bici) entitat);
+            else revisions.add((Revisio) entitat);
+        }
+    }
+
+    // Valors de les columnes persistents d'una entitat, per detectar-ne els canvis.
+
+    private static Object[] estat(Object entitat) {
+        if (entitat instanceof Propietari) {
+            Propietari p = (Propietari) entitat;
+            return new Object[] { p.getNom(), p.getCognoms(), p.getTelefon(), p.getEmail() };
+        }
+        if (entitat instanceof Bici) {
+            Bici b = (Bici) entitat;
+            return new Object[] { b.getMarca(), b.getModelBici(), b.getAnyFabricacio(), b.getPes(),
+                    b.getTipo(), b.getCarboni(), b.getPropietari() == null ? null : b.getPropietari().getId() };
+        }
+        Revisio r = (Revisio) entitat;
+        return new Object[] { r.getData(), r.getDescripcio(), r.getPreu(),
+                r.getBici() == null ? null : r.getBici().getId() };
+    }
+}
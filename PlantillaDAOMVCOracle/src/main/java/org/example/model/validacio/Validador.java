@@ -0,0 +1,126 @@
+package org.example.model.validacio;
+
+import org.example.model.exceptions.DAOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Conjunt de regles de validació d'un tipus d'entitat.
+ *
+ * Cada regla té associat el codi de {@link DAOException} que es llança quan no es compleix.
+ * Les regles s'avaluen en l'ordre en què s'han afegit. Un validador és immutable i es pot
+ * compartir entre fils; les expressions regulars es compilen una sola vegada, en crear-lo.
+ *
+ * @param <T> El tipus d'entitat a validar.
+ */
+
+public final class Validador<T> {
+
+    private final List<Regla<T>> regles;
+
+    private Validador(List<Regla<T>> regles) {
+        this.regles = regles;
+    }
+
+    /**
+     * Crea un validador sense cap regla.
+     *
+     * @param <T> El tipus d'entitat a validar.
+     * @return El validador buit.
+     */
+
+    public static <T> Validador<T> nou() {
+        return new Validador<>(List.of());
+    }
+
+    /**
+     * Retorna un validador amb una regla més.
+     *
+     * @param condicio Condició que ha de complir l'entitat.
+     * @param codi Codi d'error si no la compleix.
+     * @return El nou validador.
+     */
+
+    public Validador<T> regla(Predicate<T> condicio, int codi) {
+        List<Regla<T>> noves = new ArrayList<>(regles);
+        noves.add(new Regla<>(condicio, codi));
+        return new Validador<>(List.copyOf(noves));
+    }
+
+    /**
+     * Retorna un validador amb una regla més per a un camp de text obligatori,
+     * que no pot ser buit i ha de coincidir sencer amb una expressió regular.
+     *
+     * @param camp Funció que retorna el camp de l'entitat.
+     * @param patro L'expressió regular, ja compilada.
+     * @param codi Codi d'error si el camp no és vàlid.
+     * @return El nou validador.
+     */
+
+    public Validador<T> text(Function<T, String> camp, Pattern patro, int codi) {
+        return regla(entitat -> {
+            String valor = camp.apply(entitat);
+            return valor != null && !valor.isBlank() && patro.matcher(valor).matches();
+        }, codi);
+    }
+
+    /**
+     * Valida una entitat i s'atura a la primera regla que no compleix.
+     *
+     * @param entitat L'entitat a validar.
+     * @throws DAOException amb el codi de la primera regla incomplerta.
+     */
+
+    public void validar(T entitat) throws DAOException {
+        for (Regla<T> regla : regles) {
+            if (!regla.condicio().test(entitat)) {
+                throw new DAOException(regla.codi());
+            }
+        }
+    }
+
+    /**
+     * Retorna els codis de totes les regles que una entitat no compleix.
+     *
+     * @param entitat L'entitat a validar.
+     * @return Els codis d'error, en l'ordre de les regles; buit si l'entitat és vàlida.
+     */
+
+    public List<Integer> errors(T entitat) {
+        List<Integer> codis = new ArrayList<>();
+        for (Regla<T> regla : regles) {
+            if (!regla.condicio().test(entitat)) {
+                codis.add(regla.codi());
+            }
+        }
+        return codis;
+    }
+
+    /**
+     * Valida moltes entitats d'una passada, per exemple les files d'una importació,
+     * i retorna totes les regles incomplertes en lloc d'aturar-se a la primera.
+     *
+     * @param entitats Les entitats a validar.
+     * @return Una violació per cada regla incomplerta de cada entitat; buida si totes són vàlides.
+     */
+
+    public List<Violacio<T>> validarTots(Iterable<T> entitats) {
+        List<Violacio<T>> violacions = new ArrayList<>();
+        int posicio = 0;
+        for (T entitat : entitats) {
+            for (Regla<T> regla : regles) {
+                if (!regla.condicio().test(entitat)) {
+                    violacions.add(new Violacio<>(posicio, entitat, regla.codi()));
+                }
+            }
+            posicio++;
+        }
+        return violacions;
+    }
+
+    private record Regla<T>(Predicate<T> condicio, int codi) {
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.model.validacio;
+
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+/**
+ * Regles de validació de cada entitat, amb els codis d'error de {@link org.example.model.exceptions.DAOException}:
+ * 11-14 per als propietaris, 21-24 per a les bicicletes i 31-33 per a les revisions.
+ */
+
+public final class Validadors {
+
+    // Paraules que comencen per majúscula i continuen en minúscules, separades per espais.
+
+    private static final Pattern NOM_PROPI = Pattern.compile("^[A-ZÀ-ÚÑÇ][a-zà-úñç]*(\\s+[A-ZÀ-ÚÑÇ][a-zà-úñç]*)*$");
+    private static final Pattern TELEFON = Pattern.compile("^[0-9]{9}$");
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+
+    public static final Validador<Propietari> PROPIETARI = Validador.<Propietari>nou()
+            .text(Propietari::getNom, NOM_PROPI, 11)
+            .text(Propietari::getCognoms, NOM_PROPI, 12)
+            .text(Propietari::getTelefon, TELEFON, 13)
+            .text(Propietari::getEmail, EMAIL, 14);
+
+    public static final Validador<Bici> BICI = Validador.<Bici>nou()
+            .text(Bici::getMarca, NOM_PROPI, 21)
+            .text(Bici::getModelBici, NOM_PROPI, 22)
+            .regla(bici -> bici.getAnyFabricacio() >= 1990 && bici.getAnyFabricacio() <= LocalDate.now().getYear(), 23)
+            .regla(bici -> bici.getPes() > 0, 24);
+
+    public static final Validador<Revisio> REVISIO = Validador.<Revisio>nou()
+            .regla(revisio -> revisio.getData() != null, 31)
+            .text(Revisio::getDescripcio, NOM_PROPI, 32)
+            .regla(revisio -> revisio.getPreu() > 0, 33);
+
+    private Validadors() {
+    }
+}
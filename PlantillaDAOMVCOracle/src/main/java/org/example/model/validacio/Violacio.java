@@ -0,0 +1,25 @@
+package org.example.model.validacio;
+
+import org.example.model.exceptions.DAOException;
+
+/**
+ * Regla incomplerta per una entitat dins d'una validació en bloc.
+ *
+ * @param posicio Posició de l'entitat dins de les entitats validades, començant per 0.
+ * @param entitat L'entitat que no compleix la regla.
+ * @param codi Codi de {@link DAOException} de la regla.
+ * @param <T> El tipus d'entitat.
+ */
+
+public record Violacio<T>(int posicio, T entitat, int codi) {
+
+    /**
+     * Retorna el missatge d'error associat al codi de la regla.
+     *
+     * @return El missatge.
+     */
+
+    public String missatge() {
+        return DAOException.missatge(codi);
+    }
+}
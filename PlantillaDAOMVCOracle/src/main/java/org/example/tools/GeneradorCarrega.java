@@ -0,0 +1,259 @@
+package org.example.tools;
+
+import org.example.model.daos.DAO;
+import org.example.model.daos.DAOAmbEsdeveniments;
+import org.example.model.daos.Pagina;
+import org.example.model.entities.Bici;
+import org.example.model.entities.Propietari;
+import org.example.model.entities.Revisio;
+import org.example.model.exceptions.DAOException;
+import org.example.model.impls.BiciDAOImpl;
+import org.example.model.impls.PropietariDAOImpl;
+import org.example.model.impls.RevisioDAOImpl;
+import org.example.utils.DBUtil;
+import org.example.utils.HistogramaLatencia;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Genera una càrrega mixta de lectures i escriptures sobre els DAOs i mostra l'histograma de latències de cada operació.
+ *
+ * Cada fil executa operacions sense pausa durant el temps indicat. Les lectures imiten la interfície:
+ * consultes per ID, pàgines ordenades, cerques per prefix com les dels comboBox i l'historial d'una bicicleta.
+ * Les escriptures modifiquen bicicletes i afegeixen revisions, que el mateix fil esborra després
+ * perquè la mida de les taules no creixi. Les primeres operacions (--escalfament) no es compten.
+ *
+ * Les latències inclouen l'espera d'una connexió lliure: amb més fils que db.pool.maxSize, es veu la contenció del pool.
+ * Les memòries cau d'entitats es desactiven si no s'indica --cache true, perquè les consultes per ID mesurin Oracle
+ * i no encerts a memòria.
+ *
+ * Ús: java -cp ... org.example.tools.GeneradorCarrega [--fils 8] [--durada 60] [--escalfament 10] [--escriptures 20] [--llavor 42] [--cache false]
+ */
+
+public final class GeneradorCarrega {
+
+    private static final int MIDA_PAGINA = 50;
+    private static final int MAX_CERCA = 21;
+    private static final String[] PREFIXOS = {"A", "B", "C", "M", "P", "S", "Ma", "Pu", "Or", "Tr"};
+
+    /**
+     * Operacions de la càrrega. Les lectures es trien amb el mateix pes entre elles, i també les escriptures.
+     */
+
+    private enum Operacio {
+        GET_PROPIETARI(false),
+        GET_BICI(false),
+        PAGINA_BICIS(false),
+        CERCA_PROPIETARIS(false),
+        COMPTAR_BICIS(false),
+        DARRERES_REVISIONS(false),
+        MODIFICAR_BICI(true),
+        AFEGIR_REVISIO(true),
+        ESBORRAR_REVISIO(true);
+
+        private final boolean escriptura;
+
+        Operacio(boolean escriptura) {
+            this.escriptura = escriptura;
+        }
+    }
+
+    private static final Operacio[] LECTURES = {
+            Operacio.GET_PROPIETARI, Operacio.GET_BICI, Operacio.PAGINA_BICIS,
+            Operacio.CERCA_PROPIETARIS, Operacio.COMPTAR_BICIS, Operacio.DARRERES_REVISIONS
+    };
+    private static final Operacio[] ESCRIPTURES = {Operacio.MODIFICAR_BICI, Operacio.AFEGIR_REVISIO, Operacio.ESBORRAR_REVISIO};
+
+    // Els DAOs s'embolcallen com a l'aplicació, perquè una gravació JFR de la càrrega inclogui els seus esdeveniments.
+    // getDarreres() no és de DAO i es crida directament sobre la implementació.
+
+    private final RevisioDAOImpl revisions = new RevisioDAOImpl();
+    private final DAO<Propietari> propietariDAO = DAOAmbEsdeveniments.embolcallar(new PropietariDAOImpl());
+    private final DAO<Bici> biciDAO = DAOAmbEsdeveniments.embolcallar(new BiciDAOImpl());
+    private final DAO<Revisio> revisioDAO = DAOAmbEsdeveniments.embolcallar(revisions);
+
+    private final Map<Operacio, HistogramaLatencia> latencies = new EnumMap<>(Operacio.class);
+    private final Map<Operacio, AtomicLong> errors = new EnumMap<>(Operacio.class);
+
+    private final int percentatgeEscriptures;
+    private final long[] rangPropietaris;
+    private final long[] rangBicis;
+    private final long iniciMesura;
+    private final long fi;
+
+    private GeneradorCarrega(int percentatgeEscriptures, int escalfamentS, int duradaS) throws SQLException {
+        for (Operacio operacio : Operacio.values()) {
+            latencies.put(operacio, new HistogramaLatencia());
+            errors.put(operacio, new AtomicLong());
+        }
+        this.percentatgeEscriptures = percentatgeEscriptures;
+        this.rangPropietaris = rang("Propietaris", "propietari_id");
+        this.rangBicis = rang("Bicicletes", "bici_id");
+        long ara = System.nanoTime();
+        this.iniciMesura = ara + escalfamentS * 1_000_000_000L;
+        this.fi = iniciMesura + duradaS * 1_000_000_000L;
+    }
+
+    /**
+     * Executa la càrrega indicada a la línia de comandes i n'escriu el resum.
+     *
+     * @param args Opcions --fils, --durada (segons), --escalfament (segons), --escriptures (percentatge), --llavor i --cache.
+     */
+
+    public static void main(String[] args) {
+        try {
+            Opcions opcions = Opcions.llegir(args);
+            int fils = Math.max(1, opcions.getInt("fils", 8));
+            int duradaS = Math.max(1, opcions.getInt("durada", 60));
+            int escalfamentS = opcions.getInt("escalfament", 10);
+            int escriptures = Math.min(100, opcions.getInt("escriptures", 20));
+            int llavor = opcions.getInt("llavor", 42);
+            boolean cache = opcions.getBoolean("cache", false);
+
+            // S'ha de fer abans que cap DAO carregui EntityCaches, que llegeix la configuració un sol cop.
+
+            for (String entitat : new String[] {"propietari", "bici", "revisio"}) {
+                System.setProperty("cache." + entitat + ".enabled", String.valueOf(cache));
+            }
+
+            GeneradorCarrega carrega = new GeneradorCarrega(escriptures, escalfamentS, duradaS);
+            System.out.printf("%d fils, %d s d'escalfament, %d s de mesura, %d %% d'escriptures, memòries cau %s%n",
+                    fils, escalfamentS, duradaS, escriptures, cache ? "activades" : "desactivades");
+
+            Thread[] treballadors = new Thread[fils];
+            for (int i = 0; i < fils; i++) {
+                SplittableRandom aleatori = new SplittableRandom(llavor + i);
+                treballadors[i] = new Thread(() -> carrega.treballar(aleatori), "carrega-" + i);
+                treballadors[i].start();
+            }
+            for (Thread treballador : treballadors) {
+                treballador.join();
+            }
+            carrega.informe(duradaS);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (SQLException e) {
+            System.err.println("Error preparant la càrrega: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            DBUtil.shutdown();
+        }
+    }
+
+    // Bucle de cada fil: tria una operació, l'executa i en registra la latència si ja ha acabat l'escalfament.
+
+    private void treballar(SplittableRandom aleatori) {
+        Deque<Long> revisionsAfegides = new ArrayDeque<>();
+        long ara;
+        while ((ara = System.nanoTime()) < fi) {
+            Operacio operacio = aleatori.nextInt(100) < percentatgeEscriptures
+                    ? ESCRIPTURES[aleatori.nextInt(ESCRIPTURES.length)]
+                    : LECTURES[aleatori.nextInt(LECTURES.length)];
+            if (operacio == Operacio.ESBORRAR_REVISIO && revisionsAfegides.isEmpty()) {
+                operacio = Operacio.AFEGIR_REVISIO;
+            }
+
+            try {
+                executar(operacio, aleatori, revisionsAfegides);
+                if (ara >= iniciMesura) {
+                    latencies.get(operacio).registrar(System.nanoTime() - ara);
+                }
+            } catch (DAOException | RuntimeException e) {
+                errors.get(operacio).incrementAndGet();
+            }
+        }
+
+        // Esborra les revisions que el fil ha afegit i encara no ha esborrat.
+
+        try {
+            revisioDAO.deleteAll(revisionsAfegides);
+        } catch (DAOException e) {
+            System.err.println("No s'han pogut esborrar les revisions afegides: " + e.getMessage());
+        }
+    }
+
+    private void executar(Operacio operacio, SplittableRandom aleatori, Deque<Long> revisionsAfegides) throws DAOException {
+        switch (operacio) {
+            case GET_PROPIETARI -> propietariDAO.get(aleatori.nextLong(rangPropietaris[0], rangPropietaris[1] + 1));
+            case GET_BICI -> biciDAO.get(idBici(aleatori));
+            case PAGINA_BICIS -> biciDAO.getPage(Pagina.perOffset(aleatori.nextInt(20) * MIDA_PAGINA, MIDA_PAGINA)
+                    .ordenadaPer(aleatori.nextBoolean() ? "marca" : "model", aleatori.nextBoolean()));
+            case CERCA_PROPIETARIS -> propietariDAO.getPage(Pagina.perOffset(0, MAX_CERCA)
+                    .ordenadaPer("nom", true)
+                    .filtradaPer(PREFIXOS[aleatori.nextInt(PREFIXOS.length)]));
+            case COMPTAR_BICIS -> biciDAO.count(PREFIXOS[aleatori.nextInt(PREFIXOS.length)]);
+            case DARRERES_REVISIONS -> revisions.getDarreres(idBici(aleatori), 5);
+            case MODIFICAR_BICI -> {
+                // Amb --cache true, diversos fils poden rebre la mateixa instància: es modifica una còpia.
+
+                Bici bici = biciDAO.get(idBici(aleatori));
+                if (bici != null) {
+                    Bici copia = bici.copia();
+                    copia.setPes(bici.getPes() < 20 ? bici.getPes() + 0.5 : bici.getPes() - 0.5);
+                    biciDAO.update(copia);
+                }
+            }
+            case AFEGIR_REVISIO -> {
+                Bici bici = biciDAO.get(idBici(aleatori));
+                if (bici != null) {
+                    Revisio revisio = new Revisio(LocalDate.now(), "Revisió General", 10 + aleatori.nextInt(200), bici);
+                    revisioDAO.save(revisio);
+                    revisionsAfegides.add(revisio.getId());
+                }
+            }
+            case ESBORRAR_REVISIO -> revisioDAO.delete(revisionsAfegides.poll());
+        }
+    }
+
+    private long idBici(SplittableRandom aleatori) {
+        return aleatori.nextLong(rangBicis[0], rangBicis[1] + 1);
+    }
+
+    private void informe(int duradaS) {
+        System.out.printf("%n%-20s %9s %9s %9s %9s %9s %9s %9s %10s %7s%n",
+                "operacio", "n", "ops/s", "mitjana", "p50", "p90", "p99", "p99.9", "max", "errors");
+        HistogramaLatencia total = new HistogramaLatencia();
+        long totalErrors = 0;
+        for (Operacio operacio : Operacio.values()) {
+            HistogramaLatencia h = latencies.get(operacio);
+            total.afegir(h);
+            totalErrors += errors.get(operacio).get();
+            fila(operacio.name() + (operacio.escriptura ? " (E)" : ""), h, duradaS, errors.get(operacio).get());
+        }
+        fila("TOTAL", total, duradaS, totalErrors);
+        System.out.println("(latències en µs; E = escriptura)");
+    }
+
+    private static void fila(String nom, HistogramaLatencia h, int duradaS, long errors) {
+        System.out.printf("%-20s %9d %9.1f %9.0f %9d %9d %9d %9d %10d %7d%n",
+                nom, h.getTotal(), (double) h.getTotal() / duradaS, h.getMitjana(),
+                h.getPercentil(50), h.getPercentil(90), h.getPercentil(99), h.getPercentil(99.9), h.getMaxim(), errors);
+    }
+
+    // Rang d'IDs d'una taula; els IDs buits donen consultes sense resultat, com passa amb files esborrades.
+
+    private static long[] rang(String taula, String columnaId) throws SQLException {
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement("SELECT MIN(" + columnaId + "), MAX(" + columnaId + ") FROM " + taula);
+             ResultSet rs = st.executeQuery()) {
+            rs.next();
+            if (rs.getObject(1) == null) {
+                throw new IllegalArgumentException("La taula " + taula + " és buida; executa abans GeneradorDades");
+            }
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.example.tools;
+
+import org.example.model.entities.Bici;
+import org.example.utils.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Omple les taules de PLSQL/pl.sql amb propietaris, bicicletes i revisions generats.
+ *
+ * Les dades compleixen les regles de {@link org.example.model.validacio.Validadors} i tenen distribucions
+ * semblants a les reals: la majoria de propietaris tenen una o dues bicicletes i uns quants en tenen moltes,
+ * les bicicletes recents són més freqüents que les antigues, el pes i el carboni depenen del tipus,
+ * i els preus de les revisions segueixen una distribució lognormal.
+ *
+ * Les files s'insereixen directament amb lots JDBC (db.batchSize), confirmant cada lot, i no passen pels DAOs
+ * perquè no omplin les memòries cau d'entitats. Els IDs generats es llegeixen després de cada taula.
+ *
+ * Ús: java -cp ... org.example.tools.GeneradorDades --propietaris 1000000 --bicis 2000000 --revisions 8000000 [--llavor 42]
+ */
+
+public final class GeneradorDades {
+
+    private static final String INSERT_PROPIETARI = "INSERT INTO Propietaris (nom, cognoms, telefon, email) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_BICI =
+            "INSERT INTO Bicicletes (marca, model, any_fabricacio, pes, tipus, carboni, propietari_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_REVISIO = "INSERT INTO Revisions (data, descripcio, preu, bici_id) VALUES (?, ?, ?, ?)";
+
+    private static final int PRIMER_ANY = 1990;
+    private static final int FILES_PER_INFORME = 100_000;
+
+    private static final String[] NOMS = {
+            "Anna", "Marc", "Laia", "Pau", "Júlia", "Jordi", "Marta", "Joan", "Núria", "Pere",
+            "Clara", "Arnau", "Carla", "Oriol", "Mireia", "Albert", "Sílvia", "Xavier", "Berta", "Roger"
+    };
+    private static final String[] COGNOMS = {
+            "Puig", "Vidal", "Soler", "Ferrer", "Serra", "Roca", "Pons", "Mas", "Font", "Vila",
+            "Bosch", "Casals", "Riera", "Sala", "Martí", "Camps", "Prat", "Costa", "Torres", "Garcia"
+    };
+    private static final String[] DOMINIS = {"gmail.com", "hotmail.com", "yahoo.es", "outlook.com", "telefonica.net"};
+    private static final String[] MARQUES = {"Orbea", "Trek", "Specialized", "Giant", "Canyon", "Scott", "Cube", "Cannondale", "Merida", "Bianchi"};
+    private static final String[] MODELS = {
+            "Occam", "Orca", "Alma", "Terra", "Marlin", "Domane", "Checkpoint", "Tarmac", "Diverge", "Levo",
+            "Spark", "Scale", "Addict", "Reaction", "Stereo", "Synapse", "Topstone", "Scultura", "Oltre", "Grail"
+    };
+    private static final String[] DESCRIPCIONS = {
+            "Revisió General", "Canvi De Cadena", "Ajust De Frens", "Canvi De Pneumàtics", "Purgat De Frens",
+            "Manteniment De Suspensió", "Centrat De Rodes", "Canvi De Cables", "Revisió De Bateria", "Neteja I Greixatge"
+    };
+
+    // Pes de cada tipus en el parc de bicicletes, probabilitat de quadre de carboni i pes mitjà en quilos.
+
+    private static final Bici.TipoBici[] TIPUS = Bici.TipoBici.values();
+    private static final double[] PROPORCIO_TIPUS = {0.35, 0.30, 0.20, 0.15};
+    private static final double[] PROPORCIO_CARBONI = {0.35, 0.60, 0.40, 0.10};
+    private static final double[] PES_MITJA = {13.0, 8.5, 10.0, 22.0};
+
+    private static final String[] NOMS_CORREU = senseAccents(NOMS);
+    private static final String[] COGNOMS_CORREU = senseAccents(COGNOMS);
+
+    private final SplittableRandom aleatori;
+    private final int anyActual = LocalDate.now().getYear();
+    private final LocalDate avui = LocalDate.now();
+
+    private GeneradorDades(long llavor) {
+        this.aleatori = new SplittableRandom(llavor);
+    }
+
+    /**
+     * Genera les dades indicades a la línia de comandes.
+     *
+     * @param args Opcions --propietaris, --bicis, --revisions i --llavor.
+     */
+
+    public static void main(String[] args) {
+        try {
+            Opcions opcions = Opcions.llegir(args);
+            int propietaris = opcions.getInt("propietaris", 100_000);
+            int bicis = opcions.getInt("bicis", 2 * propietaris);
+            int revisions = opcions.getInt("revisions", 4 * bicis);
+            GeneradorDades generador = new GeneradorDades(opcions.getInt("llavor", 42));
+
+            long[] idsPropietaris = generador.inserirPropietaris(propietaris);
+            if (bicis > 0 && idsPropietaris.length == 0) {
+                throw new IllegalArgumentException("Calen propietaris per generar bicicletes");
+            }
+            short[] anys = new short[bicis];
+            long[] idsBicis = generador.inserirBicis(bicis, idsPropietaris, anys);
+            if (revisions > 0 && idsBicis.length == 0) {
+                throw new IllegalArgumentException("Calen bicicletes per generar revisions");
+            }
+            generador.inserirRevisions(revisions, idsBicis, anys);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (SQLException e) {
+            System.err.println("Error generant les dades: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            DBUtil.shutdown();
+        }
+    }
+
+    private long[] inserirPropietaris(int quantitat) throws SQLException {
+        long despresDe = maxId("Propietaris", "propietari_id");
+
+        // El número del correu continua després de la ID més alta, perquè tornar a executar el generador
+        // no repeteixi correus d'una execució anterior (l'email és únic, vegeu pl.sql).
+
+        inserir("Propietaris", INSERT_PROPIETARI, quantitat, (st, i) -> {
+            int nom = aleatori.nextInt(NOMS.length);
+            int cognom1 = aleatori.nextInt(COGNOMS.length);
+            int cognom2 = aleatori.nextInt(COGNOMS.length);
+            st.setString(1, NOMS[nom]);
+            st.setString(2, COGNOMS[cognom1] + " " + COGNOMS[cognom2]);
+            st.setString(3, String.valueOf((aleatori.nextDouble() < 0.8 ? 600_000_000 : 700_000_000) + aleatori.nextInt(100_000_000)));
+            st.setString(4, NOMS_CORREU[nom] + "." + COGNOMS_CORREU[cognom1] + (despresDe + 1 + i) + "@" + DOMINIS[aleatori.nextInt(DOMINIS.length)]);
+        });
+        return ids("Propietaris", "propietari_id", despresDe, quantitat);
+    }
+
+    // Els propietaris amb índex baix acumulen més bicicletes (índex = n * u^3), com en un parc real.
+
+    private long[] inserirBicis(int quantitat, long[] propietaris, short[] anys) throws SQLException {
+        long despresDe = maxId("Bicicletes", "bici_id");
+        inserir("Bicicletes", INSERT_BICI, quantitat, (st, i) -> {
+            int tipus = triar(PROPORCIO_TIPUS);
+            boolean carboni = aleatori.nextDouble() < PROPORCIO_CARBONI[tipus];
+            double pes = PES_MITJA[tipus] * (carboni ? 0.85 : 1.0) + aleatori.nextGaussian() * 1.2;
+            double u = aleatori.nextDouble();
+            anys[i] = (short) (anyActual - (int) ((anyActual - PRIMER_ANY + 1) * u * u));
+
+            st.setString(1, MARQUES[aleatori.nextInt(MARQUES.length)]);
+            st.setString(2, MODELS[aleatori.nextInt(MODELS.length)]);
+            st.setInt(3, anys[i]);
+            st.setDouble(4, arrodonir(Math.max(5, Math.min(35, pes))));
+            st.setString(5, TIPUS[tipus].name());
+            st.setString(6, carboni ? Bici.Carboni.SI.name() : Bici.Carboni.NO.name());
+            st.setLong(7, propietaris[esbiaixat(propietaris.length, 3)]);
+        });
+        return ids("Bicicletes", "bici_id", despresDe, quantitat);
+    }
+
+    // Les revisions es concentren en algunes bicicletes i en els darrers anys, sempre després de l'any de fabricació.
+
+    private void inserirRevisions(int quantitat, long[] bicis, short[] anys) throws SQLException {
+        inserir("Revisions", INSERT_REVISIO, quantitat, (st, i) -> {
+            int bici = esbiaixat(bicis.length, 2);
+            LocalDate desDe = LocalDate.of(anys[bici], 1, 1);
+            long dies = ChronoUnit.DAYS.between(desDe, avui);
+            double u = aleatori.nextDouble();
+            double preu = Math.exp(Math.log(60) + 0.7 * aleatori.nextGaussian());
+
+            st.setObject(1, desDe.plusDays((long) (dies * (1 - u * u))));
+            st.setString(2, DESCRIPCIONS[aleatori.nextInt(DESCRIPCIONS.length)]);
+            st.setDouble(3, arrodonir(Math.max(5, Math.min(999.99, preu))));
+            st.setLong(4, bicis[bici]);
+        });
+    }
+
+    /**
+     * Assigna els paràmetres de la fila i-èssima d'un INSERT.
+     */
+
+    @FunctionalInterface
+    private interface Fila {
+        void vincular(PreparedStatement st, int i) throws SQLException;
+    }
+
+    // Insereix les files en lots de db.batchSize i confirma cada lot; si un lot falla, només es desfà aquest.
+
+    private void inserir(String taula, String sql, int quantitat, Fila fila) throws SQLException {
+        int midaLot = Math.max(1, DBUtil.getIntProperty("db.batchSize", 500));
+        long inici = System.nanoTime();
+
+        try (Connection con = DBUtil.getConnection(); PreparedStatement st = con.prepareStatement(sql)) {
+            con.setAutoCommit(false);
+            try {
+                for (int i = 0; i < quantitat; i++) {
+                    fila.vincular(st, i);
+                    st.addBatch();
+                    if ((i + 1) % midaLot == 0 || i + 1 == quantitat) {
+                        st.executeBatch();
+                        con.commit();
+                    }
+                    if ((i + 1) % FILES_PER_INFORME == 0) {
+                        System.out.printf("%s: %d/%d%n", taula, i + 1, quantitat);
+                    }
+                }
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+
+        double segons = (System.nanoTime() - inici) / 1e9;
+        System.out.printf("%s: %d files en %.1f s (%.0f files/s)%n", taula, quantitat, segons, quantitat / Math.max(segons, 1e-9));
+    }
+
+    private long maxId(String taula, String columnaId) throws SQLException {
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement("SELECT NVL(MAX(" + columnaId + "), 0) FROM " + taula);
+             ResultSet rs = st.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // Llegeix els IDs assignats a les files que s'acaben d'inserir, en l'ordre d'inserció.
+
+    private long[] ids(String taula, String columnaId, long despresDe, int quantitat) throws SQLException {
+        long[] ids = new long[quantitat];
+        int n = 0;
+        try (Connection con = DBUtil.getConnection();
+             PreparedStatement st = con.prepareStatement("SELECT " + columnaId + " FROM " + taula + " WHERE " + columnaId + " > ? ORDER BY " + columnaId)) {
+            st.setFetchSize(DBUtil.getIntProperty("db.fetchSize", 500));
+            st.setLong(1, despresDe);
+            try (ResultSet rs = st.executeQuery()) {
+                while (n < quantitat && rs.next()) {
+                    ids[n++] = rs.getLong(1);
+                }
+            }
+        }
+        if (n != quantitat) {
+            throw new SQLException("S'esperaven " + quantitat + " files noves a " + taula + " i n'hi ha " + n);
+        }
+        return ids;
+    }
+
+    private int triar(double[] proporcions) {
+        double u = aleatori.nextDouble();
+        for (int i = 0; i < proporcions.length - 1; i++) {
+            u -= proporcions[i];
+            if (u < 0) return i;
+        }
+        return proporcions.length - 1;
+    }
+
+    private int esbiaixat(int n, double exponent) {
+        return (int) (n * Math.pow(aleatori.nextDouble(), exponent));
+    }
+
+    private static double arrodonir(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    private static String[] senseAccents(String[] paraules) {
+        String[] resultat = new String[paraules.length];
+        for (int i = 0; i < paraules.length; i++) {
+            resultat[i] = Normalizer.normalize(paraules[i], Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase();
+        }
+        return resultat;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opcions de línia de comandes de les eines, en la forma --nom valor.
+ */
+
+final class Opcions {
+
+    private final Map<String, String> valors = new HashMap<>();
+
+    private Opcions() {
+    }
+
+    /**
+     * Llegeix les opcions dels arguments.
+     *
+     * @param args Els arguments del main.
+     * @return Les opcions llegides.
+     * @throws IllegalArgumentException si un argument no és una opció o no té valor.
+     */
+
+    static Opcions llegir(String[] args) {
+        Opcions opcions = new Opcions();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Argument no vàlid: " + args[i]);
+            }
+            opcions.valors.put(args[i].substring(2), args[i + 1]);
+        }
+        return opcions;
+    }
+
+    /**
+     * Retorna el valor enter d'una opció.
+     *
+     * @param nom El nom de l'opció, sense els guions.
+     * @param perDefecte El valor si l'opció no s'ha indicat.
+     * @return El valor de l'opció.
+     * @throws IllegalArgumentException si el valor no és un enter no negatiu.
+     */
+
+    int getInt(String nom, int perDefecte) {
+        String valor = valors.get(nom);
+        if (valor == null) return perDefecte;
+        try {
+            int enter = Integer.parseInt(valor.replace("_", ""));
+            if (enter < 0) throw new NumberFormatException();
+            return enter;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("L'opció --" + nom + " ha de ser un enter no negatiu: " + valor);
+        }
+    }
+
+    /**
+     * Retorna el valor booleà d'una opció.
+     *
+     * @param nom El nom de l'opció, sense els guions.
+     * @param perDefecte El valor si l'opció no s'ha indicat.
+     * @return El valor de l'opció.
+     * @throws IllegalArgumentException si el valor no és true ni false.
+     */
+
+    boolean getBoolean(String nom, boolean perDefecte) {
+        String valor = valors.get(nom);
+        if (valor == null) return perDefecte;
+        if (valor.equalsIgnoreCase("true")) return true;
+        if (valor.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException("L'opció --" + nom + " ha de ser true o false: " + valor);
+    }
+}
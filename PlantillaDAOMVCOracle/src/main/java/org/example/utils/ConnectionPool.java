@@ -0,0 +1,369 @@
+package org.example.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de connexions fitat que reutilitza les sessions físiques d'Oracle entre crides als DAOs.
+ *
+ * Les connexions es presten embolcallades en un proxy: quan el codi client crida close(),
+ * la connexió física no es tanca sinó que torna al pool per a ser reutilitzada.
+ * El pool limita el nombre màxim de sessions obertes, valida les connexions abans de prestar-les
+ * i retira periòdicament les connexions inactives o massa velles.
+ */
+
+class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long borrowTimeoutMs;
+    private final boolean validateOnBorrow;
+    private final int validationTimeoutSec;
+    private final int statementCacheSize;
+
+    private final Semaphore permisos;
+    private final Deque<PooledConnection> lliures = new ArrayDeque<>();
+    private final ScheduledExecutorService manteniment;
+    private int totals;
+    private volatile boolean tancat;
+
+    /**
+     * Crea el pool a partir de les propietats de configuració de la base de dades.
+     *
+     * @param properties Propietats carregades de db.properties.
+     */
+
+    ConnectionPool(Properties properties) {
+        this.url = properties.getProperty("db.url");
+        this.user = properties.getProperty("db.user");
+        this.password = properties.getProperty("db.password");
+
+        this.maxSize = Math.max(1, Integer.parseInt(properties.getProperty("db.pool.maxSize", "10")));
+        this.minSize = Math.min(maxSize, Math.max(0, Integer.parseInt(properties.getProperty("db.pool.minSize", "2"))));
+        this.idleTimeoutMs = Long.parseLong(properties.getProperty("db.pool.idleTimeoutMs", "300000"));
+        this.maxLifetimeMs = Long.parseLong(properties.getProperty("db.pool.maxLifetimeMs", "1800000"));
+        this.borrowTimeoutMs = Long.parseLong(properties.getProperty("db.pool.borrowTimeoutMs", "30000"));
+        this.validateOnBorrow = Boolean.parseBoolean(properties.getProperty("db.pool.validateOnBorrow", "true"));
+        this.validationTimeoutSec = Integer.parseInt(properties.getProperty("db.pool.validationTimeoutSec", "5"));
+        this.statementCacheSize = Integer.parseInt(properties.getProperty("db.statementCacheSize", "50"));
+
+        this.permisos = new Semaphore(maxSize, true);
+
+        long periode = Long.parseLong(properties.getProperty("db.pool.housekeepingMs", "30000"));
+        this.manteniment = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread fil = new Thread(r, "db-pool-manteniment");
+            fil.setDaemon(true);
+            return fil;
+        });
+        this.manteniment.scheduleWithFixedDelay(this::mantenir, 0, periode, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una connexió del pool, obrint-ne una de nova si no n'hi ha cap de lliure.
+     *
+     * Si el pool ja té totes les connexions prestades, espera fins al temps màxim configurat.
+     *
+     * @return Una connexió que torna al pool quan es tanca.
+     * @throws SQLException Si el pool està tancat, s'esgota el temps d'espera o no es pot obrir la connexió.
+     */
+
+    Connection borrow() throws SQLException {
+        if (tancat) {
+            throw new SQLException("El pool de connexions està tancat");
+        }
+        try {
+            if (!permisos.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("No hi ha cap connexió disponible després de " + borrowTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interromput esperant una connexió", e);
+        }
+
+        try {
+            while (true) {
+                PooledConnection pc;
+                synchronized (this) {
+                    pc = lliures.pollFirst();
+                }
+                if (pc == null) {
+                    pc = obrir();
+                } else if (pc.caducada(System.currentTimeMillis()) || (validateOnBorrow && !pc.valida(validationTimeoutSec))) {
+                    descartar(pc);
+                    continue;
+                }
+                return pc.prestar();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Tanca el pool i totes les connexions físiques lliures.
+     * Les connexions prestades es tanquen quan el client les retorna.
+     */
+
+    void close() {
+        tancat = true;
+        manteniment.shutdownNow();
+        List<PooledConnection> aTancar;
+        synchronized (this) {
+            aTancar = new ArrayList<>(lliures);
+            lliures.clear();
+        }
+        aTancar.forEach(this::descartar);
+    }
+
+    private PooledConnection obrir() throws SQLException {
+        synchronized (this) {
+            totals++;
+        }
+        try {
+            Connection fisica = DriverManager.getConnection(url, user, password);
+            try {
+                return new PooledConnection(fisica);
+            } catch (SQLException | RuntimeException e) {
+                fisica.close();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                totals--;
+            }
+            throw e;
+        }
+    }
+
+    private void descartar(PooledConnection pc) {
+        synchronized (this) {
+            totals--;
+        }
+        try {
+            if (pc.sentencies != null) {
+                pc.sentencies.tancar();
+            }
+            pc.fisica.close();
+        } catch (SQLException ignored) {
+            // La connexió ja no és utilitzable; no hi ha res més a fer.
+        }
+    }
+
+    private void retornar(PooledConnection pc) {
+        try {
+            boolean reutilitzable = !tancat && !pc.caducada(System.currentTimeMillis()) && pc.restablir();
+            if (reutilitzable) {
+                pc.darrerUs = System.currentTimeMillis();
+                synchronized (this) {
+                    lliures.addFirst(pc);
+                }
+            } else {
+                descartar(pc);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    // Tasca periòdica de manteniment. Una excepció que sortís d'aquí cancel·laria la planificació
+    // (scheduleWithFixedDelay no torna a executar una tasca que ha fallat), així que es registra i prou.
+
+    private void mantenir() {
+        try {
+            retirarIReposar();
+        } catch (RuntimeException e) {
+            System.err.println("Error en el manteniment del pool de connexions: " + e);
+        }
+    }
+
+    // Retira les connexions inactives o caducades i manté el mínim de connexions obertes.
+
+    private void retirarIReposar() {
+        long ara = System.currentTimeMillis();
+        List<PooledConnection> aTancar = new ArrayList<>();
+        int aObrir;
+        synchronized (this) {
+            Iterator<PooledConnection> it = lliures.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                boolean inactiva = totals - aTancar.size() > minSize && ara - pc.darrerUs > idleTimeoutMs;
+                if (pc.caducada(ara) || inactiva) {
+                    it.remove();
+                    aTancar.add(pc);
+                }
+            }
+            aObrir = minSize - (totals - aTancar.size());
+        }
+        aTancar.forEach(this::descartar);
+
+        for (int i = 0; i < aObrir && !tancat; i++) {
+            try {
+                PooledConnection pc = obrir();
+                synchronized (this) {
+                    lliures.addLast(pc);
+                }
+            } catch (SQLException e) {
+                System.err.println("No s'ha pogut obrir una connexió del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Connexió física gestionada pel pool, amb les dades necessàries per decidir si es pot reutilitzar.
+     */
+
+    private class PooledConnection {
+        private final Connection fisica;
+        private final StatementCache sentencies;
+        private final boolean readOnlyInicial;
+        private final int aillamentInicial;
+        private final int holdabilityInicial;
+        private final long creada = System.currentTimeMillis();
+        private volatile long darrerUs = creada;
+
+        PooledConnection(Connection fisica) throws SQLException {
+            this.fisica = fisica;
+            this.sentencies = statementCacheSize > 0 ? new StatementCache(fisica, statementCacheSize) : null;
+            this.readOnlyInicial = fisica.isReadOnly();
+            this.aillamentInicial = fisica.getTransactionIsolation();
+            this.holdabilityInicial = fisica.getHoldability();
+        }
+
+        boolean caducada(long ara) {
+            return maxLifetimeMs > 0 && ara - creada > maxLifetimeMs;
+        }
+
+        boolean valida(int timeoutSec) {
+            try {
+                return fisica.isValid(timeoutSec);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // Deixa la connexió en l'estat per defecte perquè el següent client no hereti cap transacció ni cap configuració.
+
+        boolean restablir() {
+            try {
+                if (fisica.isClosed()) return false;
+                if (!fisica.getAutoCommit()) {
+                    fisica.rollback();
+                    fisica.setAutoCommit(true);
+                }
+                if (fisica.isReadOnly() != readOnlyInicial) fisica.setReadOnly(readOnlyInicial);
+                if (fisica.getTransactionIsolation() != aillamentInicial) fisica.setTransactionIsolation(aillamentInicial);
+                if (fisica.getHoldability() != holdabilityInicial) fisica.setHoldability(holdabilityInicial);
+                fisica.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        Connection prestar() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Prestec(this));
+        }
+    }
+
+    /**
+     * Gestor del proxy d'una connexió prestada: intercepta close() per retornar-la al pool
+     * i prepareStatement() per servir les sentències des de la memòria cau de la connexió.
+     * Cada préstec té el seu propi gestor, de manera que un client no pot tornar a utilitzar
+     * una connexió que ja ha retornat. unwrap() no dona accés a la connexió física, perquè
+     * el client no la pugui tancar o reconfigurar sense passar pel pool.
+     */
+
+    private class Prestec implements InvocationHandler {
+        private PooledConnection pc;
+
+        Prestec(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    // El rollback de retornar() es fa fora del bloc sincronitzat perquè un fil virtual
+                    // no quedi fixat al seu fil portador mentre espera la base de dades.
+
+                    PooledConnection retornada;
+                    synchronized (this) {
+                        retornada = pc;
+                        pc = null;
+                    }
+                    if (retornada != null) {
+                        retornar(retornada);
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return pc == null || pc.fisica.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Connexió del pool [" + (pc == null ? "retornada" : pc.fisica) + "]";
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("La connexió del pool no embolcalla cap " + ((Class<?>) args[0]).getName());
+                default:
+                    break;
+            }
+
+            PooledConnection actual;
+            synchronized (this) {
+                actual = pc;
+            }
+            if (actual == null) {
+                throw new SQLException("La connexió ja s'ha retornat al pool");
+            }
+            if (actual.sentencies != null && "prepareStatement".equals(method.getName())) {
+                if (args.length == 1) {
+                    return actual.sentencies.preparar((String) args[0], null, (Connection) proxy);
+                }
+                if (args.length == 2 && args[1] instanceof String[]) {
+                    return actual.sentencies.preparar((String) args[0], (String[]) args[1], (Connection) proxy);
+                }
+            }
+            try {
+                return method.invoke(actual.fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.example.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Embolcalla una connexió perquè les sentències que s'hi creen registrin les seves execucions a {@link MetriquesSQL}
+ * i emetin esdeveniments JFR ({@link EsdevenimentSQL}, i files i SQL per a l'{@link EsdevenimentDAO} actual).
+ *
+ * La connexió, les sentències i els ResultSet que retornen són proxies que deleguen tots els mètodes.
+ * Només afegeixen feina a les execucions (execute*), que es cronometren, a les assignacions de paràmetres,
+ * de les quals es guarda l'índex més alt, i a ResultSet.next(), que compta les files llegides fins que el ResultSet s'esgota o es tanca.
+ */
+
+final class ConnexioInstrumentada {
+
+    private ConnexioInstrumentada() {
+    }
+
+    /**
+     * Embolcalla una connexió.
+     *
+     * @param connexio La connexió del pool.
+     * @param metriques Si les execucions s'han de registrar a {@link MetriquesSQL}; si no, només s'emeten esdeveniments JFR.
+     * @return La connexió instrumentada; tancar-la tanca (retorna al pool) l'original.
+     */
+
+    static Connection embolcallar(Connection connexio, boolean metriques) {
+        return proxy(Connection.class, new Connexio(connexio, metriques));
+    }
+
+    private static <T> T proxy(Class<T> tipus, InvocationHandler handler) {
+        return tipus.cast(Proxy.newProxyInstance(ConnexioInstrumentada.class.getClassLoader(), new Class<?>[] { tipus }, handler));
+    }
+
+    private static Object delegar(Object objectiu, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(objectiu, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Connexió que retorna sentències instrumentades.
+     */
+
+    private static final class Connexio implements InvocationHandler {
+
+        private final Connection connexio;
+        private final boolean metriques;
+
+        private Connexio(Connection connexio, boolean metriques) {
+            this.connexio = connexio;
+            this.metriques = metriques;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object resultat = delegar(connexio, method, args);
+            if (resultat instanceof Statement st && Statement.class.isAssignableFrom(method.getReturnType())) {
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return proxy(method.getReturnType().asSubclass(Statement.class), new Sentencia(st, (Connection) proxy, sql, metriques));
+            }
+            return resultat;
+        }
+    }
+
+    /**
+     * Sentència que cronometra les execucions. Per a les sentències preparades, el SQL és el de prepareStatement;
+     * per a les altres, el que rep cada execute.
+     */
+
+    private static final class Sentencia implements InvocationHandler {
+
+        private final Statement st;
+        private final Connection connexio;
+        private final String sqlPreparat;
+        private final boolean registrar;
+        private int parametres;
+
+        private Sentencia(Statement st, Connection connexio, String sqlPreparat, boolean registrar) {
+            this.st = st;
+            this.connexio = connexio;
+            this.sqlPreparat = sqlPreparat;
+            this.registrar = registrar;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nom = method.getName();
+            switch (nom) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return connexio;
+                default:
+                    break;
+            }
+
+            if (nom.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parametres = Math.max(parametres, index);
+            } else if ("clearParameters".equals(nom)) {
+                parametres = 0;
+            }
+            if (!nom.startsWith("execute")) {
+                Object resultat = delegar(st, method, args);
+                return resultat instanceof ResultSet rs && "getResultSet".equals(nom) ? llegir(rs, sqlPreparat) : resultat;
+            }
+
+            String sql = sqlPreparat != null ? sqlPreparat : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            MetriquesSQL metriques = MetriquesSQL.get();
+            MetriquesSQL.Consulta consulta = metriques.consulta(sql);
+            int vinculats = parametres;
+
+            EsdevenimentSQL esdeveniment = new EsdevenimentSQL();
+            esdeveniment.begin();
+            long inici = System.nanoTime();
+            Object resultat = null;
+            boolean error = true;
+            try {
+                resultat = delegar(st, method, args);
+                error = false;
+            } finally {
+                long files = error ? 0 : files(resultat);
+                if (registrar) {
+                    metriques.registrar(consulta, sql, System.nanoTime() - inici, files, vinculats, error);
+                }
+                esdeveniment.end();
+                if (esdeveniment.shouldCommit()) {
+                    esdeveniment.sql = consulta.getForma();
+                    esdeveniment.parametres = vinculats;
+                    esdeveniment.files = files;
+                    esdeveniment.error = error;
+                    esdeveniment.commit();
+                }
+                EsdevenimentDAO.afegir(consulta.getForma(), files);
+            }
+            return resultat instanceof ResultSet rs ? proxy(ResultSet.class, new Files(rs, consulta, registrar)) : resultat;
+        }
+
+        private ResultSet llegir(ResultSet rs, String sql) {
+            return proxy(ResultSet.class, new Files(rs, MetriquesSQL.get().consulta(sql), registrar));
+        }
+
+        // Files modificades segons el resultat de l'execució; les consultes les compta el ResultSet.
+
+        private static long files(Object resultat) {
+            if (resultat instanceof Integer n) return Math.max(0, n);
+            if (resultat instanceof Long n) return Math.max(0, n);
+            long total = 0;
+            if (resultat instanceof int[] lot) {
+                for (int n : lot) total += Math.max(0, n);
+            } else if (resultat instanceof long[] lot) {
+                for (long n : lot) total += Math.max(0, n);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * ResultSet que compta les files llegides i les suma a la seva consulta i a l'operació DAO actual quan s'esgota o es tanca.
+     */
+
+    private static final class Files implements InvocationHandler {
+
+        private final ResultSet rs;
+        private final MetriquesSQL.Consulta consulta;
+        private final boolean registrar;
+        private long llegides;
+        private boolean comptat;
+
+        private Files(ResultSet rs, MetriquesSQL.Consulta consulta, boolean registrar) {
+            this.rs = rs;
+            this.consulta = consulta;
+            this.registrar = registrar;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    boolean hiHa = rs.next();
+                    if (hiHa) {
+                        llegides++;
+                    } else {
+                        comptar();
+                    }
+                    return hiHa;
+                }
+                case "close":
+                    comptar();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return delegar(rs, method, args);
+        }
+
+        private void comptar() {
+            if (!comptat) {
+                comptat = true;
+                if (registrar) consulta.afegirFiles(llegides);
+                EsdevenimentDAO.afegir(null, llegides);
+            }
+        }
+    }
+}
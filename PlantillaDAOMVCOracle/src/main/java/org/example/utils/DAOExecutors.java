@@ -0,0 +1,132 @@
+package org.example.utils;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors on s'executen les operacions asíncrones dels DAOs.
+ *
+ * Hi ha dos modes, segons la propietat db.async.virtualThreads:
+ * <ul>
+ *     <li>Per defecte, un pool de fils de plataforma amb tants fils com connexions té el pool de
+ *     connexions (més fils només esperarien una connexió lliure) i una cua fitada; si la cua s'omple,
+ *     la petició es rebutja amb una RejectedExecutionException en lloc d'acumular feina sense límit.</li>
+ *     <li>Amb fils virtuals, cada petició s'executa en el seu propi fil virtual. Un semàfor amb tants
+ *     permisos com connexions limita quantes peticions accedeixen alhora a la base de dades;
+ *     la resta esperen el permís sense ocupar cap fil de plataforma.</li>
+ * </ul>
+ */
+
+public final class DAOExecutors {
+
+    private static final ExecutorService executor = crear();
+
+    private DAOExecutors() {
+    }
+
+    /**
+     * Retorna l'executor compartit per a les operacions asíncrones dels DAOs.
+     *
+     * @return L'executor.
+     */
+
+    public static ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Crea un executor que executa cada tasca en un fil virtual nou, amb un màxim de tasques
+     * simultànies. Útil per a processos sense interfície que llancen moltes peticions concurrents.
+     *
+     * @param maxSimultanies Nombre màxim de tasques que s'executen alhora.
+     * @return L'executor; s'ha de tancar quan ja no es necessiti.
+     */
+
+    public static ExecutorService filsVirtuals(int maxSimultanies) {
+        return new FilsVirtuals(maxSimultanies);
+    }
+
+    private static ExecutorService crear() {
+        int connexions = DBUtil.getIntProperty("db.pool.maxSize", 10);
+        if (Boolean.parseBoolean(DBUtil.getProperty("db.async.virtualThreads", "false"))) {
+            return filsVirtuals(Math.max(1, connexions));
+        }
+
+        int fils = Math.max(1, DBUtil.getIntProperty("db.async.threads", connexions));
+        int cua = Math.max(1, DBUtil.getIntProperty("db.async.queueSize", 100));
+        AtomicInteger comptador = new AtomicInteger();
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                fils, fils, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cua),
+                r -> {
+                    Thread fil = new Thread(r, "dao-async-" + comptador.incrementAndGet());
+                    fil.setDaemon(true);
+                    return fil;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Executor d'un fil virtual per tasca, fitat per un semàfor.
+     *
+     * El permís s'agafa dins del fil virtual, de manera que una tasca que espera no bloqueja
+     * qui l'ha enviada ni cap fil de plataforma.
+     */
+
+    private static final class FilsVirtuals extends AbstractExecutorService {
+        private final ExecutorService fils = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("dao-virtual-", 1).factory());
+        private final Semaphore permisos;
+
+        FilsVirtuals(int maxSimultanies) {
+            this.permisos = new Semaphore(maxSimultanies, true);
+        }
+
+        @Override
+        public void execute(Runnable tasca) {
+            fils.execute(() -> {
+                permisos.acquireUninterruptibly();
+                try {
+                    tasca.run();
+                } finally {
+                    permisos.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            fils.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return fils.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return fils.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return fils.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return fils.awaitTermination(timeout, unit);
+        }
+    }
+}
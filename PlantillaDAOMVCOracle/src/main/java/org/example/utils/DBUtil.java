@@ -3,24 +3,26 @@ package org.example.utils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import jdk.jfr.EventType;
 
 /**
  * Utilitat per a la gestió de connexions a la base de dades.
  *
  * Aquesta classe proporciona una manera centralitzada d'obtenir connexions a la base de dades
- * utilitzant propietats carregades des d'un fitxer de configuració.
+ * utilitzant propietats carregades des d'un fitxer de configuració. Les connexions provenen
+ * d'un pool fitat, de manera que tancar-les les retorna al pool en lloc de tancar la sessió d'Oracle.
  */
 
 public class DBUtil {
     private static final Properties properties = new Properties();
 
     // Bloc d'inicialització estàtic per carregar les propietats de configuració de la base de dades.
+    // La propietat de sistema db.config permet carregar un altre fitxer del classpath (per exemple, als benchmarks).
 
     static {
-        try (InputStream input = DBUtil.class.getClassLoader().getResourceAsStream("db.properties")) {
+        try (InputStream input = DBUtil.class.getClassLoader().getResourceAsStream(System.getProperty("db.config", "db.properties"))) {
             if (input == null) {
                 throw new RuntimeException("Fitxer de propietats no trobat");
             }
@@ -33,21 +35,107 @@ public class DBUtil {
         }
     }
 
+    private static final ConnectionPool pool = new ConnectionPool(properties);
+    private static final boolean metriques = Boolean.parseBoolean(properties.getProperty("db.metrics.enabled", "true"));
+    private static final EventType sentenciesJFR = EventType.getEventType(EsdevenimentSQL.class);
+
+    // Tanca les sessions físiques en aturar la JVM perquè no quedin obertes a Oracle.
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "db-pool-tancament"));
+    }
+
     /**
      * Obtenir una connexió a la base de dades basada en les propietats especificades.
      *
-     * Utilitza les propietats carregades per establir una connexió amb la base de dades.
-     * Aquest mètode pot llençar una SQLException si la connexió no es pot establir.
+     * La connexió es presta del pool de connexions; quan el client la tanca, torna al pool.
+     * Aquest mètode pot llençar una SQLException si la connexió no es pot establir
+     * o si no n'hi ha cap de disponible dins del temps d'espera configurat.
+     *
+     * Amb db.metrics.enabled (activat per defecte), l'espera i les sentències de la connexió
+     * es registren a {@link MetriquesSQL}. Cada petició emet un {@link EsdevenimentConnexio} JFR i, si hi ha
+     * una gravació JFR activa, les sentències emeten {@link EsdevenimentSQL}.
      *
-     * @return Una nova connexió a la base de dades.
+     * @return Una connexió a la base de dades.
      * @throws SQLException Si ocorre un error al obtenir la connexió a la base de dades.
      */
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                properties.getProperty("db.url"),
-                properties.getProperty("db.user"),
-                properties.getProperty("db.password")
-        );
+        EsdevenimentConnexio esdeveniment = new EsdevenimentConnexio();
+        esdeveniment.begin();
+        long inici = System.nanoTime();
+        try {
+            Connection connexio = pool.borrow();
+            esdeveniment.obtinguda = true;
+            return metriques || sentenciesJFR.isEnabled() ? ConnexioInstrumentada.embolcallar(connexio, metriques) : connexio;
+        } finally {
+            if (metriques) {
+                MetriquesSQL.get().registrarEspera(System.nanoTime() - inici);
+            }
+            esdeveniment.commit();
+        }
+    }
+
+    /**
+     * Retorna en text les mètriques de les sentències SQL i de l'espera de connexions.
+     *
+     * @return El bolcat de les mètriques, o un text buit si estan desactivades.
+     */
+
+    public static String bolcarMetriques() {
+        return metriques ? MetriquesSQL.get().bolcar() : "";
+    }
+
+    /**
+     * Nombre de sentències preparades servides des de la memòria cau de les connexions del pool.
+     *
+     * @return El nombre d'encerts de la memòria cau de sentències.
+     */
+
+    public static long getStatementCacheHits() {
+        return StatementCache.getEncerts();
+    }
+
+    /**
+     * Nombre de sentències que s'han hagut de preparar perquè no eren a la memòria cau.
+     *
+     * @return El nombre d'errades de la memòria cau de sentències.
+     */
+
+    public static long getStatementCacheMisses() {
+        return StatementCache.getErrades();
+    }
+
+    /**
+     * Obté una propietat de la configuració de la base de dades.
+     *
+     * @param clau El nom de la propietat a db.properties.
+     * @param perDefecte El valor a retornar si la propietat no hi és.
+     * @return El valor de la propietat, o el valor per defecte.
+     */
+
+    public static String getProperty(String clau, String perDefecte) {
+        return properties.getProperty(clau, perDefecte);
+    }
+
+    /**
+     * Obté una propietat numèrica de la configuració de la base de dades.
+     *
+     * @param clau El nom de la propietat a db.properties.
+     * @param perDefecte El valor a retornar si la propietat no hi és.
+     * @return El valor de la propietat, o el valor per defecte.
+     */
+
+    public static int getIntProperty(String clau, int perDefecte) {
+        String valor = properties.getProperty(clau);
+        return valor == null ? perDefecte : Integer.parseInt(valor.trim());
+    }
+
+    /**
+     * Tanca el pool de connexions i totes les sessions físiques lliures.
+     */
+
+    public static void shutdown() {
+        pool.close();
     }
 }
@@ -0,0 +1,23 @@
+package org.example.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Esdeveniment JFR d'una petició de connexió a {@link DBUtil#getConnection()}.
+ * La durada és el temps d'espera fins a obtenir la connexió del pool.
+ */
+
+@Name("org.example.ObtenirConnexio")
+@Label("Obtenir connexió")
+@Category({"Aplicació", "Base de dades"})
+@Description("Espera per obtenir una connexió del pool")
+public final class EsdevenimentConnexio extends Event {
+
+    @Label("Obtinguda")
+    @Description("false si no s'ha pogut obtenir cap connexió (temps d'espera esgotat o error)")
+    boolean obtinguda;
+}
@@ -0,0 +1,108 @@
+package org.example.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Esdeveniment JFR d'una operació d'un DAO.
+ *
+ * Mentre l'operació s'executa, l'esdeveniment és l'actual del fil: les sentències que s'executen al mateix fil
+ * hi afegeixen la seva forma de SQL i les files llegides o modificades. Si l'operació es resol sense cap
+ * sentència (per exemple, des de la memòria cau d'entitats), el SQL queda buit.
+ */
+
+@Name("org.example.OperacioDAO")
+@Label("Operació DAO")
+@Category({"Aplicació", "Base de dades"})
+@Description("Crida a un mètode d'un DAO")
+public final class EsdevenimentDAO extends Event {
+
+    private static final int MAX_SQL = 2000;
+    private static final ThreadLocal<EsdevenimentDAO> actual = new ThreadLocal<>();
+
+    @Label("Entitat")
+    String entitat;
+
+    @Label("Operació")
+    String operacio;
+
+    @Label("SQL")
+    @Description("Formes de SQL executades durant l'operació, separades per ;")
+    String sql;
+
+    @Label("Files")
+    @Description("Files llegides o modificades per les sentències de l'operació")
+    long files;
+
+    @Label("Error")
+    boolean error;
+
+    // Formes ja afegides a sql; no és un camp de l'esdeveniment.
+
+    private transient Set<String> formes;
+
+    /**
+     * Crea l'esdeveniment d'una operació.
+     *
+     * @param entitat El nom de l'entitat del DAO.
+     * @param operacio El nom del mètode.
+     */
+
+    public EsdevenimentDAO(String entitat, String operacio) {
+        this.entitat = entitat;
+        this.operacio = operacio;
+    }
+
+    /**
+     * Comença l'operació i la fa actual al fil.
+     *
+     * @return L'operació que era actual abans, per restaurar-la a {@link #acabar}.
+     */
+
+    public EsdevenimentDAO iniciar() {
+        EsdevenimentDAO anterior = actual.get();
+        actual.set(this);
+        begin();
+        return anterior;
+    }
+
+    /**
+     * Acaba l'operació, l'enregistra i torna a fer actual l'operació anterior.
+     *
+     * @param error Si l'operació ha llançat una excepció.
+     * @param anterior L'operació retornada per {@link #iniciar}.
+     */
+
+    public void acabar(boolean error, EsdevenimentDAO anterior) {
+        this.error = error;
+        commit();
+        if (anterior == null) {
+            actual.remove();
+        } else {
+            actual.set(anterior);
+        }
+    }
+
+    /**
+     * Afegeix una sentència a l'operació actual del fil, si n'hi ha.
+     *
+     * @param forma La forma del SQL, o null si només se sumen files.
+     * @param files Files llegides o modificades.
+     */
+
+    static void afegir(String forma, long files) {
+        EsdevenimentDAO operacio = actual.get();
+        if (operacio == null) return;
+        operacio.files += files;
+        if (forma == null || (operacio.sql != null && operacio.sql.length() >= MAX_SQL)) return;
+        if (operacio.formes == null) operacio.formes = new HashSet<>();
+        if (!operacio.formes.add(forma)) return;
+        operacio.sql = operacio.sql == null ? forma : operacio.sql + "; " + forma;
+    }
+}
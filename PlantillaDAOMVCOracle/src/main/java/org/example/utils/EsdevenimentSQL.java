@@ -0,0 +1,32 @@
+package org.example.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Esdeveniment JFR de l'execució d'una sentència en una connexió de {@link DBUtil}.
+ * La durada només inclou l'execució; les files llegides d'una consulta es sumen a l'operació DAO que la conté.
+ */
+
+@Name("org.example.SentenciaSQL")
+@Label("Sentència SQL")
+@Category({"Aplicació", "Base de dades"})
+@Description("Execució d'una sentència SQL")
+public final class EsdevenimentSQL extends Event {
+
+    @Label("SQL")
+    @Description("Forma del SQL, amb els literals substituïts per ?")
+    String sql;
+
+    @Label("Paràmetres")
+    int parametres;
+
+    @Label("Files modificades")
+    long files;
+
+    @Label("Error")
+    boolean error;
+}
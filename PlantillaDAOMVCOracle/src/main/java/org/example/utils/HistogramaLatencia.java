@@ -0,0 +1,143 @@
+package org.example.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latències en microsegons, de mida fixa i segur entre fils.
+ *
+ * Els valors per sota de 64 µs tenen un compartiment cadascun; per sobre, cada potència de dos
+ * es divideix en 32 compartiments, de manera que l'error relatiu d'un percentil és com a molt del 3 %
+ * i la memòria no depèn del nombre de mostres. Registrar un valor només incrementa un comptador atòmic.
+ */
+
+public final class HistogramaLatencia {
+
+    private static final int BITS_SUB = 5;
+    private static final int SUB = 1 << BITS_SUB;
+    private static final int LINEALS = 2 * SUB;
+    private static final int COMPARTIMENTS = LINEALS + (63 - BITS_SUB) * SUB;
+
+    private final AtomicLongArray comptadors = new AtomicLongArray(COMPARTIMENTS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong suma = new AtomicLong();
+    private final AtomicLong maxim = new AtomicLong();
+
+    /**
+     * Registra una latència.
+     *
+     * @param nanos La durada en nanosegons; els valors negatius compten com a zero.
+     */
+
+    public void registrar(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        comptadors.incrementAndGet(compartiment(micros));
+        total.incrementAndGet();
+        suma.addAndGet(micros);
+        maxim.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Suma a aquest histograma les mostres d'un altre.
+     *
+     * @param altre L'histograma a afegir.
+     */
+
+    public void afegir(HistogramaLatencia altre) {
+        for (int i = 0; i < COMPARTIMENTS; i++) {
+            long n = altre.comptadors.get(i);
+            if (n != 0) comptadors.addAndGet(i, n);
+        }
+        total.addAndGet(altre.total.get());
+        suma.addAndGet(altre.suma.get());
+        maxim.accumulateAndGet(altre.maxim.get(), Math::max);
+    }
+
+    /**
+     * Retorna el nombre de mostres registrades.
+     *
+     * @return El nombre de mostres.
+     */
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Retorna la latència mitjana.
+     *
+     * @return La mitjana en microsegons, o 0 si no hi ha mostres.
+     */
+
+    public double getMitjana() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) suma.get() / n;
+    }
+
+    /**
+     * Retorna la latència màxima registrada.
+     *
+     * @return El màxim en microsegons.
+     */
+
+    public long getMaxim() {
+        return maxim.get();
+    }
+
+    /**
+     * Retorna la latència per sota de la qual queda un percentatge de les mostres.
+     *
+     * @param percentil El percentil, entre 0 i 100 (per exemple 99 o 99.9).
+     * @return El límit superior del compartiment del percentil, en microsegons, o 0 si no hi ha mostres.
+     */
+
+    public long getPercentil(double percentil) {
+        long n = total.get();
+        if (n == 0) return 0;
+
+        long objectiu = Math.max(1, (long) Math.ceil(n * Math.min(100, percentil) / 100));
+        long acumulat = 0;
+        for (int i = 0; i < COMPARTIMENTS; i++) {
+            acumulat += comptadors.get(i);
+            if (acumulat >= objectiu) {
+                return Math.min(limitSuperior(i), maxim.get());
+            }
+        }
+        return maxim.get();
+    }
+
+    /**
+     * Descarta totes les mostres.
+     */
+
+    public void reiniciar() {
+        for (int i = 0; i < COMPARTIMENTS; i++) {
+            comptadors.set(i, 0);
+        }
+        total.set(0);
+        suma.set(0);
+        maxim.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mitjana=%.0fµs p50=%dµs p90=%dµs p99=%dµs p99.9=%dµs max=%dµs",
+                getTotal(), getMitjana(), getPercentil(50), getPercentil(90), getPercentil(99), getPercentil(99.9), getMaxim());
+    }
+
+    // Per sobre de LINEALS, el compartiment el donen la potència de dos del valor i els BITS_SUB bits següents.
+
+    private static int compartiment(long micros) {
+        if (micros < LINEALS) return (int) micros;
+        int magnitud = 63 - Long.numberOfLeadingZeros(micros);
+        int desplacament = magnitud - BITS_SUB;
+        return LINEALS + (desplacament - 1) * SUB + (int) ((micros >>> desplacament) - SUB);
+    }
+
+    private static long limitSuperior(int compartiment) {
+        if (compartiment < LINEALS) return compartiment;
+        int desplacament = (compartiment - LINEALS) / SUB + 1;
+        long sub = SUB + (compartiment - LINEALS) % SUB;
+        return ((sub + 1) << desplacament) - 1;
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.utils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Mètriques de les sentències SQL executades per les connexions de {@link DBUtil}.
+ *
+ * Per cada forma de SQL (el text amb els espais normalitzats i els literals substituïts per ?) es guarden
+ * les execucions, els errors, les files retornades o modificades i un histograma de latències. També es mesura
+ * quant s'espera per obtenir una connexió del pool. Les sentències que superen db.slowQueryMs s'escriuen a
+ * System.err amb el nombre de paràmetres assignats.
+ *
+ * Les mètriques es poden llegir per JMX (org.example:type=MetriquesSQL) o amb {@link DBUtil#bolcarMetriques()}.
+ */
+
+public final class MetriquesSQL implements MetriquesSQLMBean {
+
+    private static final int MAX_FORMES = 500;
+    private static final String ALTRES = "(altres formes de SQL)";
+    private static final Pattern ESPAIS = Pattern.compile("\\s+");
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final MetriquesSQL instancia = new MetriquesSQL();
+
+    // Registra l'MBean un sol cop; si JMX no està disponible, les mètriques continuen accessibles des de DBUtil.
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instancia, new ObjectName("org.example:type=MetriquesSQL"));
+        } catch (JMException | SecurityException e) {
+            System.err.println("No s'han pogut registrar les mètriques SQL a JMX: " + e.getMessage());
+        }
+    }
+
+    private final Map<String, Consulta> perText = new ConcurrentHashMap<>();
+    private final Map<String, Consulta> perForma = new ConcurrentHashMap<>();
+    private final HistogramaLatencia esperaConnexio = new HistogramaLatencia();
+    private final AtomicLong consultesLentes = new AtomicLong();
+    private volatile int llindarLentesMs = DBUtil.getIntProperty("db.slowQueryMs", 500);
+
+    private MetriquesSQL() {
+    }
+
+    /**
+     * Retorna les mètriques de l'aplicació.
+     *
+     * @return La instància única.
+     */
+
+    static MetriquesSQL get() {
+        return instancia;
+    }
+
+    /**
+     * Mètriques d'una forma de SQL.
+     */
+
+    static final class Consulta {
+
+        private final String forma;
+        private final HistogramaLatencia latencies = new HistogramaLatencia();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder files = new LongAdder();
+
+        private Consulta(String forma) {
+            this.forma = forma;
+        }
+
+        /**
+         * Retorna la forma del SQL.
+         *
+         * @return El SQL normalitzat.
+         */
+
+        String getForma() {
+            return forma;
+        }
+
+        /**
+         * Suma files llegides d'un ResultSet de la sentència.
+         *
+         * @param n Nombre de files.
+         */
+
+        void afegirFiles(long n) {
+            files.add(n);
+        }
+
+        private long getTempsTotal() {
+            return Math.round(latencies.getMitjana() * latencies.getTotal());
+        }
+
+        private String resum() {
+            return String.format("%8d exec %5d err %10d files  p50=%dµs p99=%dµs max=%dµs  %s",
+                    latencies.getTotal(), errors.sum(), files.sum(),
+                    latencies.getPercentil(50), latencies.getPercentil(99), latencies.getMaxim(), forma);
+        }
+    }
+
+    /**
+     * Retorna les mètriques de la forma d'un SQL. El text exacte es recorda perquè els DAOs,
+     * que repeteixen sempre les mateixes constants, no hagin de normalitzar-lo a cada execució.
+     *
+     * @param sql El text SQL executat, o null si no es coneix.
+     * @return Les mètriques de la seva forma.
+     */
+
+    Consulta consulta(String sql) {
+        if (sql == null) sql = ALTRES;
+        Consulta consulta = perText.get(sql);
+        if (consulta != null) return consulta;
+
+        String forma = perForma.size() >= MAX_FORMES ? ALTRES : forma(sql);
+        consulta = perForma.computeIfAbsent(forma, Consulta::new);
+        if (perText.size() < MAX_FORMES * 4) {
+            perText.put(sql, consulta);
+        }
+        return consulta;
+    }
+
+    /**
+     * Registra una execució d'una sentència i l'escriu a System.err si ha superat el llindar de consultes lentes.
+     *
+     * @param consulta Les mètriques de la forma del SQL.
+     * @param sql El text SQL executat.
+     * @param nanos La durada de l'execució.
+     * @param files Files retornades o modificades que ja es coneixen en acabar l'execució.
+     * @param parametres Nombre de paràmetres assignats a la sentència.
+     * @param error Si l'execució ha llançat una excepció.
+     */
+
+    void registrar(Consulta consulta, String sql, long nanos, long files, int parametres, boolean error) {
+        consulta.latencies.registrar(nanos);
+        if (files > 0) consulta.files.add(files);
+        if (error) consulta.errors.increment();
+
+        int llindar = llindarLentesMs;
+        long ms = nanos / 1_000_000;
+        if (llindar > 0 && ms >= llindar) {
+            consultesLentes.incrementAndGet();
+            System.err.println("Consulta lenta (" + ms + " ms, " + parametres + " paràmetres" + (error ? ", error" : "") + "): "
+                    + ESPAIS.matcher(sql == null ? ALTRES : sql).replaceAll(" ").strip());
+        }
+    }
+
+    /**
+     * Registra el temps que s'ha esperat per obtenir una connexió del pool.
+     *
+     * @param nanos La durada de l'espera.
+     */
+
+    void registrarEspera(long nanos) {
+        esperaConnexio.registrar(nanos);
+    }
+
+    @Override
+    public long getConnexionsObtingudes() {
+        return esperaConnexio.getTotal();
+    }
+
+    @Override
+    public double getEsperaConnexioMitjana() {
+        return esperaConnexio.getMitjana();
+    }
+
+    @Override
+    public long getEsperaConnexioP99() {
+        return esperaConnexio.getPercentil(99);
+    }
+
+    @Override
+    public long getEsperaConnexioMaxima() {
+        return esperaConnexio.getMaxim();
+    }
+
+    @Override
+    public long getConsultesLentes() {
+        return consultesLentes.get();
+    }
+
+    @Override
+    public int getLlindarConsultesLentesMs() {
+        return llindarLentesMs;
+    }
+
+    @Override
+    public void setLlindarConsultesLentesMs(int llindarMs) {
+        this.llindarLentesMs = llindarMs;
+    }
+
+    @Override
+    public String[] getConsultes() {
+        List<Consulta> consultes = new ArrayList<>(perForma.values());
+        consultes.sort(Comparator.comparingLong(Consulta::getTempsTotal).reversed());
+        return consultes.stream().map(Consulta::resum).toArray(String[]::new);
+    }
+
+    @Override
+    public String bolcar() {
+        StringBuilder text = new StringBuilder();
+        text.append("Espera de connexió: ").append(esperaConnexio).append('\n');
+        text.append("Consultes lentes (>= ").append(llindarLentesMs).append(" ms): ").append(consultesLentes.get()).append('\n');
+        for (String consulta : getConsultes()) {
+            text.append(consulta).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void reiniciar() {
+        perText.clear();
+        perForma.clear();
+        esperaConnexio.reiniciar();
+        consultesLentes.set(0);
+    }
+
+    private static String forma(String sql) {
+        String forma = ESPAIS.matcher(sql).replaceAll(" ").strip();
+        return LITERALS.matcher(forma).replaceAll("?");
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.utils;
+
+/**
+ * Interfície JMX de {@link MetriquesSQL}, registrada com a org.example:type=MetriquesSQL.
+ * Les latències són en microsegons.
+ */
+
+public interface MetriquesSQLMBean {
+
+    long getConnexionsObtingudes();
+
+    double getEsperaConnexioMitjana();
+
+    long getEsperaConnexioP99();
+
+    long getEsperaConnexioMaxima();
+
+    long getConsultesLentes();
+
+    int getLlindarConsultesLentesMs();
+
+    void setLlindarConsultesLentesMs(int llindarMs);
+
+    /**
+     * Una línia per forma de SQL, de més a menys temps total: execucions, errors, files, p50, p99, màxim i SQL.
+     *
+     * @return Les línies.
+     */
+
+    String[] getConsultes();
+
+    /**
+     * Retorna totes les mètriques en text, per consultar-les o guardar-les.
+     *
+     * @return El bolcat de les mètriques.
+     */
+
+    String bolcar();
+
+    /**
+     * Descarta totes les mètriques acumulades.
+     */
+
+    void reiniciar();
+}
@@ -0,0 +1,270 @@
+package org.example.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memòria cau de sentències preparades d'una connexió física del pool.
+ *
+ * Les sentències es guarden indexades pel text SQL (i les columnes de claus generades, si n'hi ha)
+ * i s'expulsen per ordre d'ús menys recent quan se supera la mida configurada. Així, el SQL que
+ * s'executa sovint s'analitza un cop per sessió d'Oracle en lloc d'un cop per crida.
+ *
+ * El client rep un proxy de la sentència: quan el tanca, la sentència física no es tanca sinó
+ * que es neteja i queda disponible per a la següent crida amb el mateix SQL.
+ */
+
+class StatementCache {
+
+    private static final AtomicLong encerts = new AtomicLong();
+    private static final AtomicLong errades = new AtomicLong();
+
+    private final Connection fisica;
+    private final int mida;
+    private final Map<String, Entrada> entrades;
+
+    /**
+     * Crea la memòria cau d'una connexió física.
+     *
+     * @param fisica La connexió física sobre la qual es preparen les sentències.
+     * @param mida Nombre màxim de sentències guardades.
+     */
+
+    StatementCache(Connection fisica, int mida) {
+        this.fisica = fisica;
+        this.mida = mida;
+        this.entrades = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Nombre total de sentències servides des de la memòria cau, de totes les connexions.
+     *
+     * @return El nombre d'encerts.
+     */
+
+    static long getEncerts() {
+        return encerts.get();
+    }
+
+    /**
+     * Nombre total de sentències que s'han hagut de preparar de nou, de totes les connexions.
+     *
+     * @return El nombre d'errades.
+     */
+
+    static long getErrades() {
+        return errades.get();
+    }
+
+    /**
+     * Retorna una sentència preparada per al SQL indicat, reutilitzant-ne una de guardada si n'hi ha.
+     *
+     * Si la sentència guardada ja està en ús (per exemple, en consultes niades amb el mateix SQL),
+     * se'n prepara una de nova que no es guarda. La sentència es prepara fora del bloc sincronitzat
+     * perquè un fil virtual no quedi fixat al seu fil portador mentre espera la base de dades.
+     *
+     * @param sql El text SQL.
+     * @param columnesClau Columnes de claus generades a retornar, o null.
+     * @param logica La connexió lògica que el client ha de veure com a propietària de la sentència.
+     * @return La sentència preparada.
+     * @throws SQLException si no es pot preparar la sentència.
+     */
+
+    PreparedStatement preparar(String sql, String[] columnesClau, Connection logica) throws SQLException {
+        String clau = columnesClau == null ? sql : sql + '\u0000' + String.join(",", columnesClau);
+        synchronized (this) {
+            Entrada entrada = entrades.get(clau);
+            if (entrada != null && !entrada.enUs) {
+                encerts.incrementAndGet();
+                entrada.enUs = true;
+                return entrada.prestar(logica);
+            }
+        }
+
+        errades.incrementAndGet();
+        PreparedStatement st = columnesClau == null
+                ? fisica.prepareStatement(sql)
+                : fisica.prepareStatement(sql, columnesClau);
+        Entrada nova;
+        try {
+            nova = new Entrada(st);
+        } catch (SQLException e) {
+            st.close();
+            throw e;
+        }
+        nova.enUs = true;
+
+        synchronized (this) {
+            if (entrades.containsKey(clau)) {
+                // La guardada està en ús: aquesta es tancarà de veritat quan el client la tanqui.
+
+                nova.expulsada = true;
+            } else {
+                entrades.put(clau, nova);
+                expulsar();
+            }
+        }
+        return nova.prestar(logica);
+    }
+
+    /**
+     * Tanca totes les sentències guardades. S'ha de cridar abans de tancar la connexió física.
+     */
+
+    synchronized void tancar() {
+        for (Entrada entrada : entrades.values()) {
+            entrada.tancarFisica();
+        }
+        entrades.clear();
+    }
+
+    // Expulsa les sentències menys utilitzades fins a tornar a la mida màxima.
+
+    private void expulsar() {
+        Iterator<Entrada> it = entrades.values().iterator();
+        List<Entrada> expulsades = new ArrayList<>();
+        while (entrades.size() - expulsades.size() > mida && it.hasNext()) {
+            Entrada entrada = it.next();
+            it.remove();
+            expulsades.add(entrada);
+        }
+        for (Entrada entrada : expulsades) {
+            entrada.expulsada = true;
+            if (!entrada.enUs) {
+                entrada.tancarFisica();
+            }
+        }
+    }
+
+    // La sentència es restableix mentre encara consta en ús, fora del bloc sincronitzat, pel mateix motiu que a preparar().
+
+    private void retornar(Entrada entrada) {
+        boolean restablida = entrada.restablir();
+        boolean tancar;
+        synchronized (this) {
+            entrada.enUs = false;
+            tancar = entrada.expulsada || !restablida;
+            if (tancar) {
+                entrades.values().remove(entrada);
+            }
+        }
+        if (tancar) {
+            entrada.tancarFisica();
+        }
+    }
+
+    /**
+     * Sentència física guardada i el seu estat d'ús.
+     */
+
+    private class Entrada {
+        private final PreparedStatement st;
+        private final int fetchSizeInicial;
+        private final int maxRowsInicial;
+        private final int queryTimeoutInicial;
+        private final int maxFieldSizeInicial;
+        private boolean enUs;
+        private boolean expulsada;
+
+        Entrada(PreparedStatement st) throws SQLException {
+            this.st = st;
+            this.fetchSizeInicial = st.getFetchSize();
+            this.maxRowsInicial = st.getMaxRows();
+            this.queryTimeoutInicial = st.getQueryTimeout();
+            this.maxFieldSizeInicial = st.getMaxFieldSize();
+        }
+
+        PreparedStatement prestar(Connection logica) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new Prestec(this, logica));
+        }
+
+        // Deixa la sentència com acabada de preparar per a la següent crida.
+
+        boolean restablir() {
+            try {
+                ResultSet rs = st.getResultSet();
+                if (rs != null) rs.close();
+                st.clearParameters();
+                st.clearBatch();
+                st.clearWarnings();
+                if (st.getFetchSize() != fetchSizeInicial) st.setFetchSize(fetchSizeInicial);
+                if (st.getMaxRows() != maxRowsInicial) st.setMaxRows(maxRowsInicial);
+                if (st.getQueryTimeout() != queryTimeoutInicial) st.setQueryTimeout(queryTimeoutInicial);
+                if (st.getMaxFieldSize() != maxFieldSizeInicial) st.setMaxFieldSize(maxFieldSizeInicial);
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void tancarFisica() {
+            try {
+                st.close();
+            } catch (SQLException ignored) {
+                // La sentència ja no és utilitzable; no hi ha res més a fer.
+            }
+        }
+    }
+
+    /**
+     * Gestor del proxy d'una sentència prestada: intercepta close() per retornar-la a la memòria cau.
+     */
+
+    private class Prestec implements InvocationHandler {
+        private final Entrada entrada;
+        private final Connection logica;
+        private boolean tancat;
+
+        Prestec(Entrada entrada, Connection logica) {
+            this.entrada = entrada;
+            this.logica = logica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!tancat) {
+                        tancat = true;
+                        retornar(entrada);
+                    }
+                    return null;
+                case "isClosed":
+                    return tancat;
+                case "getConnection":
+                    return logica;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Sentència de la memòria cau [" + entrada.st + "]";
+                default:
+                    break;
+            }
+            if (tancat) {
+                throw new SQLException("La sentència ja està tancada");
+            }
+            try {
+                return method.invoke(entrada.st, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
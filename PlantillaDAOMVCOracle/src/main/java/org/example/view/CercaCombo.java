@@ -0,0 +1,230 @@
+package org.example.view;
+
+import org.example.model.daos.AsyncDAO;
+import org.example.model.daos.Pagina;
+
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Converteix un comboBox en un cercador: a mesura que l'usuari escriu, la llista mostra
+ * només les primeres entitats que comencen pel text escrit.
+ *
+ * La llista no es carrega mai sencera. Quan l'usuari deixa d'escriure una estona, es demana al DAO
+ * una pàgina filtrada pel text (vegeu {@link Pagina#filtradaPer(String)}) amb una fila més
+ * del màxim a mostrar. Si la base de dades en retorna menys, el resultat és complet i es guarda
+ * en un {@link IndexPrefix}: mentre l'usuari continuï allargant el mateix prefix, els resultats
+ * es calculen amb l'índex sense tornar a consultar.
+ *
+ * @param <T> El tipus d'entitat del comboBox.
+ */
+
+public class CercaCombo<T> {
+
+    private final JComboBox<T> combo;
+    private final DefaultComboBoxModel<T> model;
+    private final Class<T> tipus;
+    private final Function<T, List<String>> clausDe;
+    private final String ordre;
+    private final int maxResultats;
+    private final Timer espera;
+
+    private AsyncDAO<T> font;
+    private Consumer<Throwable> gestorErrors = e -> System.err.println("Error buscant al comboBox: " + e.getMessage());
+    private IndexPrefix<T> index;
+    private String prefixIndexat;
+    private int generacio;
+
+    /**
+     * Configura un comboBox com a cercador. El comboBox passa a ser editable.
+     *
+     * @param combo El comboBox, amb un DefaultComboBoxModel.
+     * @param tipus La classe de les entitats.
+     * @param clausDe Els camps de l'entitat que es comparen amb el text, els mateixos que filtra el DAO.
+     * @param ordre Columna del DAO per la qual s'ordenen els resultats.
+     * @param maxResultats Nombre màxim d'entitats a mostrar.
+     * @param retardMs Mil·lisegons sense escriure abans de buscar.
+     */
+
+    public CercaCombo(JComboBox<T> combo, Class<T> tipus, Function<T, List<String>> clausDe, String ordre, int maxResultats, int retardMs) {
+        this.combo = combo;
+        this.model = (DefaultComboBoxModel<T>) combo.getModel();
+        this.tipus = tipus;
+        this.clausDe = clausDe;
+        this.ordre = ordre;
+        this.maxResultats = maxResultats;
+        this.espera = new Timer(retardMs, e -> cercar(textEditor()));
+        this.espera.setRepeats(false);
+
+        combo.setEditable(true);
+
+        // Només les tecles que escriuen o esborren text llancen una cerca; les fletxes, l'Enter i l'Escape naveguen per la llista.
+
+        combo.getEditor().getEditorComponent().addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (e.getKeyChar() != KeyEvent.CHAR_UNDEFINED && e.getKeyCode() != KeyEvent.VK_ENTER && e.getKeyCode() != KeyEvent.VK_ESCAPE) {
+                    espera.restart();
+                }
+            }
+        });
+        combo.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                if (model.getSize() == 0) {
+                    cercar(getSeleccionat() != null ? "" : textEditor());
+                }
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+    }
+
+    /**
+     * Assigna el DAO on es busquen les entitats.
+     *
+     * @param font El DAO asíncron.
+     */
+
+    public void setFont(AsyncDAO<T> font) {
+        this.font = font;
+        invalidar();
+    }
+
+    /**
+     * Assigna l'acció a executar, al fil d'esdeveniments, quan falla una cerca.
+     *
+     * @param gestorErrors L'acció que rep l'error.
+     */
+
+    public void setGestorErrors(Consumer<Throwable> gestorErrors) {
+        this.gestorErrors = gestorErrors;
+    }
+
+    /**
+     * Retorna l'entitat seleccionada.
+     *
+     * @return L'entitat, o null si no n'hi ha cap o l'usuari només ha escrit text sense triar-ne una.
+     */
+
+    public T getSeleccionat() {
+        Object seleccionat = combo.getSelectedItem();
+        return tipus.isInstance(seleccionat) ? tipus.cast(seleccionat) : null;
+    }
+
+    /**
+     * Selecciona una entitat, encara que no sigui a la llista de resultats.
+     *
+     * @param entitat L'entitat, o null per buidar el comboBox.
+     */
+
+    public void setSeleccionat(T entitat) {
+        espera.stop();
+        model.setSelectedItem(entitat);
+    }
+
+    /**
+     * Descarta l'índex local perquè la pròxima cerca es faci a la base de dades.
+     * S'ha de cridar quan s'afegeixen entitats o quan l'usuari demana refrescar les dades.
+     */
+
+    public void invalidar() {
+        generacio++;
+        index = null;
+        prefixIndexat = null;
+    }
+
+    /**
+     * Torna a pintar una entitat modificada si és a la llista de resultats, mantenint-ne la posició i la selecció.
+     *
+     * @param entitat L'entitat modificada.
+     */
+
+    public void actualitzar(T entitat) {
+        invalidar();
+        int posicio = model.getIndexOf(entitat);
+        if (posicio == -1) return;
+        boolean seleccionat = Objects.equals(model.getSelectedItem(), entitat);
+        model.removeElementAt(posicio);
+        model.insertElementAt(entitat, posicio);
+        if (seleccionat) {
+            model.setSelectedItem(entitat);
+        }
+    }
+
+    /**
+     * Treu una entitat eliminada de la llista de resultats.
+     *
+     * @param entitat L'entitat eliminada.
+     */
+
+    public void eliminar(T entitat) {
+        invalidar();
+        model.removeElement(entitat);
+    }
+
+    // Busca un text a l'índex local si el cobreix, o a la base de dades si no.
+
+    private void cercar(String text) {
+        String clau = IndexPrefix.normalitzar(text);
+        if (index != null && clau.startsWith(prefixIndexat)) {
+            mostrar(index.buscar(clau, maxResultats));
+            return;
+        }
+        if (font == null) return;
+
+        int actual = ++generacio;
+        Pagina pagina = Pagina.perOffset(0, maxResultats + 1).ordenadaPer(ordre, true).filtradaPer(text);
+        font.getPageAsync(pagina).whenComplete((entitats, error) -> SwingUtilities.invokeLater(() -> {
+            if (actual != generacio) return;
+            if (error != null) {
+                gestorErrors.accept(error);
+                return;
+            }
+            if (entitats.size() <= maxResultats) {
+                index = new IndexPrefix<>(entitats, clausDe);
+                prefixIndexat = clau;
+                mostrar(entitats);
+            } else {
+                index = null;
+                prefixIndexat = null;
+                mostrar(entitats.subList(0, maxResultats));
+            }
+        }));
+    }
+
+    // Substitueix la llista de resultats sense perdre la selecció ni el text que l'usuari està escrivint.
+
+    private void mostrar(List<T> resultats) {
+        Object seleccionat = model.getSelectedItem();
+        Object text = combo.getEditor().getItem();
+        model.removeAllElements();
+        model.addAll(resultats);
+        model.setSelectedItem(seleccionat);
+        combo.getEditor().setItem(text);
+        if (!resultats.isEmpty() && combo.isShowing()) {
+            combo.showPopup();
+        }
+    }
+
+    private String textEditor() {
+        Object text = combo.getEditor().getItem();
+        return text == null ? "" : text.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Índex de cerca per prefix sobre una llista d'entitats, en un array de claus ordenat.
+ *
+ * Cada entitat pot tenir diverses claus (per exemple nom i cognoms). Les claus es guarden
+ * en majúscules i ordenades, de manera que les que comencen per un prefix formen un interval
+ * contigu que es troba amb una cerca binària. Els resultats es retornen en l'ordre original
+ * de la llista, que és l'ordre en què els ha retornat la base de dades.
+ *
+ * @param <T> El tipus de les entitats indexades.
+ */
+
+final class IndexPrefix<T> {
+
+    private final List<T> entitats;
+    private final String[] claus;
+    private final int[] posicions;
+
+    /**
+     * Construeix l'índex.
+     *
+     * @param entitats Les entitats a indexar, en l'ordre en què s'han de retornar.
+     * @param clausDe Funció que retorna les claus de cerca d'una entitat.
+     */
+
+    IndexPrefix(List<T> entitats, Function<T, List<String>> clausDe) {
+        this.entitats = List.copyOf(entitats);
+
+        List<Entrada> entrades = new ArrayList<>();
+        for (int i = 0; i < this.entitats.size(); i++) {
+            for (String clau : clausDe.apply(this.entitats.get(i))) {
+                if (clau != null) {
+                    entrades.add(new Entrada(normalitzar(clau), i));
+                }
+            }
+        }
+        entrades.sort(Comparator.comparing(Entrada::clau));
+
+        this.claus = new String[entrades.size()];
+        this.posicions = new int[entrades.size()];
+        for (int i = 0; i < entrades.size(); i++) {
+            claus[i] = entrades.get(i).clau();
+            posicions[i] = entrades.get(i).posicio();
+        }
+    }
+
+    /**
+     * Retorna les entitats amb alguna clau que comença pel prefix indicat.
+     *
+     * @param prefix El prefix a buscar, sense distingir majúscules.
+     * @param max Nombre màxim de resultats.
+     * @return Les entitats trobades, en l'ordre original i sense repetir-ne cap.
+     */
+
+    List<T> buscar(String prefix, int max) {
+        String clau = normalitzar(prefix);
+        int inici = Arrays.binarySearch(claus, clau);
+        if (inici < 0) {
+            inici = -inici - 1;
+        } else {
+            while (inici > 0 && claus[inici - 1].equals(clau)) inici--;
+        }
+
+        BitSet trobades = new BitSet(entitats.size());
+        for (int i = inici; i < claus.length && claus[i].startsWith(clau); i++) {
+            trobades.set(posicions[i]);
+        }
+
+        List<T> resultat = new ArrayList<>();
+        for (int i = trobades.nextSetBit(0); i >= 0 && resultat.size() < max; i = trobades.nextSetBit(i + 1)) {
+            resultat.add(entitats.get(i));
+        }
+        return resultat;
+    }
+
+    /**
+     * Normalitza un text per comparar-lo amb les claus de l'índex.
+     *
+     * @param text El text.
+     * @return El text sense espais als extrems i en majúscules.
+     */
+
+    static String normalitzar(String text) {
+        return text.strip().toUpperCase(Locale.ROOT);
+    }
+
+    private record Entrada(String clau, int posicio) {
+    }
+}
@@ -5,7 +5,6 @@ import org.example.model.entities.Propietari;
 import org.example.model.entities.Revisio;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.time.LocalDate;
 
 /**
@@ -15,9 +14,14 @@ import java.time.LocalDate;
 
 public class ModelComponentsVisuals {
 
-    private DefaultTableModel modelTaulaBicis;
-    private DefaultTableModel modelTaulaPropietaris;
-    private DefaultTableModel modelTaulaRevisions;
+    // Les taules carreguen les files per pàgines i en guarden a memòria com a molt MAX_PAGINES.
+
+    private static final int MIDA_PAGINA = 100;
+    private static final int MAX_PAGINES = 20;
+
+    private ModelTaulaPaginada<Bici> modelTaulaBicis;
+    private ModelTaulaPaginada<Propietari> modelTaulaPropietaris;
+    private ModelTaulaPaginada<Revisio> modelTaulaRevisions;
 
     private DefaultComboBoxModel<Bici.TipoBici> comboBoxModelTipusBici;
     private DefaultComboBoxModel<Bici.Carboni> comboBoxModelCarboni;
@@ -44,23 +48,21 @@ public class ModelComponentsVisuals {
      */
 
     private void initializeBiciModel() {
-        modelTaulaBicis = new DefaultTableModel(new Object[]{"Marca", "Model", "Pes", "Any", "Tipus", "Carboni", "Propietari", "Object"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
+        modelTaulaBicis = new ModelTaulaPaginada<>(
+                new String[]{"Marca", "Model", "Pes", "Any", "Tipus", "Carboni", "Propietari"},
+                new Class<?>[]{String.class, String.class, Double.class, Integer.class, Bici.TipoBici.class, Bici.Carboni.class, Propietari.class},
+                new String[]{"marca", "model", null, null, null, null, null},
+                MIDA_PAGINA, MAX_PAGINES) {
             @Override
-            public Class<?> getColumnClass(int column) {
-                switch (column) {
-                    case 0: return String.class;
-                    case 1: return String.class;
-                    case 2: return Double.class;
-                    case 3: return Integer.class;
-                    case 4: return Bici.TipoBici.class;
-                    case 5: return Bici.Carboni.class;
-                    case 6: return Propietari.class;
-                    default: return Object.class;
+            protected Object valor(Bici bici, int columna) {
+                switch (columna) {
+                    case 0: return bici.getMarca();
+                    case 1: return bici.getModelBici();
+                    case 2: return bici.getPes();
+                    case 3: return bici.getAnyFabricacio();
+                    case 4: return bici.getTipo();
+                    case 5: return bici.getCarboni();
+                    default: return bici.getPropietari();
                 }
             }
         };
@@ -71,20 +73,18 @@ public class ModelComponentsVisuals {
      */
 
     private void initializePropietariModel() {
-        modelTaulaPropietaris = new DefaultTableModel(new Object[]{"Nom", "Cognom", "Telefon", "Email", "Object"}, 0) {
+        modelTaulaPropietaris = new ModelTaulaPaginada<>(
+                new String[]{"Nom", "Cognom", "Telefon", "Email"},
+                new Class<?>[]{String.class, String.class, String.class, String.class},
+                new String[]{"nom", "cognoms", null, null},
+                MIDA_PAGINA, MAX_PAGINES) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
-            @Override
-            public Class<?> getColumnClass(int column) {
-                switch (column) {
-                    case 0: return String.class;
-                    case 1: return String.class;
-                    case 2: return String.class;
-                    case 3: return String.class;
-                    default: return Object.class;
+            protected Object valor(Propietari propietari, int columna) {
+                switch (columna) {
+                    case 0: return propietari.getNom();
+                    case 1: return propietari.getCognoms();
+                    case 2: return propietari.getTelefon();
+                    default: return propietari.getEmail();
                 }
             }
         };
@@ -95,20 +95,18 @@ public class ModelComponentsVisuals {
      */
 
     private void initializeRevisioModel() {
-        modelTaulaRevisions = new DefaultTableModel(new Object[]{"Data", "Descripcio","Preu", "Bici" ,"Object"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
+        modelTaulaRevisions = new ModelTaulaPaginada<>(
+                new String[]{"Data", "Descripcio", "Preu", "Bici"},
+                new Class<?>[]{LocalDate.class, String.class, Double.class, Bici.class},
+                new String[]{"data", "descripcio", null, null},
+                MIDA_PAGINA, MAX_PAGINES) {
             @Override
-            public Class<?> getColumnClass(int column) {
-                switch (column) {
-                    case 0: return LocalDate.class;
-                    case 1: return String.class;
-                    case 2: return Double.class;
-                    case 3: return Bici.class;
-                    default: return Object.class;
+            protected Object valor(Revisio revisio, int columna) {
+                switch (columna) {
+                    case 0: return revisio.getData();
+                    case 1: return revisio.getDescripcio();
+                    case 2: return revisio.getPreu();
+                    default: return revisio.getBici();
                 }
             }
         };
@@ -116,15 +114,15 @@ public class ModelComponentsVisuals {
 
     // Getters
 
-    public DefaultTableModel getModelTaulaBicis() {
+    public ModelTaulaPaginada<Bici> getModelTaulaBicis() {
         return modelTaulaBicis;
     }
 
-    public DefaultTableModel getModelTaulaPropietaris() {
+    public ModelTaulaPaginada<Propietari> getModelTaulaPropietaris() {
         return modelTaulaPropietaris;
     }
 
-    public DefaultTableModel getModelTaulaRevisions() {
+    public ModelTaulaPaginada<Revisio> getModelTaulaRevisions() {
         return modelTaulaRevisions;
     }
 
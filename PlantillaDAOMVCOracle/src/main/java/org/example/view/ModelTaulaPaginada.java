@@ -0,0 +1,302 @@
+package org.example.view;
+
+import org.example.model.daos.AsyncDAO;
+import org.example.model.daos.Pagina;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Model de taula que carrega les files del DAO per pàgines a mesura que la taula les demana.
+ *
+ * Només es guarden a memòria les darreres pàgines consultades; la resta es tornen a demanar
+ * quan l'usuari hi torna. Les consultes s'executen fora del fil d'esdeveniments de Swing:
+ * mentre una pàgina no ha arribat, les seves files es mostren buides i, quan arriba, la taula
+ * es torna a pintar. Les cel·les es calculen directament a partir dels camps de l'entitat.
+ *
+ * L'ordre i el filtre de text no s'apliquen a la taula sinó a les consultes: canviar-los
+ * descarta les pàgines carregades i torna a demanar-les a la base de dades ja ordenades i filtrades,
+ * de manera que el fil d'esdeveniments no ordena ni recorre mai les files.
+ *
+ * @param <T> El tipus d'entitat de cada fila.
+ */
+
+public abstract class ModelTaulaPaginada<T> extends AbstractTableModel {
+
+    private final String[] columnes;
+    private final Class<?>[] classes;
+    private final String[] ordenables;
+    private final int midaPagina;
+    private final Map<Integer, List<T>> pagines;
+    private final Map<Integer, Object> enCarrega = new HashMap<>();
+
+    private AsyncDAO<T> font;
+    private Consumer<Throwable> gestorErrors = e -> System.err.println("Error carregant la taula: " + e.getMessage());
+    private int files;
+    private int generacio;
+    private int columnaOrdre = -1;
+    private boolean ascendent = true;
+    private String filtre;
+
+    /**
+     * Crea un model buit; no mostra cap fila fins que se li assigna una font de dades.
+     *
+     * @param columnes Els noms de les columnes.
+     * @param classes La classe dels valors de cada columna.
+     * @param ordenables Nom de cada columna per ordenar al DAO, o null si no s'hi pot ordenar.
+     * @param midaPagina Nombre de files de cada pàgina.
+     * @param maxPagines Nombre màxim de pàgines guardades a memòria.
+     */
+
+    protected ModelTaulaPaginada(String[] columnes, Class<?>[] classes, String[] ordenables, int midaPagina, int maxPagines) {
+        this.columnes = columnes;
+        this.classes = classes;
+        this.ordenables = ordenables;
+        this.midaPagina = midaPagina;
+        this.pagines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPagines;
+            }
+        };
+    }
+
+    /**
+     * Valor d'una columna per a una entitat.
+     *
+     * @param entitat L'entitat de la fila.
+     * @param columna L'índex de la columna.
+     * @return El valor a mostrar.
+     */
+
+    protected abstract Object valor(T entitat, int columna);
+
+    /**
+     * Assigna el DAO del qual es llegeixen les files. La taula no es carrega fins a cridar {@link #recarregar()}.
+     *
+     * @param font El DAO asíncron.
+     */
+
+    public void setFont(AsyncDAO<T> font) {
+        this.font = font;
+    }
+
+    /**
+     * Assigna l'acció a executar, al fil d'esdeveniments, quan falla la lectura d'una pàgina.
+     *
+     * @param gestorErrors L'acció que rep l'error.
+     */
+
+    public void setGestorErrors(Consumer<Throwable> gestorErrors) {
+        this.gestorErrors = gestorErrors;
+    }
+
+    /**
+     * Ordena la taula per una columna. Si ja estava ordenada per aquesta columna, n'inverteix el sentit.
+     *
+     * @param columna L'índex de la columna; les columnes no ordenables s'ignoren.
+     */
+
+    public void ordenarPer(int columna) {
+        if (columna < 0 || ordenables[columna] == null) return;
+        ascendent = columna != columnaOrdre || !ascendent;
+        columnaOrdre = columna;
+        recarregar();
+    }
+
+    /**
+     * Mostra només les files que comencen pel text indicat, segons les columnes filtrables del DAO.
+     *
+     * @param text El text a buscar; si és buit, es mostren totes les files.
+     */
+
+    public void filtrar(String text) {
+        String nou = text == null || text.isBlank() ? null : text.strip();
+        if (Objects.equals(nou, filtre)) return;
+        filtre = nou;
+        recarregar();
+    }
+
+    /**
+     * Retorna l'índex de la columna per la qual s'ordena la taula.
+     *
+     * @return L'índex de la columna, o -1 si s'ordena per ID.
+     */
+
+    public int getColumnaOrdre() {
+        return columnaOrdre;
+    }
+
+    /**
+     * Indica si l'ordre actual és ascendent.
+     *
+     * @return true si és ascendent, false si és descendent.
+     */
+
+    public boolean isAscendent() {
+        return ascendent;
+    }
+
+    /**
+     * Descarta totes les pàgines carregades i torna a comptar les files.
+     */
+
+    public void recarregar() {
+        if (font == null) return;
+        int actual = ++generacio;
+        font.countAsync(filtre).whenComplete((total, error) -> SwingUtilities.invokeLater(() -> {
+            if (actual != generacio) return;
+            if (error != null) {
+                gestorErrors.accept(error);
+                return;
+            }
+            pagines.clear();
+            enCarrega.clear();
+            files = (int) Math.min(total, Integer.MAX_VALUE);
+            fireTableDataChanged();
+        }));
+    }
+
+    /**
+     * Retorna l'entitat d'una fila.
+     *
+     * @param fila L'índex de la fila.
+     * @return L'entitat, o null si la seva pàgina encara no s'ha carregat.
+     */
+
+    public T getEntitat(int fila) {
+        int pagina = fila / midaPagina;
+        List<T> entitats = pagines.get(pagina);
+        int index = fila % midaPagina;
+        if (entitats != null && index < entitats.size()) {
+            return entitats.get(index);
+        }
+        carregar(pagina);
+        return null;
+    }
+
+    /**
+     * Afegeix una entitat nova al final de la taula, sense tornar a consultar la base de dades.
+     * Encara que hi hagi un ordre o un filtre actius, la fila es queda al final fins a la pròxima recàrrega.
+     *
+     * @param entitat L'entitat guardada.
+     */
+
+    public void afegir(T entitat) {
+        int fila = files++;
+        List<T> entitats = pagines.get(fila / midaPagina);
+        if (entitats != null && entitats.size() == fila % midaPagina) {
+            entitats.add(entitat);
+        }
+        fireTableRowsInserted(fila, fila);
+    }
+
+    /**
+     * Torna a pintar la fila d'una entitat modificada, si està carregada.
+     *
+     * @param entitat L'entitat modificada.
+     */
+
+    public void actualitzar(T entitat) {
+        int fila = filaDe(entitat);
+        if (fila != -1) {
+            pagines.get(fila / midaPagina).set(fila % midaPagina, entitat);
+            fireTableRowsUpdated(fila, fila);
+        }
+    }
+
+    /**
+     * Treu la fila d'una entitat eliminada. Les pàgines posteriors es descarten perquè
+     * les seves files s'han desplaçat una posició, i les que s'estaven carregant s'ignoraran quan arribin.
+     *
+     * @param entitat L'entitat eliminada.
+     */
+
+    public void eliminar(T entitat) {
+        int fila = filaDe(entitat);
+        if (fila == -1) {
+            recarregar();
+            return;
+        }
+        int pagina = fila / midaPagina;
+        pagines.get(pagina).remove(fila % midaPagina);
+        pagines.keySet().removeIf(p -> p > pagina);
+        enCarrega.keySet().removeIf(p -> p > pagina);
+        files--;
+        fireTableRowsDeleted(fila, fila);
+    }
+
+    // Demana una pàgina a la base de dades si no s'està carregant ja. Cada petició té la seva
+    // marca a enCarrega: si la pàgina es descarta mentre es carrega, el resultat s'ignora.
+
+    private void carregar(int pagina) {
+        if (font == null || enCarrega.containsKey(pagina)) return;
+        Object marca = new Object();
+        enCarrega.put(pagina, marca);
+        int actual = generacio;
+        Pagina consulta = Pagina.perOffset(pagina * midaPagina, midaPagina)
+                .ordenadaPer(columnaOrdre == -1 ? null : ordenables[columnaOrdre], ascendent)
+                .filtradaPer(filtre);
+        font.getPageAsync(consulta)
+                .whenComplete((entitats, error) -> SwingUtilities.invokeLater(() -> {
+                    if (actual != generacio || !enCarrega.remove(pagina, marca)) return;
+                    if (error != null) {
+                        gestorErrors.accept(error);
+                        return;
+                    }
+                    pagines.put(pagina, entitats);
+                    int primera = pagina * midaPagina;
+                    int darrera = Math.min(files, primera + midaPagina) - 1;
+                    if (darrera >= primera) {
+                        fireTableRowsUpdated(primera, darrera);
+                    }
+                }));
+    }
+
+    private int filaDe(T entitat) {
+        for (Map.Entry<Integer, List<T>> pagina : pagines.entrySet()) {
+            int index = pagina.getValue().indexOf(entitat);
+            if (index != -1) {
+                return pagina.getKey() * midaPagina + index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getRowCount() {
+        return files;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnes.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnes[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return classes[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T entitat = getEntitat(row);
+        return entitat == null ? null : valor(entitat, column);
+    }
+}
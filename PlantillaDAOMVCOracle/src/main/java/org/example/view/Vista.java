@@ -20,6 +20,10 @@ public class Vista extends JFrame {
     private JTable taulaPropietaris;
     private JTable taulaRevisions;
 
+    private JTextField filtreBicis;
+    private JTextField filtrePropietaris;
+    private JTextField filtreRevisions;
+
     private JScrollPane scrollPane1;
     private JButton insertarButton;
     private JButton modificarButton;
@@ -60,6 +64,18 @@ public class Vista extends JFrame {
         return taulaRevisions;
     }
 
+    public JTextField getFiltreBicis() {
+        return filtreBicis;
+    }
+
+    public JTextField getFiltrePropietaris() {
+        return filtrePropietaris;
+    }
+
+    public JTextField getFiltreRevisions() {
+        return filtreRevisions;
+    }
+
     public JButton getInsertarButton() {
         return insertarButton;
     }